@@ -0,0 +1,69 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/*
+ Наявні товари потрапляють у журнал як створені, щоб клієнт міг почати з токена 0.
+ Пакетами за id, кожен пакет - окрема транзакція, бо каталог може мати сотні мільйонів рядків.
+ Пакет бере те саме блокування журналу, що й записувачі, і лише потім читає товари: інакше запис,
+ закомічений поки пакет чекав, отримав би менший токен, ніж старіша версія товару з пакета.
+ Товари, у яких уже є запис (змінені або створені після V24_1_6), пропускаються - той запис новіший
+*/
+public class V24_1_12__Products_change_log_seed extends BaseJavaMigration {
+
+    private static final int BATCH_SIZE = 10_000;
+
+    @Override
+    public boolean canExecuteInTransaction() {
+        return false;
+    }
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try (PreparedStatement nextBatch = connection.prepareStatement("""
+                select max(id)
+                from (select id from catalogue.t_product where id > ? order by id limit ?) batch""");
+             Statement lock = connection.createStatement();
+             PreparedStatement seed = connection.prepareStatement("""
+                     insert into catalogue.t_product_change (c_product_id, c_type, c_title, c_details, c_version)
+                     select product.id, 'CREATED', product.c_title, product.c_details, product.c_version
+                     from catalogue.t_product product
+                     where product.id > ? and product.id <= ?
+                       and not exists (select 1
+                                       from catalogue.t_product_change c
+                                       where c.c_product_id = product.id)
+                     order by product.id""")) {
+            int lastId = 0;
+            while (true) {
+                int batchEnd;
+                nextBatch.setInt(1, lastId);
+                nextBatch.setInt(2, BATCH_SIZE);
+                try (ResultSet resultSet = nextBatch.executeQuery()) {
+                    resultSet.next();
+                    batchEnd = resultSet.getInt(1);
+                    if (resultSet.wasNull()) {
+                        connection.commit();
+                        return;
+                    }
+                }
+                lock.execute("select pg_advisory_xact_lock(hashtext('catalogue.t_product_change'))");
+                seed.setInt(1, lastId);
+                seed.setInt(2, batchEnd);
+                seed.executeUpdate();
+                connection.commit();
+                lastId = batchEnd;
+            }
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+/*
+ Перенесення наявних товарів у секціоновану тінь пакетами за id, кожен пакет - окрема транзакція,
+ тож старі екземпляри застосунку продовжують писати в t_product, а тригер з V24_1_7 дублює їхні зміни.
+ FOR KEY SHARE не дає видалити рядок, поки пакет не закомічено: інакше видалений товар міг би
+ потрапити в тінь уже після того, як тригер прибрав його звідти.
+ ON CONFLICT DO NOTHING - рядок, який тригер уже записав, свіжіший за прочитаний пакетом.
+ Один flyway migrate виконав би V24_1_7-V24_1_9 підряд при старті першого нового вузла: перенесення тримало б
+ старт, а підміна таблиці йшла б одразу за ним. Тому реліз із цією міграцією зупиняється на ній
+ (spring.flyway.target=24.1.8), а V24_1_9 застосовує наступний реліз
+*/
+public class V24_1_8__Products_partitioned_backfill extends BaseJavaMigration {
+
+    private static final int BATCH_SIZE = 10_000;
+
+    @Override
+    public boolean canExecuteInTransaction() {
+        return false;
+    }
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        try (PreparedStatement statement = connection.prepareStatement("""
+                with batch as (
+                    select id, c_title, c_details, c_version
+                    from catalogue.t_product
+                    where id > ?
+                    order by id
+                    limit ?
+                    for key share
+                ), copied as (
+                    insert into catalogue.t_product_partitioned (id, c_title, c_details, c_version)
+                    select id, c_title, c_details, c_version from batch
+                    on conflict (id) do nothing
+                )
+                select max(id) from batch""")) {
+            int lastId = 0;
+            while (true) {
+                statement.setInt(1, lastId);
+                statement.setInt(2, BATCH_SIZE);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    resultSet.next();
+                    lastId = resultSet.getInt(1);
+                    if (resultSet.wasNull()) {
+                        return;
+                    }
+                }
+                if (!connection.getAutoCommit()) {
+                    connection.commit();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package org.example.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.repository.ProductReader;
+import org.example.service.batching.ProductBatchLoader;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class BatchingBeans {
+
+    @Bean
+    public ProductBatchLoader productBatchLoader(
+            ProductReader productReader,
+            MeterRegistry meterRegistry,
+            @Value("${catalogue.products.batching.enabled:false}") boolean enabled,
+            @Value("${catalogue.products.batching.window:PT0.002S}") Duration window,
+            @Value("${catalogue.products.batching.max-batch-size:100}") int maxBatchSize,
+            @Value("${catalogue.products.batching.loader-threads:4}") int loaderThreads
+    ) {
+        ProductBatchLoader loader = new ProductBatchLoader(productReader, enabled, window, maxBatchSize,
+                loaderThreads);
+        FunctionCounter.builder("catalogue.products.batches", loader, ProductBatchLoader::batches)
+                .description("Queries issued by the product batch loader")
+                .register(meterRegistry);
+        FunctionCounter.builder("catalogue.products.batches.ids", loader, ProductBatchLoader::loaded)
+                .description("Distinct product ids resolved by the product batch loader")
+                .register(meterRegistry);
+        return loader;
+    }
+}
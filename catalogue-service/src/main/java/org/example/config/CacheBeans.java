@@ -0,0 +1,121 @@
+package org.example.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.example.config.controller.ProductListResponseCacheFilter;
+import org.example.service.cache.ProductCacheInvalidator;
+import org.example.service.cache.ProductChangeNotificationListener;
+import org.example.service.cache.ProductListResponseCache;
+import org.example.service.search.ProductIdSet;
+import org.example.service.search.ProductSearchIndex;
+import org.example.service.snapshot.ProductSnapshot;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+
+@Configuration
+@EnableCaching
+@ConditionalOnProperty(name = "catalogue.products.cache.enabled", havingValue = "true")
+public class CacheBeans {
+
+    public static final String PRODUCTS_CACHE = "products";
+
+    @Bean
+    public CaffeineCacheManager cacheManager(
+            @Value("${catalogue.products.cache.maximum-size:10000}") long maximumSize,
+            @Value("${catalogue.products.cache.time-to-live:PT5M}") Duration timeToLive
+    ) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(PRODUCTS_CACHE);
+        cacheManager.setCaffeine(Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive)
+                .recordStats());
+        cacheManager.setAllowNullValues(false);
+        return cacheManager;
+    }
+
+    /*
+     Бар'єр потрібен і без реплік: читання, що почалося до коміту зміни, може завершитися вже після
+     видалення з кешу і повернути туди стару версію. З репліками він не коротший за їхній бар'єр запису
+    */
+    @Bean
+    public ProductCacheInvalidator productCacheInvalidator(
+            CacheManager cacheManager,
+            JdbcTemplate jdbcTemplate,
+            @Value("${catalogue.products.cache.change-fence:PT5S}") Duration changeFence,
+            @Value("${catalogue.datasource.replicas.enabled:false}") boolean replicasEnabled,
+            @Value("${catalogue.datasource.replicas.write-fence:PT5S}") Duration writeFence
+    ) {
+        return new ProductCacheInvalidator(cacheManager.getCache(PRODUCTS_CACHE), jdbcTemplate,
+                replicasEnabled && writeFence.compareTo(changeFence) > 0 ? writeFence : changeFence,
+                Clock.systemUTC());
+    }
+
+    @Bean
+    public ProductChangeNotificationListener productChangeNotificationListener(
+            DataSourceProperties dataSourceProperties,
+            ProductCacheInvalidator productCacheInvalidator,
+            ObjectProvider<ProductListResponseCache> productListResponseCache,
+            ProductIdSet productIdSet
+    ) {
+        return new ProductChangeNotificationListener(dataSourceProperties, productCacheInvalidator,
+                productListResponseCache, productIdSet);
+    }
+
+    /*
+     Розмір кешу відповідей обмежено сумарною кількістю байтів; Caffeine витісняє за W-TinyLFU,
+     тож популярні фільтри переживають потік одноразових.
+     Списки читаються з пошукового індексу і знімка, які застосовують зміни пізніше за коміт і повідомлення,
+     тому покоління збільшується ще раз, коли зміну застосовано і там
+    */
+    @Bean
+    @ConditionalOnProperty(name = "catalogue.products.cache.responses.enabled", havingValue = "true")
+    public ProductListResponseCache productListResponseCache(
+            MeterRegistry meterRegistry,
+            ProductSearchIndex productSearchIndex,
+            ProductSnapshot productSnapshot,
+            @Value("${catalogue.products.cache.responses.maximum-bytes:67108864}") long maximumBytes
+    ) {
+        Cache<ProductListResponseCache.Key, ProductListResponseCache.Entry> cache = Caffeine.newBuilder()
+                .maximumWeight(maximumBytes)
+                .<ProductListResponseCache.Key, ProductListResponseCache.Entry>weigher((key, entry) -> entry.weight())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "catalogue.products.responses");
+        Gauge.builder("catalogue.products.responses.hit.ratio", cache, c -> c.stats().hitRate())
+                .description("Share of product list requests answered from the response cache")
+                .register(meterRegistry);
+        ProductListResponseCache responseCache = new ProductListResponseCache(cache);
+        productSearchIndex.addChangeListener(responseCache::invalidate);
+        productSnapshot.addChangeListener(responseCache::invalidate);
+        return responseCache;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "catalogue.products.cache.responses.enabled", havingValue = "true")
+    public FilterRegistrationBean<ProductListResponseCacheFilter> productListResponseCacheFilter(
+            ProductListResponseCache productListResponseCache
+    ) {
+        FilterRegistrationBean<ProductListResponseCacheFilter> registration =
+                new FilterRegistrationBean<>(new ProductListResponseCacheFilter(productListResponseCache));
+        registration.addUrlPatterns("/catalogue-api/products");
+        // після Spring Security
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER + 1);
+        return registration;
+    }
+}
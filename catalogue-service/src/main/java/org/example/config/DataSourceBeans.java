@@ -0,0 +1,82 @@
+package org.example.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.example.service.ReplicaReadFence;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+public class DataSourceBeans {
+
+    @Bean
+    @ConditionalOnProperty(name = "catalogue.datasource.replicas.enabled", havingValue = "true")
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+        HikariDataSource dataSource = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        dataSource.setPoolName("catalogue-primary");
+        return dataSource;
+    }
+
+    // він же бар'єр читання для DefaultProductService
+    @Bean
+    @ConditionalOnProperty(name = "catalogue.datasource.replicas.enabled", havingValue = "true")
+    public ReplicaRoutingDataSource replicaRoutingDataSource(
+            HikariDataSource primaryDataSource,
+            DataSourceProperties dataSourceProperties,
+            @Value("${catalogue.datasource.replicas.urls}") List<String> replicaUrls,
+            @Value("${catalogue.datasource.replicas.write-fence:PT5S}") Duration writeFence,
+            @Value("${catalogue.datasource.replicas.retry-after:PT30S}") Duration retryAfter,
+            @Value("${catalogue.datasource.replicas.connection-timeout:PT2S}") Duration connectionTimeout
+    ) {
+        List<DataSource> replicas = new ArrayList<>();
+        for (String url : replicaUrls) {
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("catalogue-replica-" + replicas.size());
+            replica.setJdbcUrl(url);
+            replica.setUsername(dataSourceProperties.determineUsername());
+            replica.setPassword(dataSourceProperties.determinePassword());
+            replica.setReadOnly(true);
+            // недоступна репліка не повинна ні блокувати старт, ні довго тримати запит
+            replica.setInitializationFailTimeout(-1);
+            replica.setConnectionTimeout(connectionTimeout.toMillis());
+            replicas.add(replica);
+        }
+
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas, DataSourceBeans::currentClient, writeFence,
+                retryAfter, Clock.systemUTC());
+    }
+
+    @Bean
+    @Primary
+    @ConditionalOnProperty(name = "catalogue.datasource.replicas.enabled", havingValue = "true")
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "catalogue.datasource.replicas.enabled", havingValue = "false", matchIfMissing = true)
+    public ReplicaReadFence replicaReadFence() {
+        return ReplicaReadFence.NONE;
+    }
+
+    private static String currentClient() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication == null ? null : authentication.getName();
+    }
+}
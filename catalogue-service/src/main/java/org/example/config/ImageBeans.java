@@ -0,0 +1,29 @@
+package org.example.config;
+
+import org.example.service.images.ProductImageStorage;
+import org.example.service.images.ProductThumbnails;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+@Configuration
+public class ImageBeans {
+
+    @Bean
+    public ProductImageStorage productImageStorage(
+            @Value("${catalogue.products.images.root:catalogue-images}") Path root,
+            @Value("${catalogue.products.images.max-bytes:10485760}") long maxBytes
+    ) {
+        return new ProductImageStorage(root, maxBytes);
+    }
+
+    @Bean
+    public ProductThumbnails productThumbnails(
+            @Value("${catalogue.products.images.thumbnail-size:256}") int size,
+            @Value("${catalogue.products.images.max-pixels:40000000}") long maxPixels
+    ) {
+        return new ProductThumbnails(size, maxPixels);
+    }
+}
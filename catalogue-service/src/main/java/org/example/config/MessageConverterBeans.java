@@ -0,0 +1,21 @@
+package org.example.config;
+
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+@Configuration
+public class MessageConverterBeans {
+
+    /*
+     Smile - бінарний формат Jackson для запитів між сервісами (Accept: application/x-jackson-smile).
+     Конвертер будується тим самим Jackson2ObjectMapperBuilder, що й JSON, тому налаштування spring.jackson
+     та міксини (ProblemDetail) діють і тут. Браузери й інші клієнти без цього Accept і далі отримують JSON
+    */
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+}
@@ -0,0 +1,48 @@
+package org.example.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.repository.ProductChangeRepository;
+import org.example.service.ProductChangeLogCompactor;
+import org.example.service.events.ProductEventsHub;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Clock;
+import java.time.Duration;
+
+@Configuration
+public class ProductEventsBeans {
+
+    @Bean
+    public ProductEventsHub productEventsHub(
+            ProductChangeRepository productChangeRepository,
+            MeterRegistry meterRegistry,
+            @Value("${catalogue.products.events.buffer-size:256}") int bufferSize,
+            @Value("${catalogue.products.events.timeout:PT30M}") Duration timeout,
+            @Value("${catalogue.products.events.poll-interval:PT1S}") Duration pollInterval,
+            @Value("${catalogue.products.events.heartbeat-interval:PT30S}") Duration heartbeatInterval,
+            @Value("${catalogue.products.events.write-timeout:PT10S}") Duration writeTimeout,
+            @Value("${catalogue.products.events.sender-threads:4}") int senderThreads
+    ) {
+        ProductEventsHub hub = new ProductEventsHub(productChangeRepository, bufferSize, timeout, pollInterval,
+                heartbeatInterval, writeTimeout, senderThreads);
+        Gauge.builder("catalogue.products.events.subscribers", hub, ProductEventsHub::subscribers)
+                .description("Number of connected product events subscribers")
+                .register(meterRegistry);
+        return hub;
+    }
+
+    /*
+     Клієнт, що відстав на більше, ніж retention, після стиснення бачить лише останні версії товарів
+    */
+    @Bean
+    public ProductChangeLogCompactor productChangeLogCompactor(
+            ProductChangeRepository productChangeRepository,
+            @Value("${catalogue.products.changes.retention:P7D}") Duration retention,
+            @Value("${catalogue.products.changes.compaction-interval:PT1H}") Duration interval
+    ) {
+        return new ProductChangeLogCompactor(productChangeRepository, retention, interval, Clock.systemUTC());
+    }
+}
@@ -0,0 +1,29 @@
+package org.example.config;
+
+import org.example.repository.JdbcProductReader;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+/*
+ Читання без Hibernate вмикається профілем: --spring.profiles.active=standalone,jdbc-reads.
+ Без нього ProductReader - це сам ProductRepository
+*/
+@Configuration
+@Profile("jdbc-reads")
+public class ReadPathBeans {
+
+    @Bean
+    @Primary
+    public JdbcProductReader jdbcProductReader(DataSource dataSource, JdbcClient jdbcClient) {
+        TransactionTemplate readOnlyTransaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        readOnlyTransaction.setReadOnly(true);
+        return new JdbcProductReader(jdbcClient, readOnlyTransaction);
+    }
+}
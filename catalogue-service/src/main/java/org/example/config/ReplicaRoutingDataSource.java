@@ -0,0 +1,129 @@
+package org.example.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.example.service.ReplicaReadFence;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/*
+ Read-only транзакції йдуть на репліки по колу, решта - на primary.
+ Репліка, до якої не вдалося підключитися, пропускається до кінця retryAfter.
+ Клієнт, який щойно щось змінив, протягом writeFence читає з primary, щоб не побачити застарілі дані з репліки.
+ Працює лише за LazyConnectionDataSourceProxy: інакше з'єднання береться до того, як стає відомо про readOnly
+*/
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements ReplicaReadFence {
+
+    static final String PRIMARY = "primary";
+
+    private final List<String> replicas;
+
+    private final Supplier<String> clientId;
+
+    private final Duration retryAfter;
+
+    private final Clock clock;
+
+    private final Cache<String, Boolean> recentWriters;
+
+    private final Map<String, Long> unavailableUntil = new ConcurrentHashMap<>();
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, Supplier<String> clientId,
+                                    Duration writeFence, Duration retryAfter, Clock clock) {
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        this.replicas = new ArrayList<>();
+        for (int i = 0; i < replicas.size(); i++) {
+            String key = "replica-" + i;
+            targets.put(key, replicas.get(i));
+            this.replicas.add(key);
+        }
+        this.setTargetDataSources(targets);
+        this.setDefaultTargetDataSource(primary);
+        this.setLenientFallback(false);
+
+        this.clientId = clientId;
+        this.retryAfter = retryAfter;
+        this.clock = clock;
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(writeFence)
+                .maximumSize(100_000)
+                .build();
+        this.afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String client = this.clientId.get();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (client != null && TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        ReplicaRoutingDataSource.this.recentWriters.put(client, Boolean.TRUE);
+                    }
+                });
+            }
+            return PRIMARY;
+        }
+        if (this.isFenced(client)) {
+            return PRIMARY;
+        }
+        return this.nextAvailableReplica();
+    }
+
+    @Override
+    public boolean isActive() {
+        return this.isFenced(this.clientId.get());
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Object key = this.determineCurrentLookupKey();
+        while (!PRIMARY.equals(key)) {
+            try {
+                return this.getResolvedDataSources().get(key).getConnection();
+            } catch (SQLException exception) {
+                log.warn("Replica {} is unavailable, skipping it for {}", key, this.retryAfter, exception);
+                this.unavailableUntil.put((String) key, this.clock.millis() + this.retryAfter.toMillis());
+                key = this.nextAvailableReplica();
+            }
+        }
+        return this.getResolvedDefaultDataSource().getConnection();
+    }
+
+    private boolean isFenced(String client) {
+        return client != null && this.recentWriters.getIfPresent(client) != null;
+    }
+
+    private String nextAvailableReplica() {
+        long now = this.clock.millis();
+        for (int attempt = 0; attempt < this.replicas.size(); attempt++) {
+            String replica = this.replicas.get(Math.floorMod(this.next.getAndIncrement(), this.replicas.size()));
+            Long until = this.unavailableUntil.get(replica);
+            if (until == null || until <= now) {
+                return replica;
+            }
+        }
+        // жодної доступної репліки
+        return PRIMARY;
+    }
+}
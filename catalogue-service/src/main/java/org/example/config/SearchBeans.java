@@ -0,0 +1,76 @@
+package org.example.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.repository.ProductChangeRepository;
+import org.example.repository.ProductRepository;
+import org.example.service.search.ProductIdSet;
+import org.example.service.search.ProductSearchIndex;
+import org.example.service.search.ProductSearchRanking;
+import org.example.service.search.ProductTitleSuggester;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class SearchBeans {
+
+    @Bean
+    public ProductSearchIndex productSearchIndex(
+            ProductRepository productRepository,
+            ProductChangeRepository productChangeRepository,
+            @Value("${catalogue.search.index.enabled:false}") boolean enabled,
+            @Value("${catalogue.products.changes.poll-interval:PT1S}") Duration pollInterval,
+            @Value("${catalogue.search.index.ranking:id}") String ranking
+    ) {
+        return new ProductSearchIndex(productRepository, productChangeRepository, enabled, pollInterval,
+                ProductSearchRanking.of(ranking));
+    }
+
+    @Bean
+    public ProductTitleSuggester productTitleSuggester(
+            ProductRepository productRepository,
+            ProductChangeRepository productChangeRepository,
+            MeterRegistry meterRegistry,
+            @Value("${catalogue.search.suggest.enabled:false}") boolean enabled,
+            @Value("${catalogue.products.changes.poll-interval:PT1S}") Duration pollInterval
+    ) {
+        ProductTitleSuggester suggester = new ProductTitleSuggester(productRepository, productChangeRepository,
+                enabled, pollInterval);
+        Gauge.builder("catalogue.products.suggest.memory", suggester, ProductTitleSuggester::estimatedMemoryBytes)
+                .description("Estimated heap footprint of the product title trie")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("catalogue.products.suggest.size", suggester, ProductTitleSuggester::size)
+                .description("Number of product titles in the trie")
+                .register(meterRegistry);
+        return suggester;
+    }
+
+    /*
+     Набір спирається на повідомлення про зміни від інших вузлів, які слухає ProductChangeNotificationListener,
+     тож без кешу товарів (а з ним і без слухача) він не вмикається
+    */
+    @Bean
+    public ProductIdSet productIdSet(
+            ProductRepository productRepository,
+            ProductChangeRepository productChangeRepository,
+            MeterRegistry meterRegistry,
+            @Value("${catalogue.products.id-filter.enabled:false}") boolean enabled,
+            @Value("${catalogue.products.cache.enabled:false}") boolean notificationsEnabled,
+            @Value("${catalogue.products.changes.poll-interval:PT1S}") Duration pollInterval
+    ) {
+        ProductIdSet productIdSet = new ProductIdSet(productRepository, productChangeRepository,
+                enabled && notificationsEnabled, pollInterval);
+        FunctionCounter.builder("catalogue.products.id-filter.rejected", productIdSet, ProductIdSet::rejected)
+                .description("Product lookups answered as not found without reading the product")
+                .register(meterRegistry);
+        Gauge.builder("catalogue.products.id-filter.size", productIdSet, ProductIdSet::size)
+                .description("Number of product ids in the id set")
+                .register(meterRegistry);
+        return productIdSet;
+    }
+}
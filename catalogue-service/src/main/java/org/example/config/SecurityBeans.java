@@ -20,10 +20,18 @@ public class SecurityBeans {
                         .requestMatchers("/v3/api-docs/**", "/swagger-ui.html", "/swagger-ui/").permitAll()
                         .requestMatchers(HttpMethod.POST,"/catalogue-api/products")
                         .hasAuthority("SCOPE_edit_catalogue")
+                        .requestMatchers(HttpMethod.POST,"/catalogue-api/products/batch")
+                        .hasAuthority("SCOPE_edit_catalogue")
+                        .requestMatchers(HttpMethod.POST,"/catalogue-api/products/import")
+                        .hasAuthority("SCOPE_edit_catalogue")
                         .requestMatchers(HttpMethod.PATCH,"/catalogue-api/products/{productId:\\d}")
                         .hasAuthority("SCOPE_edit_catalogue")
                         .requestMatchers(HttpMethod.DELETE,"/catalogue-api/products/{productId:\\d}")
                         .hasAuthority("SCOPE_edit_catalogue")
+                        .requestMatchers(HttpMethod.PUT,"/catalogue-api/products/{productId:\\d+}/image")
+                        .hasAuthority("SCOPE_edit_catalogue")
+                        .requestMatchers(HttpMethod.POST,"/catalogue-api/products/by-ids")
+                        .hasAuthority("SCOPE_view_catalogue")
                         .requestMatchers(HttpMethod.GET)
                         .hasAuthority("SCOPE_view_catalogue")
                         .anyRequest().denyAll())
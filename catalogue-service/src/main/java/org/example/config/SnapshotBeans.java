@@ -0,0 +1,37 @@
+package org.example.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.repository.ProductChangeRepository;
+import org.example.repository.ProductRepository;
+import org.example.service.snapshot.ProductSnapshot;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class SnapshotBeans {
+
+    @Bean
+    public ProductSnapshot productSnapshot(
+            ProductRepository productRepository,
+            ProductChangeRepository productChangeRepository,
+            MeterRegistry meterRegistry,
+            @Value("${catalogue.products.snapshot.enabled:false}") boolean enabled,
+            @Value("${catalogue.products.snapshot.initial-capacity:16777216}") int initialCapacity,
+            @Value("${catalogue.products.snapshot.poll-interval:PT1S}") Duration pollInterval
+    ) {
+        ProductSnapshot snapshot = new ProductSnapshot(productRepository, productChangeRepository, enabled,
+                initialCapacity, pollInterval);
+        Gauge.builder("catalogue.products.snapshot.memory", snapshot, ProductSnapshot::memoryBytes)
+                .description("Off-heap memory reserved by the product snapshot arena")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("catalogue.products.snapshot.size", snapshot, ProductSnapshot::size)
+                .description("Number of products in the snapshot")
+                .register(meterRegistry);
+        return snapshot;
+    }
+}
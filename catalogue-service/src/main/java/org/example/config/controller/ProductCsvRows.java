@@ -0,0 +1,186 @@
+package org.example.config.controller;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.example.config.controller.payload.NewProductPayload;
+import org.example.config.controller.payload.RejectedProductRow;
+import org.example.entity.Product;
+import org.springframework.context.MessageSource;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+/*
+ Ледачий розбір CSV (RFC 4180) з колонками title,details: рядки читаються з тіла запиту по мірі того,
+ як їх забирає COPY, тому пам'ять не залежить від розміру файлу.
+ Рядки перевіряються тими ж правилами, що й NewProductPayload; відхилені передаються в rejected і пропускаються
+*/
+final class ProductCsvRows implements Iterator<Product> {
+
+    // довші значення все одно не пройдуть перевірку розміру, тож далі поле не накопичується
+    private static final int MAX_FIELD_LENGTH = 1001;
+
+    private static final List<String> HEADER = List.of("title", "details");
+
+    private final Reader reader;
+
+    private final Validator validator;
+
+    private final MessageSource messageSource;
+
+    private final Locale locale;
+
+    private Consumer<RejectedProductRow> rejected = row -> {
+    };
+
+    private long line = 1;
+
+    private long recordLine;
+
+    private int rejectedCount;
+
+    private Product next;
+
+    private boolean finished;
+
+    ProductCsvRows(Reader reader, Validator validator, MessageSource messageSource, Locale locale) {
+        this.reader = reader;
+        this.validator = validator;
+        this.messageSource = messageSource;
+        this.locale = locale;
+    }
+
+    ProductCsvRows onRejected(Consumer<RejectedProductRow> rejected) {
+        this.rejected = rejected;
+        return this;
+    }
+
+    void readHeader() {
+        List<String> header = this.readRecord();
+        if (header == null || !HEADER.equals(header.stream()
+                .map(field -> field == null ? "" : field.replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT))
+                .toList())) {
+            throw new IllegalArgumentException("catalogue.products.import.errors.header_is_invalid");
+        }
+    }
+
+    int rejected() {
+        return this.rejectedCount;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (this.next == null && !this.finished) {
+            List<String> record = this.readRecord();
+            if (record == null) {
+                this.finished = true;
+            } else if (record.size() != HEADER.size()) {
+                this.reject(List.of(this.messageSource.getMessage("catalogue.products.import.errors.row_is_invalid",
+                        new Object[0], "catalogue.products.import.errors.row_is_invalid", this.locale)));
+            } else {
+                NewProductPayload payload = new NewProductPayload(record.get(0), record.get(1));
+                List<String> errors = this.validator.validate(payload).stream()
+                        .map(ConstraintViolation::getMessage)
+                        .toList();
+                if (errors.isEmpty()) {
+                    this.next = new Product(null, payload.title(), payload.details());
+                } else {
+                    this.reject(errors);
+                }
+            }
+        }
+        return this.next != null;
+    }
+
+    @Override
+    public Product next() {
+        if (!this.hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Product product = this.next;
+        this.next = null;
+        return product;
+    }
+
+    private void reject(List<String> errors) {
+        this.rejectedCount++;
+        this.rejected.accept(new RejectedProductRow(this.recordLine, errors));
+    }
+
+    /*
+     null - кінець файлу. Порожнє поле стає null, як і відсутнє поле в JSON.
+     Порожні рядки між записами пропускаються, \r поза лапками ігнорується
+    */
+    private List<String> readRecord() {
+        try {
+            int c = this.reader.read();
+            while (c == '\r' || c == '\n') {
+                if (c == '\n') {
+                    this.line++;
+                }
+                c = this.reader.read();
+            }
+            if (c == -1) {
+                return null;
+            }
+
+            this.recordLine = this.line;
+            List<String> fields = new ArrayList<>(HEADER.size());
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            boolean inQuotes = false;
+            while (true) {
+                if (inQuotes) {
+                    if (c == '"') {
+                        c = this.reader.read();
+                        if (c != '"') {
+                            // закриваюча лапка, символ після неї розбирається як звичайний
+                            inQuotes = false;
+                            continue;
+                        }
+                        append(field, '"');
+                    } else if (c == -1) {
+                        fields.add(field.toString());
+                        return fields;
+                    } else {
+                        if (c == '\n') {
+                            this.line++;
+                        }
+                        append(field, (char) c);
+                    }
+                } else if (c == ',' || c == '\n' || c == -1) {
+                    fields.add(quoted || !field.isEmpty() ? field.toString() : null);
+                    if (c != ',') {
+                        if (c == '\n') {
+                            this.line++;
+                        }
+                        return fields;
+                    }
+                    field.setLength(0);
+                    quoted = false;
+                } else if (c == '"' && field.isEmpty() && !quoted) {
+                    quoted = true;
+                    inQuotes = true;
+                } else if (c != '\r') {
+                    append(field, (char) c);
+                }
+                c = this.reader.read();
+            }
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    private static void append(StringBuilder field, char c) {
+        if (field.length() < MAX_FIELD_LENGTH) {
+            field.append(c);
+        }
+    }
+}
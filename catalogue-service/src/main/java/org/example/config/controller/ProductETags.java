@@ -0,0 +1,102 @@
+package org.example.config.controller;
+
+import org.example.entity.Product;
+import org.example.service.ProductVersionsDigest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.List;
+
+/*
+ ETag рахуються з версій товарів, тому для перевірки If-None-Match не потрібно серіалізувати тіло відповіді.
+ ETag слабкі: Tomcat не стискає відповіді з сильним ETag, а стиснене й нестиснене тіло однакові за змістом.
+ JSON та Smile - різні представлення, тому ETag Smile має власний суфікс.
+ If-Match порівнює лише версію товару, тож приймає ETag будь-якого з цих представлень
+*/
+final class ProductETags {
+
+    static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
+    private static final String SMILE_SUFFIX = "+smile";
+
+    private ProductETags() {
+    }
+
+    static String of(Product product, String accept) {
+        return of(product.getVersion(), accept);
+    }
+
+    static String of(int version, String accept) {
+        return tag(String.valueOf(version), accept);
+    }
+
+    /*
+     Версія з If-Match або null, якщо заголовка немає чи він дорівнює "*".
+     Порівняння слабке: W/ і суфікс Smile відкидаються, хоча RFC 9110 вимагає для If-Match сильного.
+     Інших ETag сервіс не видає, а версія однозначно визначає стан товару.
+     Невідомі ETag ніколи не збігаються
+    */
+    static Integer parseVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String eTag = ifMatch.trim();
+        if (eTag.startsWith("W/")) {
+            eTag = eTag.substring(2);
+        }
+        if (eTag.length() > 2 && eTag.startsWith("\"") && eTag.endsWith("\"")) {
+            String value = eTag.substring(1, eTag.length() - 1);
+            if (value.endsWith(SMILE_SUFFIX)) {
+                value = value.substring(0, value.length() - SMILE_SUFFIX.length());
+            }
+            try {
+                return Integer.parseInt(value);
+            } catch (NumberFormatException ignored) {
+            }
+        }
+        throw new OptimisticLockingFailureException("catalogue.errors.product.version_mismatch");
+    }
+
+    static String of(Iterable<Product> products, String accept) {
+        ProductVersionsDigest digest = new ProductVersionsDigest();
+        for (Product product : products) {
+            digest.add(product.getId(), product.getVersion());
+        }
+        return of(digest.size(), digest.hex(), accept);
+    }
+
+    // для списку, дайджест якого вже порахований тим самим способом (знімок каталогу)
+    static String of(int size, String digest, String accept) {
+        return tag(size + "-" + digest, accept);
+    }
+
+    /*
+     Smile віддається, лише коли клієнт ставить його вище за JSON, як і при виборі конвертера
+    */
+    static boolean prefersSmile(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return false;
+        }
+        try {
+            List<MediaType> mediaTypes = MediaType.parseMediaTypes(accept);
+            MimeTypeUtils.sortBySpecificity(mediaTypes);
+            for (MediaType mediaType : mediaTypes) {
+                if (SMILE.includes(mediaType)) {
+                    return true;
+                }
+                if (mediaType.includes(MediaType.APPLICATION_JSON)) {
+                    return false;
+                }
+            }
+            return false;
+        } catch (InvalidMediaTypeException exception) {
+            return false;
+        }
+    }
+
+    private static String tag(String value, String accept) {
+        return "W/\"" + value + (prefersSmile(accept) ? SMILE_SUFFIX : "") + "\"";
+    }
+}
@@ -0,0 +1,174 @@
+package org.example.config.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.example.entity.ProductImage;
+import org.example.service.ProductImageService;
+import org.springframework.context.MessageSource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/*
+ Зображення віддаються з файлу без копіювання в купу: через sendfile Tomcat, якщо конектор його підтримує,
+ інакше через FileChannel.transferTo. ETag - SHA-256 вмісту, тому він сильний і для діапазонів
+*/
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("catalogue-api/products/{productId:\\d+}/image")
+public class ProductImageRestController {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final ProductImageService productImageService;
+
+    private final MessageSource messageSource;
+
+    // тіло потоком іде на диск, без multipart і без буферизації в пам'яті
+    @PutMapping(consumes = {MediaType.IMAGE_PNG_VALUE, MediaType.IMAGE_JPEG_VALUE})
+    public ResponseEntity<Void> saveImage(@PathVariable("productId") int productId,
+                                          HttpServletRequest request) throws IOException {
+        MediaType contentType = MediaType.parseMediaType(request.getContentType());
+        ProductImage image = this.productImageService.saveImage(productId,
+                contentType.getType() + "/" + contentType.getSubtype(), request.getInputStream());
+        return ResponseEntity.noContent()
+                .eTag(image.hash())
+                .build();
+    }
+
+    @GetMapping
+    public void findImage(@PathVariable("productId") int productId, ServletWebRequest webRequest)
+            throws IOException {
+        this.sendImage(productId, ProductImage.Variant.ORIGINAL, webRequest);
+    }
+
+    @GetMapping("thumbnail")
+    public void findThumbnail(@PathVariable("productId") int productId, ServletWebRequest webRequest)
+            throws IOException {
+        this.sendImage(productId, ProductImage.Variant.THUMBNAIL, webRequest);
+    }
+
+    private void sendImage(int productId, ProductImage.Variant variant, ServletWebRequest webRequest)
+            throws IOException {
+        ProductImage image = this.productImageService.findImage(productId, variant)
+                .orElseThrow(() -> new NoSuchElementException("catalogue.products.images.errors.image_not_found"));
+        HttpServletRequest request = webRequest.getRequest();
+        HttpServletResponse response = Objects.requireNonNull(webRequest.getResponse());
+        String eTag = "\"" + image.hash() + "\"";
+        if (webRequest.checkNotModified(eTag)) {
+            return;
+        }
+        // запис у базі є, а файлу на диску цього вузла немає - images.root не на спільному томі
+        Path file = this.productImageService.imageFile(image);
+        if (!Files.isRegularFile(file)) {
+            throw new NoSuchElementException("catalogue.products.images.errors.image_not_found");
+        }
+
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setContentType(image.contentType());
+        long start = 0;
+        long length = image.size();
+        HttpRange range = range(request, eTag);
+        if (range != null) {
+            start = range.getRangeStart(image.size());
+            long end = range.getRangeEnd(image.size());
+            if (start >= image.size() || start > end) {
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + image.size());
+                return;
+            }
+            length = end - start + 1;
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + image.size());
+        }
+        this.write(file, start, length, request, response);
+    }
+
+    /*
+     Підтримується один діапазон; кілька діапазонів, невалідний заголовок
+     або If-Range з іншим ETag - відповідь цілим файлом, як дозволяє RFC 9110
+    */
+    private static HttpRange range(HttpServletRequest request, String eTag) {
+        String header = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (header == null || (ifRange != null && !ifRange.equals(eTag))) {
+            return null;
+        }
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(header);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException exception) {
+            return null;
+        }
+    }
+
+    private void write(Path file, long start, long length, HttpServletRequest request,
+                       HttpServletResponse response) throws IOException {
+        response.setContentLengthLong(length);
+        if (length == 0 || HttpMethod.HEAD.matches(request.getMethod())) {
+            return;
+        }
+        // Tomcat сам відправить файл після виходу з обробника
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toRealPath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + length);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long end = start + length;
+            while (position < end) {
+                long transferred = channel.transferTo(position, end - position, out);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+            }
+        }
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<ProblemDetail> handleIllegalArgumentException(IllegalArgumentException exception,
+                                                                        Locale locale) {
+        return ResponseEntity.badRequest()
+                .body(ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST,
+                        Objects.requireNonNull(this.messageSource.getMessage(exception.getMessage(), new Object[0],
+                                exception.getMessage(), locale))));
+    }
+
+    @ExceptionHandler(NoSuchElementException.class)
+    public ResponseEntity<ProblemDetail> handleNoSuchElementException(NoSuchElementException exception,
+                                                                      Locale locale) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(ProblemDetail.forStatusAndDetail(HttpStatus.NOT_FOUND,
+                        Objects.requireNonNull(this.messageSource.getMessage(exception.getMessage(), new Object[0],
+                                exception.getMessage(), locale))));
+    }
+}
@@ -0,0 +1,188 @@
+package org.example.config.controller;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.example.service.cache.ProductListResponseCache;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/*
+ Відповідає на GET /catalogue-api/products?filter=... готовими байтами з ProductListResponseCache,
+ не доходячи до репозиторію, Hibernate і Jackson. При промаху запит іде в контролер як звичайно,
+ а тіло відповіді запам'ятовується разом зі стисненим варіантом.
+ Реєструється після фільтрів Spring Security, тож перевірка доступу не обходиться
+*/
+@RequiredArgsConstructor
+public class ProductListResponseCacheFilter extends OncePerRequestFilter {
+
+    static final String PATH = "/catalogue-api/products";
+
+    private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
+    private final ProductListResponseCache responseCache;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!"GET".equals(request.getMethod()) || !PATH.equals(request.getRequestURI())) {
+            return true;
+        }
+        // інші параметри ведуть в інші обробники (сторінки, ids, fields, stream)
+        for (String name : request.getParameterMap().keySet()) {
+            if (!name.equals("filter")) {
+                return true;
+            }
+        }
+        return format(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        String filter = request.getParameter("filter");
+        MediaType format = format(request);
+        ProductListResponseCache.Entry entry = this.responseCache.get(filter, format.toString());
+        if (entry != null) {
+            write(request, response, entry);
+            return;
+        }
+
+        long generation = this.responseCache.generation();
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        chain.doFilter(request, wrapper);
+        if (wrapper.getStatus() == HttpStatus.OK.value() && wrapper.getContentType() != null
+                && format.isCompatibleWith(MediaType.parseMediaType(wrapper.getContentType()))) {
+            byte[] body = wrapper.getContentAsByteArray();
+            this.responseCache.put(generation, filter, format.toString(), new ProductListResponseCache.Entry(
+                    wrapper.getContentType(), wrapper.getHeader(HttpHeaders.ETAG), body, gzip(body)));
+        }
+        wrapper.copyBodyToResponse();
+    }
+
+    /*
+     Формат, який обрав би контролер: Smile, якщо клієнт віддає йому перевагу, інакше JSON.
+     null - запит на інший формат (наприклад, NDJSON), такі відповіді не кешуються
+    */
+    private static MediaType format(HttpServletRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        if (accept == null || accept.isBlank()) {
+            return MediaType.APPLICATION_JSON;
+        }
+        try {
+            List<MediaType> mediaTypes = MediaType.parseMediaTypes(accept);
+            MimeTypeUtils.sortBySpecificity(mediaTypes);
+            for (MediaType mediaType : mediaTypes) {
+                if (mediaType.isCompatibleWith(MediaType.APPLICATION_NDJSON)) {
+                    return mediaType.isWildcardType() || mediaType.isWildcardSubtype() ? MediaType.APPLICATION_JSON
+                            : null;
+                }
+                if (SMILE.includes(mediaType)) {
+                    return SMILE;
+                }
+                if (mediaType.includes(MediaType.APPLICATION_JSON)) {
+                    return MediaType.APPLICATION_JSON;
+                }
+            }
+            return null;
+        } catch (InvalidMediaTypeException exception) {
+            return null;
+        }
+    }
+
+    private static void write(HttpServletRequest request, HttpServletResponse response,
+                              ProductListResponseCache.Entry entry) throws IOException {
+        if (entry.eTag() != null) {
+            response.setHeader(HttpHeaders.ETAG, entry.eTag());
+            if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), entry.eTag())) {
+                response.setStatus(HttpStatus.NOT_MODIFIED.value());
+                return;
+            }
+        }
+        response.setContentType(entry.contentType());
+        byte[] body = entry.body();
+        if (acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING))) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            // байти стисненого тіла інші, тож сильний ETag тут не годиться
+            if (entry.eTag() != null && !entry.eTag().startsWith("W/")) {
+                response.setHeader(HttpHeaders.ETAG, "W/" + entry.eTag());
+            }
+            body = entry.gzippedBody();
+        }
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    /*
+     gzip з q=0 заборонений; без явного gzip рішення за "*"
+    */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Boolean wildcard = null;
+        for (String element : acceptEncoding.split(",")) {
+            String[] parts = element.split(";");
+            String coding = parts[0].trim();
+            boolean accepted = quality(parts) > 0;
+            if (coding.equalsIgnoreCase("gzip") || coding.equalsIgnoreCase("x-gzip")) {
+                return accepted;
+            }
+            if (coding.equals("*")) {
+                wildcard = accepted;
+            }
+        }
+        return Boolean.TRUE.equals(wildcard);
+    }
+
+    // некоректне значення q вважається нулем
+    private static double quality(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim();
+            if (parameter.startsWith("q=") || parameter.startsWith("Q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2).trim());
+                } catch (NumberFormatException exception) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    // слабке порівняння, як у Spring MVC для GET
+    private static boolean matches(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String tag = eTag.startsWith("W/") ? eTag.substring(2) : eTag;
+        for (String candidate : ifNoneMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if (trimmed.equals("*") || (trimmed.startsWith("W/") ? trimmed.substring(2) : trimmed).equals(tag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        }
+        return out.toByteArray();
+    }
+}
@@ -1,6 +1,8 @@
 package org.example.config.controller;
 
 
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.example.config.controller.payload.UpdateProductPayload;
@@ -8,14 +10,19 @@ import org.example.entity.Product;
 import org.example.service.ProductService;
 import org.springframework.beans.factory.BeanFactory;
 import org.springframework.context.MessageSource;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ProblemDetail;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindException;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Stream;
 
 @RestController
@@ -25,20 +32,43 @@ public class ProductRestController {
 
     private final ProductService productService;
     private final MessageSource messageSource;
-    
-    @ModelAttribute("product")
-    public Product getProduct(@PathVariable("productId") int productId) {
-        return this.productService.findProduct(productId)
-                .orElseThrow(() -> new NoSuchElementException("catalogue.errors.product.not_found"));
-    }
 
+    /*
+     Тіло 404 без instance для кожного перекладу рендериться один раз, а шлях запиту дописується в кінець.
+     Ключ - сам текст, а не Locale з запиту:
+     локалей клієнт може надіслати скільки завгодно, перекладів стільки, скільки в messages
+    */
+    private final Map<String, byte[]> notFoundBodies = new ConcurrentHashMap<>();
+    
+    /*
+     На збіг з If-None-Match Spring відповідає 304 без тіла.
+     Відсутній товар - частий випадок (застарілі посилання, перебір id), тому 404 віддається без винятку
+    */
     @GetMapping
-    public Product findProduct(@ModelAttribute("product") Product product) {
-        return product;
+    public ResponseEntity<?> findProduct(@PathVariable("productId") int productId,
+                                         @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                         HttpServletRequest request, Locale locale) {
+        Optional<Product> product = this.productService.findProduct(productId);
+        if (product.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .contentType(MediaType.APPLICATION_PROBLEM_JSON)
+                    .body(withInstance(this.notFoundBodies.computeIfAbsent(this.messageSource.getMessage(
+                            "catalogue.errors.product.not_found", new Object[0],
+                            "catalogue.errors.product.not_found", locale), ProductRestController::renderNotFound),
+                            request.getRequestURI()));
+        }
+        return ResponseEntity.ok()
+                .eTag(ProductETags.of(product.get(), accept))
+                .body(product.get());
     }
 
+    /*
+     Зміна та видалення не читають товар заздалегідь: умовний запит сам вирішує між 404 та 412
+    */
     @PatchMapping
     public ResponseEntity<?> updateProduct(@PathVariable("productId") int productId,
+                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                           @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
                                            @Valid @RequestBody UpdateProductPayload payload,
                                            BindingResult bindingResult) throws BindException {
         if (bindingResult.hasErrors()) {
@@ -48,19 +78,46 @@ public class ProductRestController {
                 throw new BindException(bindingResult);
             }
         } else {
-            this.productService.updateProduct(productId, payload.title(), payload.details());
+            int version = this.productService.updateProduct(productId, ProductETags.parseVersion(ifMatch),
+                    payload.title(), payload.details());
             return ResponseEntity.noContent()
+                    .eTag(ProductETags.of(version, accept))
                     .build();
         }
     }
 
     @DeleteMapping
-    public ResponseEntity<Void> deleteProduct(@PathVariable("productId") int productId) {
-        this.productService.deleteProduct(productId);
+    public ResponseEntity<Void> deleteProduct(@PathVariable("productId") int productId,
+                                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        this.productService.deleteProduct(productId, ProductETags.parseVersion(ifMatch));
         return ResponseEntity.noContent()
                 .build();
     }
 
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ProblemDetail> handleOptimisticLockingFailureException(
+            OptimisticLockingFailureException exception, Locale locale) {
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                .body(ProblemDetail.forStatusAndDetail(HttpStatus.PRECONDITION_FAILED,
+                        Objects.requireNonNull(this.messageSource.getMessage(exception.getMessage(), new Object[0],
+                                exception.getMessage(), locale))));
+    }
+
+    private static byte[] renderNotFound(String detail) {
+        return ("{\"type\":\"about:blank\",\"title\":\"Not Found\",\"status\":404,\"detail\":\""
+                + new String(JsonStringEncoder.getInstance().quoteAsString(detail)) + "\"")
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    // instance - шлях запиту, як його додає Spring до повернутого ProblemDetail
+    private static byte[] withInstance(byte[] body, String path) {
+        byte[] instance = (",\"instance\":\"" + new String(JsonStringEncoder.getInstance().quoteAsString(path)) + "\"}")
+                .getBytes(StandardCharsets.UTF_8);
+        byte[] result = Arrays.copyOf(body, body.length + instance.length);
+        System.arraycopy(instance, 0, result, body.length, instance.length);
+        return result;
+    }
+
     @ExceptionHandler(NoSuchElementException.class)
     public ResponseEntity<ProblemDetail> handleNoSuchElementException(NoSuchElementException exception,
                                                                       Locale locale) {
@@ -1,29 +1,297 @@
 package org.example.config.controller;
 
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.example.config.controller.payload.NewProductPayload;
+import org.example.config.controller.payload.NewProductsPayload;
+import org.example.config.controller.payload.ProductChangesPage;
+import org.example.config.controller.payload.ProductsImportReport;
+import org.example.config.controller.payload.ProductsPage;
 import org.example.entity.Product;
+import org.example.entity.ProductChange;
 import org.example.service.ProductService;
+import org.example.service.ProductsCursor;
+import org.example.service.ProductsSort;
+import org.example.service.events.ProductEventsHub;
+import org.example.service.search.ProductSuggestion;
+import org.example.service.snapshot.ProductSnapshot;
+import org.springframework.context.MessageSource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ProblemDetail;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 import org.springframework.validation.BindException;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
+@Slf4j
 @RestController
 @RequiredArgsConstructor
 @RequestMapping("catalogue-api/products")
 public class ProductsRestController {
 
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private static final int MAX_SUGGESTIONS = 50;
+
+    private static final int MAX_IDS = 10_000;
+
+    private static final Set<String> PRODUCT_FIELDS = Set.of("id", "title", "details");
+
     private final ProductService productService;
 
+    private final MessageSource messageSource;
+
+    private final ObjectMapper objectMapper;
+
+    private final ProductEventsHub productEventsHub;
+
+    private final ProductSnapshot productSnapshot;
+
+    private final Validator validator;
+
+    private final MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter;
+
+    /*
+     Увесь каталог без фільтра. Коли знімок готовий і клієнт обирає JSON, масив пишеться у відповідь
+     просто з байтів знімка, без Jackson; інакше товари читає сервіс і пише той формат, який обрав би конвертер
+    */
+    @GetMapping(params = {"!filter", "!fields", "!limit", "!ids", "!stream"},
+            produces = {MediaType.APPLICATION_JSON_VALUE, "application/x-jackson-smile"})
+    public void findAllProducts(ServletWebRequest webRequest, HttpServletResponse response) throws IOException {
+        String accept = webRequest.getHeader(HttpHeaders.ACCEPT);
+        boolean smile = ProductETags.prefersSmile(accept);
+        if (!smile && this.productSnapshot.isReady()) {
+            ProductSnapshot.Versions versions = this.productSnapshot.versions();
+            if (!webRequest.checkNotModified(ProductETags.of(versions.size(), versions.digest(), null))) {
+                response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+                this.productSnapshot.writeJsonArray(response.getOutputStream());
+            }
+            return;
+        }
+
+        List<Product> products = this.loadProducts(null);
+        if (!webRequest.checkNotModified(ProductETags.of(products, accept))) {
+            response.setContentType(smile ? ProductETags.SMILE.toString() : MediaType.APPLICATION_JSON_VALUE);
+            ObjectMapper mapper = smile ? this.smileHttpMessageConverter.getObjectMapper() : this.objectMapper;
+            mapper.writerFor(new TypeReference<List<Product>>() {
+            }).writeValue(response.getOutputStream(), products);
+        }
+    }
+
     @GetMapping
-    public Iterable<Product> findProducts(@RequestParam(value = "filter", required = false) String filter){
-        return this.productService.findAllProducts(filter);
+    public ResponseEntity<List<Product>> findProducts(@RequestParam(value = "filter", required = false) String filter,
+                                                      @RequestHeader(value = HttpHeaders.ACCEPT, required = false)
+                                                      String accept) {
+        return this.productsResponse(filter, accept);
+    }
+
+    @GetMapping(params = {"fields", "!ids", "!limit", "!stream"})
+    public ResponseEntity<? extends List<?>> findProducts(
+            @RequestParam(value = "filter", required = false) String filter,
+            @RequestParam("fields") Set<String> fields,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        if (includesDetails(fields)) {
+            return this.productsResponse(filter, accept);
+        }
+        return ResponseEntity.ok(this.productService.findAllProductSummaries(filter));
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void streamProducts(@RequestParam(value = "filter", required = false) String filter,
+                               HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        writeProducts(filter, response, this.productWriter().withRootValueSeparator("\n"), false);
+    }
+
+    @GetMapping(params = "stream=true")
+    public void streamProductsArray(@RequestParam(value = "filter", required = false) String filter,
+                                    HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        writeProducts(filter, response, this.productWriter(), true);
+    }
+
+    @GetMapping("export.csv")
+    public void exportProducts(@RequestParam(value = "filter", required = false) String filter,
+                               HttpServletResponse response) throws IOException {
+        response.setContentType("text/csv");
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename("products.csv")
+                .build()
+                .toString());
+        this.productService.exportProducts(filter, response.getOutputStream());
+    }
+
+    @GetMapping(params = {"limit", "!ids"})
+    public ProductsPage findProductsPage(@RequestParam(value = "filter", required = false) String filter,
+                                         @RequestParam(value = "sort", defaultValue = "id") String sort,
+                                         @RequestParam(value = "after", required = false) String after,
+                                         @RequestParam("limit") int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("catalogue.products.errors.limit_is_invalid");
+        }
+
+        ProductsSort productsSort = ProductsSort.of(sort);
+        ProductsCursor cursor = after == null || after.isBlank()
+                ? ProductsCursor.first(productsSort)
+                : ProductsCursor.decode(productsSort, after);
+
+        // на один запис більше, щоб дізнатися, чи є наступна сторінка
+        List<Product> products = this.productService.findProductsPage(filter, cursor, limit + 1);
+        if (products.size() > limit) {
+            products = products.subList(0, limit);
+            return new ProductsPage(products,
+                    ProductsCursor.after(productsSort, products.get(limit - 1)).encode());
+        }
+        return new ProductsPage(products, null);
+    }
+
+    @GetMapping(params = {"ids", "!limit"})
+    public List<Product> findProductsByIds(@RequestParam("ids") List<Integer> ids) {
+        return this.findProductsByIdsList(ids);
+    }
+
+    @GetMapping(params = {"ids", "fields", "!limit"})
+    public List<?> findProductsByIds(@RequestParam("ids") List<Integer> ids,
+                                     @RequestParam("fields") Set<String> fields) {
+        return this.findProductsByIdsList(ids, fields);
+    }
+
+    // інакше запит підходив би і під сторінку, і під набір id
+    @GetMapping(params = {"ids", "limit"})
+    public List<Product> findProductsByIdsPage() {
+        throw new IllegalArgumentException("catalogue.products.errors.ids_with_limit");
+    }
+
+    // для наборів id, які не вміщаються в URL
+    @PostMapping("by-ids")
+    public List<Product> findProductsByIdsList(@RequestBody List<Integer> ids) {
+        if (ids.size() > MAX_IDS) {
+            throw new IllegalArgumentException("catalogue.products.errors.ids_size_is_invalid");
+        }
+        return ids.isEmpty() ? List.of() : this.productService.findProductsByIds(ids);
+    }
+
+    @PostMapping(path = "by-ids", params = "fields")
+    public List<?> findProductsByIdsList(@RequestBody List<Integer> ids,
+                                         @RequestParam("fields") Set<String> fields) {
+        if (includesDetails(fields)) {
+            return this.findProductsByIdsList(ids);
+        }
+        if (ids.size() > MAX_IDS) {
+            throw new IllegalArgumentException("catalogue.products.errors.ids_size_is_invalid");
+        }
+        return ids.isEmpty() ? List.of() : this.productService.findProductSummariesByIds(ids);
+    }
+
+    /*
+     Без details віддається ProductSummary, і c_details взагалі не читається з бази
+    */
+    private static boolean includesDetails(Set<String> fields) {
+        if (!PRODUCT_FIELDS.containsAll(fields)) {
+            throw new IllegalArgumentException("catalogue.products.errors.fields_are_invalid");
+        }
+        return fields.contains("details");
+    }
+
+    @GetMapping("changes")
+    public ProductChangesPage findChanges(@RequestParam(value = "since", defaultValue = "0") long since,
+                                          @RequestParam(value = "limit", defaultValue = "1000") int limit) {
+        if (since < 0) {
+            throw new IllegalArgumentException("catalogue.products.errors.change_token_is_invalid");
+        }
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("catalogue.products.errors.limit_is_invalid");
+        }
+
+        List<ProductChange> changes = this.productService.findChanges(since, limit);
+        return new ProductChangesPage(changes, changes.isEmpty() ? since : changes.get(changes.size() - 1).token());
+    }
+
+    @GetMapping(path = "events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeToChanges(@RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        if (lastEventId != null && lastEventId < 0) {
+            throw new IllegalArgumentException("catalogue.products.errors.change_token_is_invalid");
+        }
+        return this.productEventsHub.subscribe(lastEventId);
+    }
+
+    @GetMapping("suggest")
+    public List<ProductSuggestion> suggestProducts(@RequestParam("prefix") String prefix,
+                                                   @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        if (limit < 1 || limit > MAX_SUGGESTIONS) {
+            throw new IllegalArgumentException("catalogue.products.errors.suggest_limit_is_invalid");
+        }
+        return prefix.isBlank() ? List.of() : this.productService.suggestProducts(prefix, limit);
+    }
+
+    private ResponseEntity<List<Product>> productsResponse(String filter, String accept) {
+        List<Product> products = this.loadProducts(filter);
+        return ResponseEntity.ok()
+                .eTag(ProductETags.of(products, accept))
+                .body(products);
+    }
+
+    private List<Product> loadProducts(String filter) {
+        List<Product> products = new ArrayList<>();
+        this.productService.findAllProducts(filter).forEach(products::add);
+        return products;
+    }
+
+    /*
+     Товари пишуться у відповідь по одному, поки сервіс читає їх курсором,
+     тому пам'ять не залежить від розміру каталогу
+    */
+    private void writeProducts(String filter, HttpServletResponse response, ObjectWriter writer,
+                               boolean array) throws IOException {
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        try (SequenceWriter sequenceWriter = array
+                ? writer.writeValuesAsArray(response.getOutputStream())
+                : writer.writeValues(response.getOutputStream())) {
+            this.productService.streamProducts(filter, product -> {
+                try {
+                    sequenceWriter.write(product);
+                } catch (IOException exception) {
+                    throw new UncheckedIOException(exception);
+                }
+            });
+        }
+    }
+
+    private ObjectWriter productWriter() {
+        // без flush після кожного запису, буферизацію лишаємо контейнеру
+        return this.objectMapper.writerFor(Product.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
     }
 
     @PostMapping
@@ -47,4 +315,77 @@ public class ProductsRestController {
                     .body(product);
         }
     }
+
+    @PostMapping("batch")
+    public ResponseEntity<List<Integer>> createProducts(@RequestBody @Valid NewProductsPayload payload,
+                                                        BindingResult bindingResult) throws BindException {
+        if (bindingResult.hasErrors()) {
+            if (bindingResult instanceof BindException exception) {
+                throw exception;
+            } else {
+                throw new BindException(bindingResult);
+            }
+        } else {
+            List<Product> products = this.productService.createProducts(payload.products().stream()
+                    .map(product -> new Product(null, product.title(), product.details()))
+                    .toList());
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .body(products.stream().map(Product::getId).toList());
+        }
+    }
+
+    /*
+     Відповідь - NDJSON звіт: відхилені рядки пишуться по мірі розбору, останнім йде підсумок.
+     Усі прийняті рядки імпортуються в одній транзакції. Статус 200 вже відправлено разом з першими рядками,
+     тож невдалий імпорт завершує звіт записом ProblemDetail замість підсумку
+    */
+    @PostMapping(path = "import", consumes = "text/csv")
+    public void importProducts(HttpServletRequest request, HttpServletResponse response, Locale locale)
+            throws IOException {
+        Charset charset = request.getCharacterEncoding() == null ? StandardCharsets.UTF_8
+                : Charset.forName(request.getCharacterEncoding());
+        ProductCsvRows rows = new ProductCsvRows(
+                new BufferedReader(new InputStreamReader(request.getInputStream(), charset)),
+                this.validator, this.messageSource, locale);
+        // до початку звіту, щоб на неправильний файл відповісти 400
+        rows.readHeader();
+
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        try (SequenceWriter report = this.objectMapper.writer()
+                .withRootValueSeparator("\n")
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .writeValues(response.getOutputStream())) {
+            int imported;
+            try {
+                imported = this.productService.importProducts(rows.onRejected(rejected -> {
+                    try {
+                        report.write(rejected);
+                    } catch (IOException exception) {
+                        throw new UncheckedIOException(exception);
+                    }
+                }));
+            } catch (UncheckedIOException exception) {
+                // клієнт пішов, писати звіт нікуди
+                throw exception;
+            } catch (RuntimeException exception) {
+                log.error("Products import failed", exception);
+                report.write(ProblemDetail.forStatusAndDetail(HttpStatus.INTERNAL_SERVER_ERROR,
+                        Objects.requireNonNull(this.messageSource.getMessage(
+                                "catalogue.products.import.errors.import_failed", new Object[0],
+                                "catalogue.products.import.errors.import_failed", locale))));
+                return;
+            }
+            report.write(new ProductsImportReport(imported, rows.rejected()));
+        }
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<ProblemDetail> handleIllegalArgumentException(IllegalArgumentException exception,
+                                                                        Locale locale) {
+        return ResponseEntity.badRequest()
+                .body(ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST,
+                        Objects.requireNonNull(this.messageSource.getMessage(exception.getMessage(), new Object[0],
+                                exception.getMessage(), locale))));
+    }
 }
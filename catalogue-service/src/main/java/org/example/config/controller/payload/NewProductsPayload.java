@@ -0,0 +1,14 @@
+package org.example.config.controller.payload;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record NewProductsPayload(
+        @NotEmpty(message = "{catalogue.products.create.errors.batch_is_empty}")
+        @Size(max = 1000, message = "{catalogue.products.create.errors.batch_size_is_invalid}")
+        List<@Valid NewProductPayload> products
+) {
+}
@@ -0,0 +1,9 @@
+package org.example.config.controller.payload;
+
+import org.example.entity.ProductChange;
+
+import java.util.List;
+
+// next - токен, який клієнт передає як since у наступному запиті
+public record ProductChangesPage(List<ProductChange> changes, long next) {
+}
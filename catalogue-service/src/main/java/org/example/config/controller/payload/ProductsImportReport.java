@@ -0,0 +1,4 @@
+package org.example.config.controller.payload;
+
+public record ProductsImportReport(int imported, int rejected) {
+}
@@ -0,0 +1,8 @@
+package org.example.config.controller.payload;
+
+import org.example.entity.Product;
+
+import java.util.List;
+
+public record ProductsPage(List<Product> products, String next) {
+}
@@ -0,0 +1,7 @@
+package org.example.config.controller.payload;
+
+import java.util.List;
+
+// line - номер рядка CSV, з якого починається запис (заголовок - рядок 1)
+public record RejectedProductRow(long line, List<String> errors) {
+}
@@ -1,5 +1,6 @@
 package org.example.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
@@ -14,7 +15,9 @@ import lombok.NoArgsConstructor;
 @Table(schema = "catalogue", name = "t_product")
 public class Product {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_id")
+    @SequenceGenerator(name = "product_id", schema = "catalogue", sequenceName = "t_product_id_seq",
+            allocationSize = 50)
     private Integer id;
 
     @Column(name = "c_title")
@@ -25,4 +28,14 @@ public class Product {
     @Column(name = "c_details")
     @Size(max = 1000)
     private String details;
+
+    // версія віддається клієнтам лише як ETag
+    @Version
+    @JsonIgnore
+    @Column(name = "c_version")
+    private int version;
+
+    public Product(Integer id, String title, String details) {
+        this(id, title, details, 0);
+    }
 }
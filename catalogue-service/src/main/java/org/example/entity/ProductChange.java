@@ -0,0 +1,9 @@
+package org.example.entity;
+
+import org.example.service.ProductChangedEvent;
+
+/*
+ Запис журналу змін: для видаленого товару product == null
+*/
+public record ProductChange(long token, ProductChangedEvent.Type type, int productId, Product product) {
+}
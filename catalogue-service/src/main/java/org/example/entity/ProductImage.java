@@ -0,0 +1,12 @@
+package org.example.entity;
+
+/*
+ Зображення товару. hash - SHA-256 вмісту, за ним файл лежить у ProductImageStorage і з нього ж складається ETag
+*/
+public record ProductImage(int productId, Variant variant, String hash, String contentType, long size) {
+
+    public enum Variant {
+        ORIGINAL,
+        THUMBNAIL
+    }
+}
@@ -0,0 +1,9 @@
+package org.example.entity;
+
+// скорочене представлення товару для списків (fields=id,title), c_details не читається з бази
+public record ProductSummary(Integer id, String title) {
+
+    public static ProductSummary of(Product product) {
+        return new ProductSummary(product.getId(), product.getTitle());
+    }
+}
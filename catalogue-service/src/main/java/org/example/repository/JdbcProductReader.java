@@ -0,0 +1,107 @@
+package org.example.repository;
+
+import org.example.entity.Product;
+import org.example.entity.ProductSummary;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/*
+ Ті самі запити, що й у ProductRepository, але через JdbcClient: без persistence context, знімків для
+ dirty checking і розбору JPQL. Рядки читаються за позицією колонок ручними мапперами.
+ Read-only транзакція потрібна лише для маршрутизації на репліку; вона відкривається через
+ DataSourceTransactionManager, тож Hibernate сесія не створюється
+*/
+public class JdbcProductReader implements ProductReader {
+
+    private static final String PRODUCT_COLUMNS = "id, c_title, c_details, c_version";
+
+    private static final RowMapper<Product> PRODUCT = (resultSet, rowNum) -> new Product(resultSet.getInt(1),
+            resultSet.getString(2), resultSet.getString(3), resultSet.getInt(4));
+
+    private static final RowMapper<ProductSummary> PRODUCT_SUMMARY = (resultSet, rowNum) ->
+            new ProductSummary(resultSet.getInt(1), resultSet.getString(2));
+
+    private final JdbcClient jdbcClient;
+
+    private final TransactionTemplate readOnlyTransaction;
+
+    public JdbcProductReader(JdbcClient jdbcClient, TransactionTemplate readOnlyTransaction) {
+        this.jdbcClient = jdbcClient;
+        this.readOnlyTransaction = readOnlyTransaction;
+    }
+
+    @Override
+    public List<Product> findAll() {
+        return this.read(() -> this.jdbcClient.sql("select " + PRODUCT_COLUMNS + " from catalogue.t_product")
+                .query(PRODUCT)
+                .list());
+    }
+
+    @Override
+    public List<Product> findAllByTitleLikeIgnoreCase(String filter) {
+        return this.read(() -> this.jdbcClient.sql("select " + PRODUCT_COLUMNS
+                        + " from catalogue.t_product where c_title ilike ?")
+                .param(filter)
+                .query(PRODUCT)
+                .list());
+    }
+
+    @Override
+    public Optional<Product> findById(Integer id) {
+        return this.read(() -> this.jdbcClient.sql("select " + PRODUCT_COLUMNS
+                        + " from catalogue.t_product where id = ?")
+                .param(id)
+                .query(PRODUCT)
+                .optional());
+    }
+
+    @Override
+    public List<Product> findAllByIdIn(Integer[] ids) {
+        return this.read(() -> this.jdbcClient.sql("select " + PRODUCT_COLUMNS
+                        + " from catalogue.t_product where id = any(?)")
+                .param(ids)
+                .query(PRODUCT)
+                .list());
+    }
+
+    @Override
+    public List<ProductSummary> findAllSummaries() {
+        return this.read(() -> this.jdbcClient.sql("select id, c_title from catalogue.t_product order by id")
+                .query(PRODUCT_SUMMARY)
+                .list());
+    }
+
+    @Override
+    public List<ProductSummary> findAllSummariesByTitleLikeIgnoreCase(String filter) {
+        return this.read(() -> this.jdbcClient.sql("""
+                        select id, c_title from catalogue.t_product
+                        where c_title ilike ?
+                        order by id""")
+                .param(filter)
+                .query(PRODUCT_SUMMARY)
+                .list());
+    }
+
+    @Override
+    public List<ProductSummary> findAllSummariesByIdIn(Collection<Integer> ids) {
+        return this.read(() -> this.jdbcClient.sql("select id, c_title from catalogue.t_product where id = any(?)")
+                .param(ids.toArray(Integer[]::new))
+                .query(PRODUCT_SUMMARY)
+                .list());
+    }
+
+    // всередині транзакції сервісу JdbcClient бере її з'єднання
+    private <T> T read(Supplier<T> query) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return query.get();
+        }
+        return this.readOnlyTransaction.execute(status -> query.get());
+    }
+}
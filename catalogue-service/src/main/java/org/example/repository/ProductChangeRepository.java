@@ -0,0 +1,86 @@
+package org.example.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.example.entity.Product;
+import org.example.entity.ProductChange;
+import org.example.service.ProductChangedEvent;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class ProductChangeRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /*
+     Токен - це id запису. Записувачі серіалізуються advisory lock до кінця транзакції,
+     тому записи комітяться в порядку id, і читач з since не пропустить запізнілий коміт з меншим id.
+     Ціна - одна транзакція зі змінами товарів одночасно на весь кластер: блокування береться останнім
+     запитом перед комітом і тримається лише на вставку в журнал і сам коміт, тож стеля записів -
+     приблизно одна транзакція за час коміту (кілька тисяч за секунду), а імпорт займає його на час
+     вставки своїх рядків журналу
+    */
+    public void append(List<ProductChangedEvent> events) {
+        this.jdbcTemplate.queryForObject("select pg_advisory_xact_lock(hashtext('catalogue.t_product_change'))",
+                Object.class);
+        this.jdbcTemplate.batchUpdate("""
+                        insert into catalogue.t_product_change (c_product_id, c_type, c_title, c_details, c_version)
+                        values (?, ?, ?, ?, ?)""", events, events.size(),
+                (statement, event) -> {
+                    statement.setInt(1, event.productId());
+                    statement.setString(2, event.type().name());
+                    statement.setString(3, event.product() == null ? null : event.product().getTitle());
+                    statement.setString(4, event.product() == null ? null : event.product().getDetails());
+                    statement.setObject(5, event.product() == null ? null : event.product().getVersion());
+                });
+    }
+
+    public List<ProductChange> findAllAfter(long token, int limit) {
+        return this.jdbcTemplate.query("""
+                        select id, c_product_id, c_type, c_title, c_details, c_version
+                        from catalogue.t_product_change
+                        where id > ?
+                        order by id
+                        limit ?""",
+                (resultSet, rowNum) -> {
+                    ProductChangedEvent.Type type = ProductChangedEvent.Type.valueOf(resultSet.getString("c_type"));
+                    int productId = resultSet.getInt("c_product_id");
+                    return new ProductChange(resultSet.getLong("id"), type, productId,
+                            type == ProductChangedEvent.Type.DELETED ? null
+                                    : new Product(productId, resultSet.getString("c_title"),
+                                    resultSet.getString("c_details"), resultSet.getInt("c_version")));
+                }, token, limit);
+    }
+
+    /*
+     Видаляє записи, старші за before, для товарів, у яких є новіший запис. Останній запис кожного товару,
+     зокрема DELETED, лишається, тож клієнт, що відстав більше ніж на період зберігання, пропускає проміжні
+     версії, але приходить до того самого стану. Кінець журналу не видаляється ніколи
+    */
+    public int compact(Instant before, int limit) {
+        return this.jdbcTemplate.update("""
+                        delete from catalogue.t_product_change
+                        where id in (
+                            select c.id
+                            from catalogue.t_product_change c
+                            where c.c_changed_at < ?
+                              and exists (select 1
+                                          from catalogue.t_product_change later
+                                          where later.c_product_id = c.c_product_id
+                                            and later.id > c.id)
+                            order by c.id
+                            limit ?
+                            for update skip locked)""",
+                Timestamp.from(before), limit);
+    }
+
+    public long lastToken() {
+        return this.jdbcTemplate.queryForObject("select coalesce(max(id), 0) from catalogue.t_product_change",
+                Long.class);
+    }
+}
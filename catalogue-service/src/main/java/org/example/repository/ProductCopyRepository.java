@@ -0,0 +1,183 @@
+package org.example.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.example.entity.Product;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.Objects;
+
+/*
+ Масові операції через протокол COPY драйвера Postgres, в обхід Hibernate.
+ Методи мають викликатися всередині транзакції: COPY, JdbcTemplate і JPA працюють на одному з'єднанні
+*/
+@Repository
+@RequiredArgsConstructor
+public class ProductCopyRepository {
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private static final String IMPORT_COPY = "copy t_product_import (c_row, c_title, c_details) from stdin (format csv)";
+
+    private static final String EXPORT_COPY = """
+            copy (select id, c_title as title, c_details as details
+                  from catalogue.t_product
+                  order by id)
+            to stdout (format csv, header)""";
+
+    /*
+     COPY не приймає параметрів, тому фільтр передається через змінну сесії до кінця транзакції,
+     а не вставляється в текст запиту
+    */
+    private static final String FILTERED_EXPORT_COPY = """
+            copy (select id, c_title as title, c_details as details
+                  from catalogue.t_product
+                  where c_title ilike current_setting('catalogue.export_filter')
+                  order by id)
+            to stdout (format csv, header)""";
+
+    private final DataSource dataSource;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /*
+     Товари потоком йдуть у тимчасову таблицю, а звідти одним запитом у t_product.
+     id видаються блоками по 50 з послідовності, як це робить pooled-lo оптимізатор Hibernate.
+     Журнал змін пишеться окремим запитом з уже вставлених рядків: блокування журналу береться лише на нього,
+     а не на вставку товарів з оновленням їхніх індексів
+    */
+    public int importProducts(Iterator<Product> products) {
+        this.jdbcTemplate.execute("""
+                create temp table t_product_import (
+                    c_row     BIGINT        NOT NULL,
+                    c_title   VARCHAR(50)   NOT NULL,
+                    c_details VARCHAR(1000)
+                ) on commit drop""");
+        this.jdbcTemplate.execute("""
+                create temp table t_product_imported (
+                    id        INTEGER       NOT NULL,
+                    c_title   VARCHAR(50)   NOT NULL,
+                    c_details VARCHAR(1000),
+                    c_version INTEGER       NOT NULL
+                ) on commit drop""");
+        this.copyIn(products);
+
+        int imported = this.jdbcTemplate.update("""
+                with rows as (
+                    select row_number() over (order by c_row) - 1 as n, c_title, c_details
+                    from t_product_import),
+                blocks as (
+                    select row_number() over () - 1 as block, nextval('catalogue.t_product_id_seq') as lo
+                    from generate_series(1, (select ((count(*) + 49) / 50)::int from t_product_import))),
+                inserted as (
+                    insert into catalogue.t_product (id, c_title, c_details)
+                    select blocks.lo + rows.n % 50, rows.c_title, rows.c_details
+                    from rows
+                    join blocks on blocks.block = rows.n / 50
+                    returning id, c_title, c_details, c_version)
+                insert into t_product_imported (id, c_title, c_details, c_version)
+                select id, c_title, c_details, c_version
+                from inserted""");
+
+        this.jdbcTemplate.queryForObject("select pg_advisory_xact_lock(hashtext('catalogue.t_product_change'))",
+                Object.class);
+        this.jdbcTemplate.update("""
+                insert into catalogue.t_product_change (c_product_id, c_type, c_title, c_details, c_version)
+                select id, 'CREATED', c_title, c_details, c_version
+                from t_product_imported
+                order by id""");
+        return imported;
+    }
+
+    /*
+     Рядки CSV йдуть з сокета Postgres одразу в out, сутності не створюються
+    */
+    public void exportProducts(String filter, OutputStream out) {
+        String sql = EXPORT_COPY;
+        if (filter != null) {
+            this.jdbcTemplate.queryForObject("select set_config('catalogue.export_filter', ?, true)",
+                    String.class, filter);
+            sql = FILTERED_EXPORT_COPY;
+        }
+
+        Connection connection = DataSourceUtils.getConnection(this.dataSource);
+        try {
+            CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+            copyManager.copyOut(sql, out);
+        } catch (SQLException exception) {
+            throw Objects.requireNonNull(this.jdbcTemplate.getExceptionTranslator().translate("COPY", sql, exception));
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, this.dataSource);
+        }
+    }
+
+    private void copyIn(Iterator<Product> products) {
+        Connection connection = DataSourceUtils.getConnection(this.dataSource);
+        CopyIn copyIn = null;
+        try {
+            copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(IMPORT_COPY);
+            StringBuilder buffer = new StringBuilder(COPY_BUFFER_SIZE + 4096);
+            long row = 0;
+            while (products.hasNext()) {
+                Product product = products.next();
+                buffer.append(row++).append(',');
+                appendCsv(buffer, product.getTitle());
+                buffer.append(',');
+                appendCsv(buffer, product.getDetails());
+                buffer.append('\n');
+                if (buffer.length() >= COPY_BUFFER_SIZE) {
+                    write(copyIn, buffer);
+                }
+            }
+            write(copyIn, buffer);
+            copyIn.endCopy();
+        } catch (SQLException exception) {
+            throw Objects.requireNonNull(this.jdbcTemplate.getExceptionTranslator()
+                    .translate("COPY", IMPORT_COPY, exception));
+        } finally {
+            if (copyIn != null && copyIn.isActive()) {
+                try {
+                    copyIn.cancelCopy();
+                } catch (SQLException ignored) {
+                }
+            }
+            DataSourceUtils.releaseConnection(connection, this.dataSource);
+        }
+    }
+
+    private static void write(CopyIn copyIn, StringBuilder buffer) throws SQLException {
+        byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+        copyIn.writeToCopy(bytes, 0, bytes.length);
+        buffer.setLength(0);
+    }
+
+    // в CSV форматі COPY порожнє поле без лапок - це NULL, а в лапках - порожній рядок
+    private static void appendCsv(StringBuilder buffer, String value) {
+        if (value == null) {
+            return;
+        }
+        buffer.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                buffer.append('"');
+            }
+            buffer.append(c);
+        }
+        buffer.append('"');
+    }
+}
@@ -0,0 +1,52 @@
+package org.example.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.example.entity.ProductImage;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+@RequiredArgsConstructor
+public class ProductImageRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // оригінал і мініатюра замінюються разом
+    @Transactional
+    public void saveAll(List<ProductImage> images) {
+        this.jdbcTemplate.batchUpdate("""
+                        insert into catalogue.t_product_image (c_product_id, c_variant, c_hash, c_content_type, c_size)
+                        values (?, ?, ?, ?, ?)
+                        on conflict (c_product_id, c_variant) do update
+                        set c_hash = excluded.c_hash,
+                            c_content_type = excluded.c_content_type,
+                            c_size = excluded.c_size,
+                            c_uploaded_at = now()""", images, images.size(),
+                (statement, image) -> {
+                    statement.setInt(1, image.productId());
+                    statement.setString(2, image.variant().name());
+                    statement.setString(3, image.hash());
+                    statement.setString(4, image.contentType());
+                    statement.setLong(5, image.size());
+                });
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<ProductImage> findByProductIdAndVariant(int productId, ProductImage.Variant variant) {
+        return this.jdbcTemplate.query("""
+                                select c_product_id, c_variant, c_hash, c_content_type, c_size
+                                from catalogue.t_product_image
+                                where c_product_id = ? and c_variant = ?""",
+                        (resultSet, rowNum) -> new ProductImage(resultSet.getInt("c_product_id"),
+                                ProductImage.Variant.valueOf(resultSet.getString("c_variant")),
+                                resultSet.getString("c_hash"), resultSet.getString("c_content_type"),
+                                resultSet.getLong("c_size")),
+                        productId, variant.name())
+                .stream()
+                .findFirst();
+    }
+}
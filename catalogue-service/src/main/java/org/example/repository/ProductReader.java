@@ -0,0 +1,30 @@
+package org.example.repository;
+
+import org.example.entity.Product;
+import org.example.entity.ProductSummary;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/*
+ Запити, якими сервіс читає товари для списків і окремих товарів.
+ Типово їх виконує ProductRepository (JPA); з профілем jdbc-reads - JdbcProductReader без Hibernate.
+ Запис завжди йде через JPA
+*/
+public interface ProductReader {
+
+    Iterable<Product> findAll();
+
+    Iterable<Product> findAllByTitleLikeIgnoreCase(String filter);
+
+    Optional<Product> findById(Integer id);
+
+    List<Product> findAllByIdIn(Integer[] ids);
+
+    List<ProductSummary> findAllSummaries();
+
+    List<ProductSummary> findAllSummariesByTitleLikeIgnoreCase(String filter);
+
+    List<ProductSummary> findAllSummariesByIdIn(Collection<Integer> ids);
+}
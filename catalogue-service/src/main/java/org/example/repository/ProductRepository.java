@@ -1,14 +1,163 @@
 package org.example.repository;
 
 
+import jakarta.persistence.QueryHint;
 import org.example.entity.Product;
+import org.example.entity.ProductSummary;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
-public interface ProductRepository extends CrudRepository<Product, Integer> {
-    Iterable<Product> findAllByTitleLikeIgnoreCase(String filter);
+public interface ProductRepository extends CrudRepository<Product, Integer>, ProductReader {
+
+    /*
+     Похідний запит генерував upper(c_title) like upper(?), який завжди читає всю таблицю.
+     ILIKE по c_title використовує GIN триграмний індекс idx_product_title_trgm.
+     Сервіс викликає його поза своєю транзакцією, тож читання має бути read-only (і йти на репліку) тут
+    */
+    @Transactional(readOnly = true)
+    @Query(value = "select * from catalogue.t_product where c_title ilike :filter", nativeQuery = true)
+    Iterable<Product> findAllByTitleLikeIgnoreCase(@Param("filter") String filter);
+
+    /*
+     Один запит на весь набір id замість окремого findById на кожен товар.
+     t_product секціонована хешем за id. Параметр-масив відсікає секції лише при плануванні з його значенням
+     (custom plan): загальний план читав би всі секції, але Postgres на нього не переходить, бо він дорожчий.
+     ProductBatchLoader викликає його поза транзакцією сервісу
+    */
+    @Transactional(readOnly = true)
+    @Query(value = "select * from catalogue.t_product where id = any(:ids)", nativeQuery = true)
+    List<Product> findAllByIdIn(@Param("ids") Integer[] ids);
+
+    /*
+     Проєкції для списків: вибираються лише id та c_title, сутності не створюються.
+     ilike в HQL транслюється в ilike Postgres, тож триграмний індекс працює і тут
+    */
+    @Query("select new org.example.entity.ProductSummary(p.id, p.title) from Product p order by p.id")
+    List<ProductSummary> findAllSummaries();
+
+    @Query("""
+            select new org.example.entity.ProductSummary(p.id, p.title)
+            from Product p
+            where p.title ilike :filter
+            order by p.id""")
+    List<ProductSummary> findAllSummariesByTitleLikeIgnoreCase(@Param("filter") String filter);
+
+    @Query("select new org.example.entity.ProductSummary(p.id, p.title) from Product p where p.id in :ids")
+    List<ProductSummary> findAllSummariesByIdIn(@Param("ids") Collection<Integer> ids);
+
+    /*
+     Оновлення та видалення одним запитом без попереднього select.
+     update повертає нову версію, порожній результат означає, що товару немає або версія не збіглась
+    */
+    @Query(value = """
+            update catalogue.t_product
+            set c_title = :title, c_details = :details, c_version = c_version + 1
+            where id = :id
+            returning c_version""", nativeQuery = true)
+    Optional<Integer> updateProduct(@Param("id") int id,
+                                    @Param("title") String title,
+                                    @Param("details") String details);
+
+    @Query(value = """
+            update catalogue.t_product
+            set c_title = :title, c_details = :details, c_version = c_version + 1
+            where id = :id and c_version = :version
+            returning c_version""", nativeQuery = true)
+    Optional<Integer> updateProductIfVersionMatches(@Param("id") int id,
+                                                    @Param("version") int version,
+                                                    @Param("title") String title,
+                                                    @Param("details") String details);
+
+    @Modifying
+    @Query(value = "delete from catalogue.t_product where id = :id", nativeQuery = true)
+    int deleteProduct(@Param("id") int id);
+
+    @Modifying
+    @Query(value = "delete from catalogue.t_product where id = :id and c_version = :version", nativeQuery = true)
+    int deleteProductIfVersionMatches(@Param("id") int id, @Param("version") int version);
+
+    /*
+     Потокове читання курсором на сервері: драйвер Postgres тягне рядки порціями по fetch size
+     (лише всередині транзакції), а read-only сутності не мають знімків для dirty checking
+    */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(value = "select * from catalogue.t_product order by id", nativeQuery = true)
+    Stream<Product> streamAll();
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(value = "select * from catalogue.t_product where c_title ilike :filter order by id", nativeQuery = true)
+    Stream<Product> streamAllByTitleLikeIgnoreCase(@Param("filter") String filter);
+
+    /*
+     Keyset пагінація: сторінка починається одразу після курсору,
+     тому вартість запиту не залежить від того, наскільки глибоко гортає клієнт.
+     Діапазон id не відсікає хеш-секції, але кожна віддає не більше limit рядків зі свого індексу (Merge Append)
+    */
+    @Query(value = """
+            select * from catalogue.t_product
+            where id > :afterId
+            order by id
+            limit :limit""", nativeQuery = true)
+    List<Product> findPageOrderById(@Param("afterId") int afterId, @Param("limit") int limit);
+
+    @Query(value = """
+            select * from catalogue.t_product
+            where c_title ilike :filter and id > :afterId
+            order by id
+            limit :limit""", nativeQuery = true)
+    List<Product> findPageByTitleOrderById(@Param("filter") String filter,
+                                           @Param("afterId") int afterId,
+                                           @Param("limit") int limit);
+
+    @Query(value = """
+            select * from catalogue.t_product
+            where (c_title, id) > (:afterTitle, :afterId)
+            order by c_title, id
+            limit :limit""", nativeQuery = true)
+    List<Product> findPageOrderByTitle(@Param("afterTitle") String afterTitle,
+                                       @Param("afterId") int afterId,
+                                       @Param("limit") int limit);
+
+    @Query(value = """
+            select * from catalogue.t_product
+            where c_title ilike :filter and (c_title, id) > (:afterTitle, :afterId)
+            order by c_title, id
+            limit :limit""", nativeQuery = true)
+    List<Product> findPageByTitleOrderByTitle(@Param("filter") String filter,
+                                              @Param("afterTitle") String afterTitle,
+                                              @Param("afterId") int afterId,
+                                              @Param("limit") int limit);
+
+    /*
+     Обхід усіх товарів сторінками за id, щоб не тримати всю таблицю в одному результаті
+    */
+    default void forEachProduct(int pageSize, Consumer<Product> consumer) {
+        List<Product> page;
+        int afterId = 0;
+        do {
+            page = this.findPageOrderById(afterId, pageSize);
+            page.forEach(consumer);
+            if (!page.isEmpty()) {
+                afterId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == pageSize);
+    }
 }
@@ -0,0 +1,69 @@
+package org.example.service;
+
+import lombok.RequiredArgsConstructor;
+import org.example.entity.ProductImage;
+import org.example.repository.ProductImageRepository;
+import org.example.repository.ProductRepository;
+import org.example.service.images.ProductImageStorage;
+import org.example.service.images.ProductThumbnails;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+
+@Service
+@RequiredArgsConstructor
+public class DefaultProductImageService implements ProductImageService {
+
+    private final ProductRepository productRepository;
+
+    private final ProductImageRepository productImageRepository;
+
+    private final ProductImageStorage productImageStorage;
+
+    private final ProductThumbnails productThumbnails;
+
+    /*
+     Не транзакційний: файли пишуться до запису в базу, і повільне завантаження не тримає з'єднання з пулу
+    */
+    @Override
+    public ProductImage saveImage(int productId, String contentType, InputStream content) {
+        if (!this.productRepository.existsById(productId)) {
+            throw new NoSuchElementException("catalogue.errors.product.not_found");
+        }
+
+        ProductImageStorage.Stored original;
+        byte[] thumbnail;
+        // файл переміщується на місце лише після того, як з нього вдалося зробити мініатюру
+        try (ProductImageStorage.Upload upload = this.productImageStorage.receive(content)) {
+            thumbnail = this.productThumbnails.create(upload.path(), contentType);
+            original = upload.commit();
+        }
+        ProductImageStorage.Stored storedThumbnail = this.productImageStorage.store(thumbnail);
+
+        ProductImage image = new ProductImage(productId, ProductImage.Variant.ORIGINAL, original.hash(), contentType,
+                original.size());
+        try {
+            this.productImageRepository.saveAll(List.of(image, new ProductImage(productId,
+                    ProductImage.Variant.THUMBNAIL, storedThumbnail.hash(), contentType, storedThumbnail.size())));
+        } catch (DataIntegrityViolationException exception) {
+            // товар видалили, поки завантажувалося зображення
+            throw new NoSuchElementException("catalogue.errors.product.not_found");
+        }
+        return image;
+    }
+
+    @Override
+    public Optional<ProductImage> findImage(int productId, ProductImage.Variant variant) {
+        return this.productImageRepository.findByProductIdAndVariant(productId, variant);
+    }
+
+    @Override
+    public Path imageFile(ProductImage image) {
+        return this.productImageStorage.path(image.hash());
+    }
+}
@@ -1,59 +1,334 @@
 package org.example.service;
 
 
-import jakarta.transaction.Transactional;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import org.example.config.CacheBeans;
 import org.example.entity.Product;
+import org.example.entity.ProductChange;
+import org.example.entity.ProductSummary;
+import org.example.repository.ProductChangeRepository;
+import org.example.repository.ProductCopyRepository;
+import org.example.repository.ProductReader;
 import org.example.repository.ProductRepository;
+import org.example.service.batching.ProductBatchLoader;
+import org.example.service.coalescing.SingleFlight;
+import org.example.service.search.ProductIdSet;
+import org.example.service.search.ProductSearchIndex;
+import org.example.service.search.ProductSuggestion;
+import org.example.service.search.ProductTitleSuggester;
+import org.example.service.snapshot.ProductSnapshot;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.security.core.parameters.P;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
-public class DefaultProductService implements ProductService{
+public class DefaultProductService implements ProductService, MeterBinder {
 
     private final ProductRepository productRepository;
 
+    private final ProductReader productReader;
+
+    private final ProductChangeRepository productChangeRepository;
+
+    private final ProductCopyRepository productCopyRepository;
+
+    private final ProductSearchIndex productSearchIndex;
+
+    private final ProductTitleSuggester productTitleSuggester;
+
+    private final ProductIdSet productIdSet;
+
+    private final ProductBatchLoader productBatchLoader;
+
+    private final ProductSnapshot productSnapshot;
+
+    private final ReplicaReadFence replicaReadFence;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final EntityManager entityManager;
+
+    /*
+     Одночасні однакові читання (товар за посиланням з розсилки, популярний фільтр) чекають на один запит.
+     Методи з об'єднанням не транзакційні: транзакцію відкриває лише той виклик, що йде в репозиторій,
+     інакше кожен викликач, що чекає, тримав би з'єднання з пулу.
+     Клієнт у межах бар'єра читання з реплік не приєднується до чужого запиту: той міг піти на репліку
+    */
+    private final SingleFlight<Integer, Optional<Product>> productReads = new SingleFlight<>();
+
+    private final SingleFlight<String, Iterable<Product>> productListReads = new SingleFlight<>();
+
     @Override
     public Iterable<Product> findAllProducts(String filter) {
         if (filter != null && !filter.isBlank()) {
-            return this.productRepository.findAllByTitleLikeIgnoreCase("%" + filter + "%");
+            if (this.productSearchIndex.isReady()) {
+                return this.productSearchIndex.search(filter);
+            }
+            return this.coalesce(this.productListReads, filter,
+                    () -> this.productReader.findAllByTitleLikeIgnoreCase(containing(filter)));
         } else {
-            return this.productRepository.findAll();
+            if (this.productSnapshot.isReady()) {
+                return this.productSnapshot.findAll();
+            }
+            return this.coalesce(this.productListReads, "", this.productReader::findAll);
         }
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<ProductSummary> findAllProductSummaries(String filter) {
+        if (filter != null && !filter.isBlank()) {
+            if (this.productSearchIndex.isReady()) {
+                return this.productSearchIndex.search(filter).stream()
+                        .map(ProductSummary::of)
+                        .toList();
+            }
+            return this.productReader.findAllSummariesByTitleLikeIgnoreCase(containing(filter));
+        } else {
+            return this.productReader.findAllSummaries();
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamProducts(String filter, Consumer<Product> consumer) {
+        try (Stream<Product> products = filter != null && !filter.isBlank()
+                ? this.productRepository.streamAllByTitleLikeIgnoreCase(containing(filter))
+                : this.productRepository.streamAll()) {
+            // записаний товар одразу відпускаємо, щоб persistence context не ріс разом з таблицею
+            products.forEach(product -> {
+                consumer.accept(product);
+                this.entityManager.detach(product);
+            });
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportProducts(String filter, OutputStream out) {
+        this.productCopyRepository.exportProducts(filter != null && !filter.isBlank() ? containing(filter) : null,
+                out);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Product> findProductsPage(String filter, ProductsCursor after, int limit) {
+        boolean filtered = filter != null && !filter.isBlank();
+        return switch (after.sort()) {
+            case ID -> filtered
+                    ? this.productRepository.findPageByTitleOrderById(containing(filter), after.id(), limit)
+                    : this.productRepository.findPageOrderById(after.id(), limit);
+            case TITLE -> filtered
+                    ? this.productRepository.findPageByTitleOrderByTitle(containing(filter),
+                    after.title(), after.id(), limit)
+                    : this.productRepository.findPageOrderByTitle(after.title(), after.id(), limit);
+        };
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ProductSuggestion> suggestProducts(String prefix, int limit) {
+        if (this.productTitleSuggester.isReady()) {
+            return this.productTitleSuggester.suggest(prefix, limit);
+        }
+        return this.productRepository.findPageByTitleOrderByTitle(escapeLike(prefix) + "%", "", 0, limit)
+                .stream()
+                .map(product -> new ProductSuggestion(product.getId(), product.getTitle()))
+                .toList();
+    }
+
     @Override
     @Transactional
     public Product createProduct(String title, String details) {
-        return this.productRepository.save(new Product(null, title, details));
+        Product product = this.productRepository.save(new Product(null, title, details));
+        this.publish(List.of(ProductChangedEvent.created(product)));
+        return product;
     }
 
     @Override
+    @Transactional
+    public List<Product> createProducts(List<Product> products) {
+        // id беруться з уже зарезервованого блоку послідовності, тож insert-и йдуть JDBC батчами
+        List<Product> created = new ArrayList<>(products.size());
+        this.productRepository.saveAll(products).forEach(created::add);
+        this.publish(created.stream().map(ProductChangedEvent::created).toList());
+        return created;
+    }
+
+    /*
+     COPY замість insert-ів; журнал змін заповнює той самий запит, що вставляє товари
+    */
+    @Override
+    @Transactional
+    public int importProducts(Iterator<Product> products) {
+        int imported = this.productCopyRepository.importProducts(products);
+        if (imported > 0) {
+            this.eventPublisher.publishEvent(new ProductsImportedEvent(imported));
+        }
+        return imported;
+    }
+
+    /*
+     Поки знімок готовий, кеш не використовується: знімок і так у пам'яті, а закешована з нього копія
+     пережила б зміну, яку знімок застосує з журналу пізніше за повідомлення, що очистило кеш.
+     Товару може не бути в знімку лише тому, що журнал ще не дійшов до нього, тож промах іде в базу даних
+    */
+    @Override
+    @Cacheable(cacheNames = CacheBeans.PRODUCTS_CACHE, condition = "!@productSnapshot.isReady()",
+            unless = "#result == null || @productCacheInvalidator.isFenced(#productId)")
     public Optional<Product> findProduct(int productId) {
-        return this.productRepository.findById(productId);
+        // невідомі id (застарілі посилання, перебір) не читають товар з бази даних
+        if (!this.productIdSet.mightContain(productId)) {
+            return Optional.empty();
+        }
+        if (this.productSnapshot.isReady()) {
+            Optional<Product> product = this.productSnapshot.find(productId);
+            if (product.isPresent()) {
+                return product;
+            }
+        }
+        // завантажувач батчів читає з контекстом безпеки клієнта, тож бар'єр реплік діє і для нього
+        return this.productReads.execute(productId, () -> this.productBatchLoader.isEnabled()
+                ? this.productBatchLoader.load(productId)
+                : this.productReader.findById(productId));
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<Product> findProductsByIds(Collection<Integer> ids) {
+        Map<Integer, Product> products = this.productReader.findAllByIdIn(ids.stream()
+                        .distinct()
+                        .toArray(Integer[]::new))
+                .stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        // порядок як у запиті, відсутні id пропускаються
+        return ids.stream()
+                .distinct()
+                .map(products::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ProductSummary> findProductSummariesByIds(Collection<Integer> ids) {
+        List<Integer> distinctIds = ids.stream()
+                .distinct()
+                .toList();
+        Map<Integer, ProductSummary> products = this.productReader.findAllSummariesByIdIn(distinctIds)
+                .stream()
+                .collect(Collectors.toMap(ProductSummary::id, Function.identity()));
+        return distinctIds.stream()
+                .map(products::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    /*
+     version == null означає безумовну зміну (без If-Match)
+    */
     @Override
     @Transactional
-    public void updateProduct(Integer id, String title, String details) {
-        this.productRepository.findById(id)
-                .ifPresentOrElse(product -> {
-                    product.setTitle(title);
-                    product.setDetails(details);
-                }, () -> {
-                    throw new NoSuchElementException();
-                });
+    public int updateProduct(Integer id, Integer version, String title, String details) {
+        int updatedVersion = (version == null
+                ? this.productRepository.updateProduct(id, title, details)
+                : this.productRepository.updateProductIfVersionMatches(id, version, title, details))
+                .orElseThrow(() -> this.notFoundOrVersionMismatch(id));
+        this.publish(List.of(ProductChangedEvent.updated(new Product(id, title, details, updatedVersion))));
+        return updatedVersion;
     }
 
     @Override
     @Transactional
-    public void deleteProduct(Integer id) {
-        this.productRepository.deleteById(id);
+    public void deleteProduct(Integer id, Integer version) {
+        int deleted = version == null
+                ? this.productRepository.deleteProduct(id)
+                : this.productRepository.deleteProductIfVersionMatches(id, version);
+        if (deleted == 0) {
+            throw this.notFoundOrVersionMismatch(id);
+        }
+        this.publish(List.of(ProductChangedEvent.deleted(id)));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ProductChange> findChanges(long since, int limit) {
+        return this.productChangeRepository.findAllAfter(since, limit);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        bind(registry, "find_product", this.productReads);
+        bind(registry, "find_all_products", this.productListReads);
+    }
+
+    private static void bind(MeterRegistry registry, String operation, SingleFlight<?, ?> flight) {
+        FunctionCounter.builder("catalogue.products.reads", flight, SingleFlight::executed)
+                .description("Product reads that went to the database")
+                .tags("operation", operation, "outcome", "executed")
+                .register(registry);
+        FunctionCounter.builder("catalogue.products.reads", flight, SingleFlight::coalesced)
+                .description("Product reads that waited for an identical in-flight query")
+                .tags("operation", operation, "outcome", "coalesced")
+                .register(registry);
+        Gauge.builder("catalogue.products.reads.coalescing.ratio", flight, SingleFlight::coalescingRatio)
+                .description("Share of product reads served by another caller's query")
+                .tags("operation", operation)
+                .register(registry);
+    }
+
+    private <K, V> V coalesce(SingleFlight<K, V> flight, K key, Supplier<V> call) {
+        return this.replicaReadFence.isActive() ? call.get() : flight.execute(key, call);
+    }
+
+    /*
+     Фільтр - це підрядок, як і в індексі в пам'яті: % і _ у ньому не є шаблонами.
+     Postgres за замовчуванням використовує зворотну косу риску як символ екранування в LIKE/ILIKE
+    */
+    static String containing(String filter) {
+        return "%" + escapeLike(filter) + "%";
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+    }
+
+    // журнал змін пишеться в тій самій транзакції, що й сама зміна
+    private void publish(List<ProductChangedEvent> events) {
+        this.productChangeRepository.append(events);
+        events.forEach(this.eventPublisher::publishEvent);
+    }
+
+    // другий запит лише коли жоден рядок не змінився
+    private RuntimeException notFoundOrVersionMismatch(Integer id) {
+        return this.productRepository.existsById(id)
+                ? new OptimisticLockingFailureException("catalogue.errors.product.version_mismatch")
+                : new NoSuchElementException("catalogue.errors.product.not_found");
     }
 }
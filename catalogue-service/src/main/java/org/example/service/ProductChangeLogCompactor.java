@@ -0,0 +1,77 @@
+package org.example.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.repository.ProductChangeRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/*
+ Періодично стискає журнал змін: записи, старші за retention, видаляються, якщо товар має новіший запис.
+ Видалення йде пакетами, кожен окремим запитом, тож рядки журналу не блокуються надовго.
+ Стискають усі вузли одночасно: рядки, які вже видаляє інший вузол, пропускаються
+*/
+@Slf4j
+public class ProductChangeLogCompactor implements AutoCloseable {
+
+    private static final int BATCH_SIZE = 10_000;
+
+    private final ProductChangeRepository productChangeRepository;
+
+    private final Duration retention;
+
+    private final Duration interval;
+
+    private final Clock clock;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "product-change-log-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ProductChangeLogCompactor(ProductChangeRepository productChangeRepository, Duration retention,
+                                     Duration interval, Clock clock) {
+        this.productChangeRepository = productChangeRepository;
+        this.retention = retention;
+        this.interval = interval;
+        this.clock = clock;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        this.scheduler.scheduleWithFixedDelay(this::compactQuietly, this.interval.toMillis(),
+                this.interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public long compact() {
+        long removed = 0;
+        int deleted;
+        do {
+            deleted = this.productChangeRepository.compact(this.clock.instant().minus(this.retention), BATCH_SIZE);
+            removed += deleted;
+        } while (deleted == BATCH_SIZE);
+        return removed;
+    }
+
+    @Override
+    public void close() {
+        this.scheduler.shutdownNow();
+    }
+
+    private void compactQuietly() {
+        try {
+            long removed = this.compact();
+            if (removed > 0) {
+                log.info("Removed {} superseded product changes", removed);
+            }
+        } catch (RuntimeException exception) {
+            log.warn("Failed to compact product changes", exception);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package org.example.service;
+
+import org.example.entity.Product;
+
+/*
+ Публікується DefaultProductService при кожній зміні товару.
+ Слухачі, які тримають копії товарів в пам'яті, оновлюються після коміту транзакції
+*/
+public record ProductChangedEvent(Type type, int productId, Product product) {
+
+    public static ProductChangedEvent created(Product product) {
+        return new ProductChangedEvent(Type.CREATED, product.getId(), product);
+    }
+
+    public static ProductChangedEvent updated(Product product) {
+        return new ProductChangedEvent(Type.UPDATED, product.getId(), product);
+    }
+
+    public static ProductChangedEvent deleted(int productId) {
+        return new ProductChangedEvent(Type.DELETED, productId, null);
+    }
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+}
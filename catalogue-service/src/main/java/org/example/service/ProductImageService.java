@@ -0,0 +1,15 @@
+package org.example.service;
+
+import org.example.entity.ProductImage;
+
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Optional;
+
+public interface ProductImageService {
+    ProductImage saveImage(int productId, String contentType, InputStream content);
+
+    Optional<ProductImage> findImage(int productId, ProductImage.Variant variant);
+
+    Path imageFile(ProductImage image);
+}
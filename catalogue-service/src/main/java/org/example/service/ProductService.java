@@ -2,18 +2,45 @@ package org.example.service;
 
 
 import org.example.entity.Product;
+import org.example.entity.ProductChange;
+import org.example.entity.ProductSummary;
+import org.example.service.search.ProductSuggestion;
 
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface ProductService {
     Iterable<Product> findAllProducts(String filter);
 
+    List<ProductSummary> findAllProductSummaries(String filter);
+
+    void streamProducts(String filter, Consumer<Product> consumer);
+
+    void exportProducts(String filter, OutputStream out);
+
+    List<Product> findProductsPage(String filter, ProductsCursor after, int limit);
+
+    List<ProductSuggestion> suggestProducts(String prefix, int limit);
+
     Product createProduct(String title, String details);
 
+    List<Product> createProducts(List<Product> products);
+
+    int importProducts(Iterator<Product> products);
+
     Optional<Product> findProduct(int productId);
 
-    void updateProduct(Integer id, String title, String details);
+    List<Product> findProductsByIds(Collection<Integer> ids);
+
+    List<ProductSummary> findProductSummariesByIds(Collection<Integer> ids);
+
+    int updateProduct(Integer id, Integer version, String title, String details);
+
+    void deleteProduct(Integer id, Integer version);
 
-    void deleteProduct(Integer id);
+    List<ProductChange> findChanges(long since, int limit);
 }
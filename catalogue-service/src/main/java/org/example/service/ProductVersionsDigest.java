@@ -0,0 +1,44 @@
+package org.example.service;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/*
+ Дайджест id та версій списку товарів, з якого складається ETag списку (слабкий, див. ProductETags).
+ SHA-256, а не поліноміальний хеш: різні списки з однаковим хешем давали б клієнту 304 зі застарілим списком
+*/
+public class ProductVersionsDigest {
+
+    // 128 біт досить, щоб випадковий збіг був неможливим на практиці
+    private static final int DIGEST_BYTES = 16;
+
+    private final MessageDigest digest;
+
+    private final ByteBuffer buffer = ByteBuffer.allocate(2 * Integer.BYTES);
+
+    private int size;
+
+    public ProductVersionsDigest() {
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    public void add(int productId, int version) {
+        this.buffer.clear();
+        this.digest.update(this.buffer.putInt(productId).putInt(version).array());
+        this.size++;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public String hex() {
+        return HexFormat.of().formatHex(this.digest.digest(), 0, DIGEST_BYTES);
+    }
+}
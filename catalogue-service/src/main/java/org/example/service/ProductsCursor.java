@@ -0,0 +1,46 @@
+package org.example.service;
+
+import org.example.entity.Product;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/*
+ Позиція в keyset пагінації: останній (title, id) попередньої сторінки.
+ Для клієнта курсор непрозорий - base64url від "<sort>:<id>[:<title>]"
+*/
+public record ProductsCursor(ProductsSort sort, int id, String title) {
+
+    public static ProductsCursor first(ProductsSort sort) {
+        return new ProductsCursor(sort, 0, "");
+    }
+
+    public static ProductsCursor after(ProductsSort sort, Product product) {
+        return new ProductsCursor(sort, product.getId(), sort == ProductsSort.TITLE ? product.getTitle() : "");
+    }
+
+    public static ProductsCursor decode(ProductsSort sort, String value) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8)
+                    .split(":", 3);
+            if (!parts[0].equals(sort.name())) {
+                throw new IllegalArgumentException("catalogue.products.errors.cursor_is_invalid");
+            }
+            int id = Integer.parseInt(parts[1]);
+            return switch (sort) {
+                case ID -> new ProductsCursor(sort, id, "");
+                case TITLE -> new ProductsCursor(sort, id, parts[2]);
+            };
+        } catch (IllegalArgumentException | IndexOutOfBoundsException exception) {
+            throw new IllegalArgumentException("catalogue.products.errors.cursor_is_invalid", exception);
+        }
+    }
+
+    public String encode() {
+        String value = this.sort == ProductsSort.TITLE
+                ? "%s:%d:%s".formatted(this.sort.name(), this.id, this.title)
+                : "%s:%d".formatted(this.sort.name(), this.id);
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
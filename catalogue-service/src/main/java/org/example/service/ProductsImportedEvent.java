@@ -0,0 +1,8 @@
+package org.example.service;
+
+/*
+ Публікується після масового імпорту замість окремої ProductChangedEvent на кожен товар:
+ структури в пам'яті простіше перебудувати, ніж застосувати мільйон змін
+*/
+public record ProductsImportedEvent(int imported) {
+}
@@ -0,0 +1,16 @@
+package org.example.service;
+
+import java.util.Locale;
+
+public enum ProductsSort {
+    ID,
+    TITLE;
+
+    public static ProductsSort of(String value) {
+        try {
+            return ProductsSort.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException exception) {
+            throw new IllegalArgumentException("catalogue.products.errors.sort_is_invalid", exception);
+        }
+    }
+}
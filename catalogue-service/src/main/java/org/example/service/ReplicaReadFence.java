@@ -0,0 +1,14 @@
+package org.example.service;
+
+/*
+ Бар'єр читання з реплік: клієнт, який щойно щось змінив, читає з primary, доки репліки не наздоженуть.
+ Без реплік бар'єра немає
+*/
+@FunctionalInterface
+public interface ReplicaReadFence {
+
+    ReplicaReadFence NONE = () -> false;
+
+    // чи читає поточний клієнт з primary
+    boolean isActive();
+}
@@ -0,0 +1,182 @@
+package org.example.service.batching;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.entity.Product;
+import org.example.repository.ProductReader;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/*
+ Збирає id, запитані різними потоками протягом короткого вікна (або до maxBatchSize id),
+ і читає їх одним запитом where id = any(?), після чого кожен викликач отримує свій товар.
+ Пакети збираються окремо для кожного клієнта: запит виконується з контекстом безпеки клієнта,
+ тож маршрутизація на репліку і читання власних записів працюють як для звичайного findById
+*/
+@Slf4j
+public class ProductBatchLoader implements AutoCloseable {
+
+    private final ProductReader productReader;
+
+    private final boolean enabled;
+
+    private final long windowNanos;
+
+    private final int maxBatchSize;
+
+    private final Map<String, Batch> pending = new HashMap<>();
+
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(
+            daemon("product-batch-timer"));
+
+    private final ExecutorService loaders;
+
+    private final LongAdder batches = new LongAdder();
+
+    private final LongAdder loaded = new LongAdder();
+
+    public ProductBatchLoader(ProductReader productReader, boolean enabled, Duration window,
+                              int maxBatchSize, int loaderThreads) {
+        this.productReader = productReader;
+        this.enabled = enabled;
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = maxBatchSize;
+        this.loaders = Executors.newFixedThreadPool(loaderThreads, daemon("product-batch-loader"));
+    }
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    public long batches() {
+        return this.batches.sum();
+    }
+
+    public long loaded() {
+        return this.loaded.sum();
+    }
+
+    public Optional<Product> load(int productId) {
+        SecurityContext context = SecurityContextHolder.getContext();
+        String client = context.getAuthentication() == null ? "" : context.getAuthentication().getName();
+        Request request = new Request(productId, new CompletableFuture<>());
+
+        Batch full = null;
+        synchronized (this.pending) {
+            Batch batch = this.pending.get(client);
+            if (batch == null) {
+                batch = new Batch(client, context);
+                this.pending.put(client, batch);
+                Batch scheduled = batch;
+                this.timer.schedule(() -> this.dispatch(scheduled), this.windowNanos, TimeUnit.NANOSECONDS);
+            }
+            batch.requests.add(request);
+            if (batch.requests.size() >= this.maxBatchSize) {
+                this.pending.remove(client);
+                full = batch;
+            }
+        }
+        if (full != null) {
+            this.submit(full);
+        }
+
+        try {
+            return request.result().join();
+        } catch (CompletionException exception) {
+            if (exception.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw exception;
+        }
+    }
+
+    // за таймером: пакет міг уже піти в роботу, коли набрав maxBatchSize
+    private void dispatch(Batch batch) {
+        synchronized (this.pending) {
+            if (!this.pending.remove(batch.client, batch)) {
+                return;
+            }
+        }
+        this.submit(batch);
+    }
+
+    private void submit(Batch batch) {
+        this.loaders.execute(() -> this.execute(batch));
+    }
+
+    private void execute(Batch batch) {
+        SecurityContextHolder.setContext(batch.context);
+        try {
+            Integer[] ids = batch.requests.stream()
+                    .map(Request::productId)
+                    .distinct()
+                    .toArray(Integer[]::new);
+            Map<Integer, Product> products = this.productReader.findAllByIdIn(ids).stream()
+                    .collect(Collectors.toMap(Product::getId, Function.identity()));
+            this.batches.increment();
+            this.loaded.add(ids.length);
+            for (Request request : batch.requests) {
+                request.result().complete(Optional.ofNullable(products.get(request.productId())));
+            }
+        } catch (RuntimeException exception) {
+            log.warn("Failed to load batch of {} products", batch.requests.size(), exception);
+            batch.requests.forEach(request -> request.result().completeExceptionally(exception));
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    @Override
+    public void close() {
+        this.timer.shutdownNow();
+        this.loaders.shutdownNow();
+        synchronized (this.pending) {
+            this.pending.values().forEach(batch -> batch.requests.forEach(request -> request.result()
+                    .completeExceptionally(new IllegalStateException("Product batch loader is closed"))));
+            this.pending.clear();
+        }
+    }
+
+    private static ThreadFactory daemon(String name) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private record Request(int productId, CompletableFuture<Optional<Product>> result) {
+    }
+
+    private static final class Batch {
+
+        private final String client;
+
+        private final SecurityContext context;
+
+        private final List<Request> requests = new ArrayList<>();
+
+        private Batch(String client, SecurityContext context) {
+            this.client = client;
+            this.context = context;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package org.example.service.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.example.service.ProductChangedEvent;
+import org.example.service.ProductsImportedEvent;
+import org.springframework.cache.Cache;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+
+/*
+ Локально видаляє змінений товар з кешу після коміту, а іншим вузлам повідомляє про зміну
+ через NOTIFY в тій самій транзакції: Postgres доставить повідомлення лише після коміту.
+ Протягом changeFence після зміни товар не кешується: читання, що почалося до коміту, може закінчитися
+ вже після видалення з кешу, а бар'єр запису ReplicaRoutingDataSource діє лише на вузлі автора зміни,
+ тож інше читання може взяти стару версію з репліки, що відстає
+*/
+public class ProductCacheInvalidator {
+
+    public static final String CHANNEL = "catalogue_product_changed";
+
+    static final String IMPORTED = "IMPORTED";
+
+    private final Cache productsCache;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Duration changeFence;
+
+    private final Clock clock;
+
+    private final Map<Integer, Long> fencedUntil;
+
+    private volatile long allFencedUntil;
+
+    public ProductCacheInvalidator(Cache productsCache, JdbcTemplate jdbcTemplate, Duration changeFence, Clock clock) {
+        this.productsCache = productsCache;
+        this.jdbcTemplate = jdbcTemplate;
+        this.changeFence = changeFence;
+        this.clock = clock;
+        this.fencedUntil = Caffeine.newBuilder()
+                .expireAfterWrite(changeFence)
+                .maximumSize(100_000)
+                .<Integer, Long>build()
+                .asMap();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void notifyNodes(ProductChangedEvent event) {
+        this.jdbcTemplate.queryForObject("select pg_notify(?, ?)", Object.class,
+                CHANNEL, event.type() + ":" + event.productId());
+    }
+
+    // після імпорту інші вузли скидають кеші повністю
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void notifyNodes(ProductsImportedEvent event) {
+        this.jdbcTemplate.queryForObject("select pg_notify(?, ?)", Object.class, CHANNEL, IMPORTED);
+    }
+
+    @TransactionalEventListener
+    public void evict(ProductChangedEvent event) {
+        this.evict(event.productId());
+    }
+
+    public void evict(String notification) {
+        if (notification.equals(IMPORTED)) {
+            this.evictAll();
+            return;
+        }
+        int separator = notification.indexOf(':');
+        this.evict(Integer.parseInt(notification.substring(separator + 1)));
+    }
+
+    public void evictAll() {
+        this.allFencedUntil = this.clock.millis() + this.changeFence.toMillis();
+        this.productsCache.invalidate();
+    }
+
+    /*
+     Перевіряється в unless у @Cacheable вже після читання: якщо повідомлення прийшло, поки читання тривало,
+     результат теж не потрапить у кеш
+    */
+    public boolean isFenced(int productId) {
+        long now = this.clock.millis();
+        if (this.allFencedUntil > now) {
+            return true;
+        }
+        Long until = this.fencedUntil.get(productId);
+        return until != null && until > now;
+    }
+
+    // бар'єр ставиться до видалення, щоб читання між ними не повернуло товар у кеш
+    private void evict(int productId) {
+        this.fencedUntil.put(productId, this.clock.millis() + this.changeFence.toMillis());
+        this.productsCache.evict(productId);
+    }
+}
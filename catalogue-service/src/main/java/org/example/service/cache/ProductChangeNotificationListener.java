@@ -0,0 +1,102 @@
+package org.example.service.cache;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.service.search.ProductIdSet;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.SmartLifecycle;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/*
+ Тримає окреме з'єднання з Postgres поза пулом і слухає LISTEN на каналі змін товарів,
+ щоб кеш кожного вузла лишався узгодженим без зовнішнього брокера.
+ Після втрати з'єднання повідомлення могли загубитися, тому кеш очищується повністю
+*/
+@Slf4j
+@RequiredArgsConstructor
+public class ProductChangeNotificationListener implements SmartLifecycle {
+
+    private static final int POLL_TIMEOUT_MILLIS = 1000;
+
+    private static final long RECONNECT_DELAY_MILLIS = 5000;
+
+    private final DataSourceProperties dataSourceProperties;
+
+    private final ProductCacheInvalidator productCacheInvalidator;
+
+    // кеш відповідей не знає, що саме змінилось, тож скидається на будь-яке повідомлення
+    private final ObjectProvider<ProductListResponseCache> productListResponseCache;
+
+    private final ProductIdSet productIdSet;
+
+    private volatile boolean running;
+
+    private Thread thread;
+
+    @Override
+    public void start() {
+        this.running = true;
+        this.thread = new Thread(this::listen, "product-change-listener");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    @Override
+    public void stop() {
+        this.running = false;
+        this.thread.interrupt();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return this.running;
+    }
+
+    private void listen() {
+        while (this.running) {
+            try (Connection connection = DriverManager.getConnection(
+                    this.dataSourceProperties.determineUrl(),
+                    this.dataSourceProperties.determineUsername(),
+                    this.dataSourceProperties.determinePassword())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + ProductCacheInvalidator.CHANNEL);
+                }
+                this.productCacheInvalidator.evictAll();
+                this.productListResponseCache.ifAvailable(ProductListResponseCache::invalidate);
+
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (this.running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MILLIS);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            this.productCacheInvalidator.evict(notification.getParameter());
+                            this.productIdSet.onNotification(notification.getParameter());
+                        }
+                        this.productListResponseCache.ifAvailable(ProductListResponseCache::invalidate);
+                    }
+                }
+            } catch (SQLException exception) {
+                if (this.running) {
+                    log.warn("Lost product change notifications connection, reconnecting", exception);
+                    this.productCacheInvalidator.evictAll();
+                    this.productListResponseCache.ifAvailable(ProductListResponseCache::invalidate);
+                    // повідомлення, пропущені без з'єднання, вже не прийдуть
+                    this.productIdSet.rebuildInBackground();
+                    try {
+                        Thread.sleep(RECONNECT_DELAY_MILLIS);
+                    } catch (InterruptedException interruptedException) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }
+        }
+    }
+}
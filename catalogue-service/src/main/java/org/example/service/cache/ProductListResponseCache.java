@@ -0,0 +1,74 @@
+package org.example.service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import org.example.service.ProductChangedEvent;
+import org.example.service.ProductsImportedEvent;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ Готові байти відповіді GET /catalogue-api/products за фільтром і форматом.
+ Ключ містить покоління, яке збільшується після коміту кожної зміни товарів: відповідь, зібрана до зміни,
+ записується під старим поколінням і вже ніколи не буде прочитана, тож інвалідація атомарна без блокувань.
+ Пошуковий індекс і знімок застосовують зміну пізніше за коміт, тож вони теж викликають invalidate(),
+ щоб відповідь, зібрана з них до цього, не лишилася під новим поколінням
+*/
+public class ProductListResponseCache {
+
+    private final Cache<Key, Entry> cache;
+
+    private final AtomicLong generation = new AtomicLong();
+
+    public ProductListResponseCache(Cache<Key, Entry> cache) {
+        this.cache = cache;
+    }
+
+    // покоління треба взяти до читання товарів, а потім передати в put
+    public long generation() {
+        return this.generation.get();
+    }
+
+    public Entry get(String filter, String format) {
+        return this.cache.getIfPresent(new Key(this.generation.get(), normalize(filter), format));
+    }
+
+    public void put(long generation, String filter, String format, Entry entry) {
+        if (generation == this.generation.get()) {
+            this.cache.put(new Key(generation, normalize(filter), format), entry);
+        }
+    }
+
+    @TransactionalEventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        this.invalidate();
+    }
+
+    @TransactionalEventListener
+    public void onProductsImported(ProductsImportedEvent event) {
+        this.invalidate();
+    }
+
+    public void invalidate() {
+        this.generation.incrementAndGet();
+        this.cache.invalidateAll();
+    }
+
+    /*
+     Так само, як DefaultProductService: порожній фільтр означає весь каталог, інакше фільтр іде в пошук як є.
+     Регістр і пробіли не зводяться, бо ILIKE бази та індекс у пам'яті порівнюють їх по-різному
+    */
+    private static String normalize(String filter) {
+        return filter == null || filter.isBlank() ? "" : filter;
+    }
+
+    public record Key(long generation, String filter, String format) {
+    }
+
+    public record Entry(String contentType, String eTag, byte[] body, byte[] gzippedBody) {
+
+        public int weight() {
+            return this.body.length + this.gzippedBody.length;
+        }
+    }
+}
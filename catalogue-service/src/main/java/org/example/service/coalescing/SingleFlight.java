@@ -0,0 +1,67 @@
+package org.example.service.coalescing;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/*
+ Об'єднання одночасних однакових викликів: перший викликач для ключа виконує запит,
+ решта чекають на його результат (або виняток) замість власного запиту.
+ Результат не кешується - наступний виклик після завершення знову йде в базу даних
+*/
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder executed = new LongAdder();
+
+    private final LongAdder coalesced = new LongAdder();
+
+    public V execute(K key, Supplier<V> call) {
+        CompletableFuture<V> own = new CompletableFuture<>();
+        CompletableFuture<V> running = this.inFlight.putIfAbsent(key, own);
+        if (running != null) {
+            this.coalesced.increment();
+            try {
+                return running.join();
+            } catch (CompletionException exception) {
+                if (exception.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                if (exception.getCause() instanceof Error cause) {
+                    throw cause;
+                }
+                throw exception;
+            }
+        }
+
+        this.executed.increment();
+        try {
+            V result = call.get();
+            own.complete(result);
+            return result;
+        } catch (RuntimeException | Error exception) {
+            own.completeExceptionally(exception);
+            throw exception;
+        } finally {
+            this.inFlight.remove(key, own);
+        }
+    }
+
+    public long executed() {
+        return this.executed.sum();
+    }
+
+    public long coalesced() {
+        return this.coalesced.sum();
+    }
+
+    public double coalescingRatio() {
+        long coalesced = this.coalesced.sum();
+        long total = this.executed.sum() + coalesced;
+        return total == 0 ? 0 : (double) coalesced / total;
+    }
+}
@@ -0,0 +1,322 @@
+package org.example.service.events;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.entity.ProductChange;
+import org.example.repository.ProductChangeRepository;
+import org.example.service.ProductChangedEvent;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ Розсилає зміни товарів підписникам SSE. Джерело подій - журнал змін, тому id події дорівнює токену зміни,
+ і клієнт продовжує з Last-Event-ID, а зміни з інших вузлів підхоплюються опитуванням журналу.
+ Підписник не тримає потік: події складаються в його обмежену чергу, яку вичитує спільний пул відправників.
+ Якщо черга переповнена, підписника відключаємо - він перепідключиться з Last-Event-ID і нічого не втратить.
+ SseEmitter пише в сокет блокуюче, тож клієнт, що не читає, тримає потік відправника до тайм-ауту сокета.
+ Такого підписника, чий send триває довше за writeTimeout, відключаємо, а пул на час його send
+ отримує додатковий потік, щоб решта підписників не чекала
+*/
+@Slf4j
+public class ProductEventsHub implements AutoCloseable {
+
+    private static final int PAGE_SIZE = 1000;
+
+    private final ProductChangeRepository productChangeRepository;
+
+    private final int bufferSize;
+
+    private final Duration timeout;
+
+    private final Duration pollInterval;
+
+    private final Duration heartbeatInterval;
+
+    private final Duration writeTimeout;
+
+    private final int senderThreads;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    private final ScheduledExecutorService dispatcher = Executors.newSingleThreadScheduledExecutor(
+            daemon("product-events-dispatcher"));
+
+    private final ThreadPoolExecutor senders;
+
+    // змінюється лише в потоці dispatcher
+    private long lastToken;
+
+    // потоки відправників, що зависли в send відключених підписників
+    private int stuckSenders;
+
+    public ProductEventsHub(ProductChangeRepository productChangeRepository, int bufferSize, Duration timeout,
+                            Duration pollInterval, Duration heartbeatInterval, Duration writeTimeout,
+                            int senderThreads) {
+        this.productChangeRepository = productChangeRepository;
+        this.bufferSize = bufferSize;
+        this.timeout = timeout;
+        this.pollInterval = pollInterval;
+        this.heartbeatInterval = heartbeatInterval;
+        this.writeTimeout = writeTimeout;
+        this.senderThreads = senderThreads;
+        this.senders = new ThreadPoolExecutor(senderThreads, senderThreads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), daemon("product-events-sender"));
+    }
+
+    public int subscribers() {
+        return this.subscribers.size();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        this.dispatcher.execute(() -> this.lastToken = this.productChangeRepository.lastToken());
+        this.dispatcher.scheduleWithFixedDelay(this::poll, this.pollInterval.toMillis(),
+                this.pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+        this.dispatcher.scheduleAtFixedRate(() -> this.subscribers.forEach(subscriber ->
+                        subscriber.offer(Event.HEARTBEAT)), this.heartbeatInterval.toMillis(),
+                this.heartbeatInterval.toMillis(), TimeUnit.MILLISECONDS);
+        long checkInterval = Math.max(this.writeTimeout.toMillis() / 2, 1);
+        this.dispatcher.scheduleWithFixedDelay(this::disconnectStuckSubscribers, checkInterval, checkInterval,
+                TimeUnit.MILLISECONDS);
+    }
+
+    // зміни цього вузла розсилаються одразу після коміту, не чекаючи опитування
+    @TransactionalEventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        this.dispatcher.execute(this::poll);
+    }
+
+    public SseEmitter subscribe(Long lastEventId) {
+        SseEmitter emitter = this.createEmitter();
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> this.subscribers.remove(subscriber));
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(error -> this.subscribers.remove(subscriber));
+
+        // реєстрація йде через dispatcher, тому між повтором пропущених змін і живими подіями немає розриву
+        this.dispatcher.execute(() -> {
+            if (lastEventId != null) {
+                this.replay(subscriber, lastEventId);
+            }
+            this.subscribers.add(subscriber);
+        });
+        return emitter;
+    }
+
+    private void replay(Subscriber subscriber, long lastEventId) {
+        List<ProductChange> missed = this.productChangeRepository.findAllAfter(lastEventId, this.bufferSize + 1)
+                .stream()
+                .filter(change -> change.token() <= this.lastToken)
+                .toList();
+        if (missed.size() > this.bufferSize) {
+            // забагато для черги: клієнт має дочитати їх через GET /catalogue-api/products/changes
+            subscriber.offer(new Event(String.valueOf(lastEventId), "resync", null));
+        } else {
+            missed.forEach(change -> subscriber.offer(Event.of(change)));
+        }
+    }
+
+    private void poll() {
+        try {
+            List<ProductChange> changes;
+            do {
+                changes = this.productChangeRepository.findAllAfter(this.lastToken, PAGE_SIZE);
+                for (ProductChange change : changes) {
+                    Event event = Event.of(change);
+                    this.subscribers.forEach(subscriber -> subscriber.offer(event));
+                    this.lastToken = change.token();
+                }
+            } while (changes.size() == PAGE_SIZE);
+        } catch (RuntimeException exception) {
+            log.warn("Failed to read product changes", exception);
+        }
+    }
+
+    SseEmitter createEmitter() {
+        return new SseEmitter(this.timeout.toMillis());
+    }
+
+    private void disconnectStuckSubscribers() {
+        long now = System.nanoTime();
+        this.subscribers.forEach(subscriber -> {
+            if (subscriber.abandonIfStuck(now)) {
+                log.debug("Product events subscriber stopped reading, disconnecting it");
+                subscriber.close();
+            }
+        });
+    }
+
+    // спершу максимум, потім ядро: ThreadPoolExecutor не дозволяє ядро, більше за максимум
+    private synchronized void resizeSenders(int delta) {
+        this.stuckSenders += delta;
+        int size = this.senderThreads + this.stuckSenders;
+        if (size > this.senders.getMaximumPoolSize()) {
+            this.senders.setMaximumPoolSize(size);
+            this.senders.setCorePoolSize(size);
+        } else {
+            this.senders.setCorePoolSize(size);
+            this.senders.setMaximumPoolSize(size);
+        }
+    }
+
+    // завершення emitter-ів ставиться в пул відправників, тож він зупиняється після них
+    @Override
+    public void close() {
+        this.dispatcher.shutdownNow();
+        this.subscribers.forEach(Subscriber::close);
+        this.senders.shutdown();
+    }
+
+    private static ThreadFactory daemon(String name) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private record Event(String id, String name, Object data) {
+
+        static final Event HEARTBEAT = new Event(null, null, null);
+
+        static Event of(ProductChange change) {
+            return new Event(String.valueOf(change.token()), change.type().name(), change);
+        }
+
+        SseEmitter.SseEventBuilder toSse() {
+            if (this == HEARTBEAT) {
+                return SseEmitter.event().comment("heartbeat");
+            }
+            SseEmitter.SseEventBuilder builder = SseEmitter.event().id(this.id).name(this.name);
+            return this.data == null ? builder : builder.data(this.data);
+        }
+    }
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+
+        private final BlockingQueue<Event> queue = new ArrayBlockingQueue<>(ProductEventsHub.this.bufferSize);
+
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        private final AtomicBoolean completed = new AtomicBoolean();
+
+        private volatile boolean closed;
+
+        // System.nanoTime() початку поточного send, 0 - поза send; під блокуванням підписника
+        private long sendingSince;
+
+        private boolean stuck;
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void offer(Event event) {
+            if (this.closed) {
+                return;
+            }
+            if (!this.queue.offer(event)) {
+                log.debug("Product events subscriber is too slow, disconnecting it");
+                this.close();
+                return;
+            }
+            this.scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (this.draining.compareAndSet(false, true)) {
+                ProductEventsHub.this.senders.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                Event event;
+                while (!this.closed && (event = this.queue.poll()) != null) {
+                    this.startSend();
+                    try {
+                        this.emitter.send(event.toSse());
+                    } finally {
+                        this.endSend();
+                    }
+                }
+            } catch (IOException | IllegalStateException exception) {
+                // клієнт пішов
+                this.close();
+            } finally {
+                this.draining.set(false);
+            }
+            if (this.closed) {
+                this.complete();
+            } else if (!this.queue.isEmpty()) {
+                this.scheduleDrain();
+            }
+        }
+
+        private synchronized void startSend() {
+            this.sendingSince = System.nanoTime();
+        }
+
+        private synchronized void endSend() {
+            this.sendingSince = 0;
+            if (this.stuck) {
+                this.stuck = false;
+                ProductEventsHub.this.resizeSenders(-1);
+            }
+        }
+
+        synchronized boolean abandonIfStuck(long now) {
+            if (this.sendingSince == 0 || this.stuck
+                    || now - this.sendingSince < ProductEventsHub.this.writeTimeout.toNanos()) {
+                return false;
+            }
+            this.stuck = true;
+            ProductEventsHub.this.resizeSenders(1);
+            return true;
+        }
+
+        /*
+         send і complete емітера беруть одне блокування, тож поки відправник пише, complete викличе він сам
+         після виходу з send; інакше - окреме завдання в пулі, а не потік, що закриває
+        */
+        void close() {
+            this.closed = true;
+            this.queue.clear();
+            ProductEventsHub.this.subscribers.remove(this);
+            if (this.draining.compareAndSet(false, true)) {
+                try {
+                    ProductEventsHub.this.senders.execute(this::complete);
+                } catch (RejectedExecutionException exception) {
+                    this.complete();
+                }
+            }
+        }
+
+        private void complete() {
+            if (this.completed.compareAndSet(false, true)) {
+                this.emitter.complete();
+            }
+        }
+    }
+}
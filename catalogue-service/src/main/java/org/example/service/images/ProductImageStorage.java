@@ -0,0 +1,127 @@
+package org.example.service.images;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/*
+ Файли зображень на диску за SHA-256 вмісту: root/ab/cd/abcd...
+ Вміст потоком пишеться у тимчасовий файл поруч і атомарно переміщується на місце, тож читач
+ ніколи не бачить недописаний файл, а однакові зображення зберігаються один раз.
+ Файли живуть на диску вузла: кілька екземплярів сервісу мають монтувати root зі спільного тому
+*/
+public class ProductImageStorage {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path root;
+
+    private final long maxBytes;
+
+    public ProductImageStorage(Path root, long maxBytes) {
+        this.root = root;
+        this.maxBytes = maxBytes;
+    }
+
+    /*
+     Вміст лишається у tmp/, доки виклик не перевірить його і не викличе commit(): невалідний файл
+     не потрапляє на місце, куди вже може посилатися інший товар з таким самим вмістом
+    */
+    public Upload receive(InputStream content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            Path temporary = Files.createTempFile(Files.createDirectories(this.root.resolve("tmp")), "upload-",
+                    ".part");
+            try {
+                long size = 0;
+                try (OutputStream out = Files.newOutputStream(temporary)) {
+                    byte[] buffer = new byte[BUFFER_SIZE];
+                    int read;
+                    while ((read = content.read(buffer)) != -1) {
+                        size += read;
+                        if (size > this.maxBytes) {
+                            throw new IllegalArgumentException("catalogue.products.images.errors.image_is_too_large");
+                        }
+                        digest.update(buffer, 0, read);
+                        out.write(buffer, 0, read);
+                    }
+                }
+                return new Upload(temporary, HexFormat.of().formatHex(digest.digest()), size);
+            } catch (IOException | RuntimeException exception) {
+                Files.deleteIfExists(temporary);
+                throw exception;
+            }
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    public Stored store(InputStream content) {
+        try (Upload upload = this.receive(content)) {
+            return upload.commit();
+        }
+    }
+
+    public Stored store(byte[] content) {
+        return this.store(new ByteArrayInputStream(content));
+    }
+
+    public Path path(String hash) {
+        return this.root.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+
+    public final class Upload implements AutoCloseable {
+
+        private final Path temporary;
+
+        private final String hash;
+
+        private final long size;
+
+        private Upload(Path temporary, String hash, long size) {
+            this.temporary = temporary;
+            this.hash = hash;
+            this.size = size;
+        }
+
+        public Path path() {
+            return this.temporary;
+        }
+
+        public Stored commit() {
+            try {
+                Path target = ProductImageStorage.this.path(this.hash);
+                if (!Files.exists(target)) {
+                    Files.createDirectories(target.getParent());
+                    Files.move(this.temporary, target, StandardCopyOption.ATOMIC_MOVE);
+                }
+                return new Stored(this.hash, this.size);
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        }
+
+        // прибирає тимчасовий файл, якщо його не перемістили або такий вміст уже був на місці
+        @Override
+        public void close() {
+            try {
+                Files.deleteIfExists(this.temporary);
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        }
+    }
+
+    public record Stored(String hash, long size) {
+    }
+}
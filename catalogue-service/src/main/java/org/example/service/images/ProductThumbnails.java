@@ -0,0 +1,89 @@
+package org.example.service.images;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/*
+ Мініатюри генеруються один раз під час завантаження, а не на кожен запит.
+ Заявлений тип вмісту має збігатися з фактичним форматом файлу
+*/
+public class ProductThumbnails {
+
+    private static final String INVALID_IMAGE = "catalogue.products.images.errors.image_is_invalid";
+
+    private final int size;
+
+    private final long maxPixels;
+
+    public ProductThumbnails(int size, long maxPixels) {
+        this.size = size;
+        this.maxPixels = maxPixels;
+    }
+
+    public byte[] create(Path original, String contentType) {
+        String formatName = switch (contentType) {
+            case "image/png" -> "png";
+            case "image/jpeg" -> "jpeg";
+            default -> throw new IllegalArgumentException(INVALID_IMAGE);
+        };
+
+        try (ImageInputStream input = ImageIO.createImageInputStream(original.toFile())) {
+            Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+            if (readers == null || !readers.hasNext()) {
+                throw new IllegalArgumentException(INVALID_IMAGE);
+            }
+            ImageReader reader = readers.next();
+            try {
+                if (!Arrays.asList(reader.getOriginatingProvider().getMIMETypes()).contains(contentType)) {
+                    throw new IllegalArgumentException(INVALID_IMAGE);
+                }
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                // розміри з заголовка перевіряються до декодування растру
+                if ((long) width * height > this.maxPixels) {
+                    throw new IllegalArgumentException("catalogue.products.images.errors.image_is_too_large");
+                }
+
+                // велике зображення декодується з проріджуванням, повний растр у купі не потрібен
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, Math.max(width, height) / (this.size * 2));
+                param.setSourceSubsampling(step, step, 0, 0);
+                BufferedImage source = reader.read(0, param);
+
+                double scale = Math.min(1.0, (double) this.size / Math.max(source.getWidth(), source.getHeight()));
+                int thumbnailWidth = Math.max(1, (int) Math.round(source.getWidth() * scale));
+                int thumbnailHeight = Math.max(1, (int) Math.round(source.getHeight() * scale));
+                // JPEG не має альфа-каналу
+                BufferedImage thumbnail = new BufferedImage(thumbnailWidth, thumbnailHeight,
+                        formatName.equals("png") ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+                Graphics2D graphics = thumbnail.createGraphics();
+                try {
+                    graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+                            RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                    graphics.drawImage(source, 0, 0, thumbnailWidth, thumbnailHeight, null);
+                } finally {
+                    graphics.dispose();
+                }
+
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                ImageIO.write(thumbnail, formatName, out);
+                return out.toByteArray();
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException exception) {
+            throw new IllegalArgumentException(INVALID_IMAGE, exception);
+        }
+    }
+}
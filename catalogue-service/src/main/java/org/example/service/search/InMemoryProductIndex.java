@@ -0,0 +1,258 @@
+package org.example.service.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.entity.Product;
+import org.example.entity.ProductChange;
+import org.example.repository.ProductChangeRepository;
+import org.example.repository.ProductRepository;
+import org.example.service.ProductChangedEvent;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/*
+ Спільна логіка для структур даних над усіма товарами, які живуть в пам'яті:
+ побудова у фоні після старту застосунку та застосування змін товарів після коміту транзакцій.
+ Поки структура будується, isReady() повертає false і викликач має звертатися до бази даних.
+ Побудови йдуть по одній в окремому потоці, а запити на перебудову, що прийшли до її початку, об'єднуються.
+ Зміни з інших вузлів приходять опитуванням журналу змін; без ProductChangeRepository структура бачить лише локальні.
+ Імпорт пише кожен товар у той самий журнал, тож застосовується опитуванням без перебудови
+*/
+@Slf4j
+public abstract class InMemoryProductIndex<T> implements AutoCloseable {
+
+    private static final int BUILD_BATCH_SIZE = 10_000;
+
+    private static final int CHANGES_PAGE_SIZE = 1000;
+
+    private final ProductRepository productRepository;
+
+    private final ProductChangeRepository productChangeRepository;
+
+    private final boolean enabled;
+
+    private final Duration pollInterval;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final List<ProductChangedEvent> pendingEvents = new ArrayList<>();
+
+    private final AtomicBoolean rebuildRequested = new AtomicBoolean();
+
+    private final List<Runnable> changeListeners = new CopyOnWriteArrayList<>();
+
+    private final ExecutorService builder = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, this.name() + "-builder");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, this.name() + "-poller");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // змінюється лише в потоці poller і лише після того, як сторінку змін застосовано
+    private volatile long lastToken;
+
+    private T structure;
+
+    private boolean building;
+
+    private volatile boolean ready;
+
+    protected InMemoryProductIndex(ProductRepository productRepository,
+                                   ProductChangeRepository productChangeRepository,
+                                   boolean enabled, Duration pollInterval) {
+        this.productRepository = productRepository;
+        this.productChangeRepository = productChangeRepository;
+        this.enabled = enabled;
+        this.pollInterval = pollInterval;
+    }
+
+    protected abstract String name();
+
+    protected abstract T createStructure();
+
+    protected abstract void put(T structure, Product product);
+
+    protected abstract void remove(T structure, int productId);
+
+    public boolean isReady() {
+        return this.ready;
+    }
+
+    /*
+     Викликається вже після того, як зміни застосовано до структури і побудову завершено:
+     те, що зібране з неї раніше, з цього моменту вважається застарілим
+    */
+    public void addChangeListener(Runnable listener) {
+        this.changeListeners.add(listener);
+    }
+
+    // токен журналу змін, до якого включно структура вже застосувала всі зміни
+    protected long appliedToken() {
+        return this.lastToken;
+    }
+
+    protected ProductChangeRepository productChangeRepository() {
+        return this.productChangeRepository;
+    }
+
+    protected <R> R read(Function<T, R> reader) {
+        this.lock.readLock().lock();
+        try {
+            return reader.apply(this.structure);
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /*
+     Токен береться до побудови: зміни після нього застосовуються опитуванням,
+     а ті, що були раніше, вже є в таблиці, яку читає побудова
+    */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!this.enabled) {
+            return;
+        }
+        if (this.productChangeRepository != null) {
+            this.lastToken = this.productChangeRepository.lastToken();
+            this.poller.scheduleWithFixedDelay(this::poll, this.pollInterval.toMillis(),
+                    this.pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+        this.rebuildInBackground();
+    }
+
+    /*
+     Прапорець скидається на початку побудови: запит під час неї ставить ще одну, бо поточна
+     могла вже пройти сторінки з новими товарами
+    */
+    public void rebuildInBackground() {
+        if (this.enabled && this.rebuildRequested.compareAndSet(false, true)) {
+            this.builder.execute(() -> {
+                this.rebuildRequested.set(false);
+                this.rebuild();
+            });
+        }
+    }
+
+    // synchronized: побудови, що перекриваються, ділили б pendingEvents і губили б зміни
+    public synchronized void rebuild() {
+        this.lock.writeLock().lock();
+        try {
+            this.ready = false;
+            this.building = true;
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+
+        try {
+            long startedAt = System.nanoTime();
+            T newStructure = this.createStructure();
+            int[] count = new int[1];
+            this.productRepository.forEachProduct(BUILD_BATCH_SIZE, product -> {
+                this.put(newStructure, product);
+                count[0]++;
+            });
+
+            this.lock.writeLock().lock();
+            try {
+                // зміни, що прийшли під час побудови, могли не потрапити у прочитані сторінки
+                this.pendingEvents.forEach(event -> this.apply(newStructure, event));
+                this.pendingEvents.clear();
+                this.structure = newStructure;
+                this.ready = true;
+                this.building = false;
+            } finally {
+                this.lock.writeLock().unlock();
+            }
+            this.changeListeners.forEach(Runnable::run);
+            log.info("{} built: {} products in {} ms", this.name(), count[0],
+                    (System.nanoTime() - startedAt) / 1_000_000);
+        } catch (RuntimeException exception) {
+            log.error("{} build failed, falling back to the database", this.name(), exception);
+            this.lock.writeLock().lock();
+            try {
+                this.pendingEvents.clear();
+                this.building = false;
+            } finally {
+                this.lock.writeLock().unlock();
+            }
+        }
+    }
+
+    @TransactionalEventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        this.applyAll(List.of(event));
+    }
+
+    private void applyAll(List<ProductChangedEvent> events) {
+        if (!this.enabled || events.isEmpty()) {
+            return;
+        }
+
+        boolean applied = false;
+        this.lock.writeLock().lock();
+        try {
+            if (this.ready) {
+                events.forEach(event -> this.apply(this.structure, event));
+                applied = true;
+            } else if (this.building) {
+                this.pendingEvents.addAll(events);
+            }
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+        if (applied) {
+            this.changeListeners.forEach(Runnable::run);
+        }
+    }
+
+    // свої зміни теж приходять з журналу, повторне застосування нічого не змінює
+    private void poll() {
+        try {
+            List<ProductChange> changes;
+            do {
+                changes = this.productChangeRepository.findAllAfter(this.lastToken, CHANGES_PAGE_SIZE);
+                // сторінка застосовується під одним блокуванням і слухачі викликаються один раз
+                this.applyAll(changes.stream()
+                        .map(change -> new ProductChangedEvent(change.type(), change.productId(), change.product()))
+                        .toList());
+                if (!changes.isEmpty()) {
+                    this.lastToken = changes.get(changes.size() - 1).token();
+                }
+            } while (changes.size() == CHANGES_PAGE_SIZE);
+        } catch (RuntimeException exception) {
+            log.warn("{} failed to read product changes", this.name(), exception);
+        }
+    }
+
+    @Override
+    public void close() {
+        this.poller.shutdownNow();
+        this.builder.shutdownNow();
+    }
+
+    private void apply(T structure, ProductChangedEvent event) {
+        switch (event.type()) {
+            case CREATED, UPDATED -> this.put(structure, event.product());
+            case DELETED -> this.remove(structure, event.productId());
+        }
+    }
+}
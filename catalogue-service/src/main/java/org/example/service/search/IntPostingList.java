@@ -0,0 +1,61 @@
+package org.example.service.search;
+
+import java.util.Arrays;
+
+/*
+ Відсортований список ідентифікаторів товарів на примітивному int[],
+ без боксингу та з бінарним пошуком
+*/
+class IntPostingList {
+
+    private int[] ids = new int[4];
+
+    private int size;
+
+    int size() {
+        return this.size;
+    }
+
+    boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    int get(int index) {
+        return this.ids[index];
+    }
+
+    boolean contains(int id) {
+        return Arrays.binarySearch(this.ids, 0, this.size, id) >= 0;
+    }
+
+    void add(int id) {
+        if (this.size > 0 && this.ids[this.size - 1] < id) {
+            this.ensureCapacity();
+            this.ids[this.size++] = id;
+            return;
+        }
+
+        int position = Arrays.binarySearch(this.ids, 0, this.size, id);
+        if (position < 0) {
+            int insertion = -position - 1;
+            this.ensureCapacity();
+            System.arraycopy(this.ids, insertion, this.ids, insertion + 1, this.size - insertion);
+            this.ids[insertion] = id;
+            this.size++;
+        }
+    }
+
+    void remove(int id) {
+        int position = Arrays.binarySearch(this.ids, 0, this.size, id);
+        if (position >= 0) {
+            System.arraycopy(this.ids, position + 1, this.ids, position, this.size - position - 1);
+            this.size--;
+        }
+    }
+
+    private void ensureCapacity() {
+        if (this.size == this.ids.length) {
+            this.ids = Arrays.copyOf(this.ids, this.ids.length * 2);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package org.example.service.search;
+
+import org.example.entity.Product;
+
+import java.util.*;
+
+/*
+ Інвертований індекс триграм назв товарів.
+ Кандидати знаходяться перетином списків ідентифікаторів для кожної триграми запиту,
+ після чого кожен кандидат перевіряється на входження підрядка, тому результат - ті самі товари,
+ що й у c_title ILIKE '%запит%' з екранованими % і _. Клас не потокобезпечний, синхронізацію забезпечує
+ ProductSearchIndex
+*/
+public class NGramIndex {
+
+    static final int GRAM_SIZE = 3;
+
+    private final Map<Long, IntPostingList> postings = new HashMap<>();
+
+    private final Map<Integer, Document> documents = new HashMap<>();
+
+    public int size() {
+        return this.documents.size();
+    }
+
+    public void put(Product product) {
+        this.remove(product.getId());
+
+        Document document = new Document(new Product(product.getId(), product.getTitle(), product.getDetails(),
+                product.getVersion()),
+                normalize(product.getTitle()));
+        this.documents.put(product.getId(), document);
+        for (long gram : grams(document.title())) {
+            this.postings.computeIfAbsent(gram, key -> new IntPostingList()).add(product.getId());
+        }
+    }
+
+    public void remove(int productId) {
+        Document document = this.documents.remove(productId);
+        if (document != null) {
+            for (long gram : grams(document.title())) {
+                IntPostingList posting = this.postings.get(gram);
+                posting.remove(productId);
+                if (posting.isEmpty()) {
+                    this.postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    public List<Product> search(String query, ProductSearchRanking ranking, int limit) {
+        String normalizedQuery = normalize(query);
+        List<Match> matches = new ArrayList<>();
+        // при сортуванні за id кандидати вже йдуть за зростанням, тож можна зупинитися на ліміті
+        int candidatesLimit = ranking == ProductSearchRanking.ID ? limit : Integer.MAX_VALUE;
+
+        if (normalizedQuery.length() < GRAM_SIZE) {
+            this.documents.values().stream()
+                    .sorted(Comparator.comparingInt(document -> document.product().getId()))
+                    .forEach(document -> this.match(document, normalizedQuery, matches));
+        } else {
+            IntPostingList[] queryPostings = this.postingsOf(normalizedQuery);
+            if (queryPostings == null) {
+                return List.of();
+            }
+
+            IntPostingList shortest = queryPostings[0];
+            for (int i = 0; i < shortest.size() && matches.size() < candidatesLimit; i++) {
+                int productId = shortest.get(i);
+                if (containsInAll(queryPostings, productId)) {
+                    this.match(this.documents.get(productId), normalizedQuery, matches);
+                }
+            }
+        }
+
+        Comparator<Match> comparator = ranking == ProductSearchRanking.RELEVANCE
+                ? Comparator.comparingInt(Match::score).reversed()
+                .thenComparingInt(match -> match.document().title().length())
+                .thenComparingInt(match -> match.document().product().getId())
+                : Comparator.comparingInt(match -> match.document().product().getId());
+        return matches.stream()
+                .sorted(comparator)
+                .limit(limit)
+                .map(match -> match.document().product())
+                .toList();
+    }
+
+    private void match(Document document, String normalizedQuery, List<Match> matches) {
+        int score;
+        if (document.title().startsWith(normalizedQuery)) {
+            score = 2;
+        } else if (document.title().contains(normalizedQuery)) {
+            score = 1;
+        } else {
+            return;
+        }
+        matches.add(new Match(document, score));
+    }
+
+    private IntPostingList[] postingsOf(String normalizedQuery) {
+        long[] grams = grams(normalizedQuery);
+        IntPostingList[] queryPostings = new IntPostingList[grams.length];
+        for (int i = 0; i < grams.length; i++) {
+            queryPostings[i] = this.postings.get(grams[i]);
+            if (queryPostings[i] == null) {
+                return null;
+            }
+        }
+        Arrays.sort(queryPostings, Comparator.comparingInt(IntPostingList::size));
+        return queryPostings;
+    }
+
+    private static boolean containsInAll(IntPostingList[] queryPostings, int productId) {
+        for (int i = 1; i < queryPostings.length; i++) {
+            if (!queryPostings[i].contains(productId)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static long[] grams(String text) {
+        if (text.length() < GRAM_SIZE) {
+            return new long[0];
+        }
+        long[] grams = new long[text.length() - GRAM_SIZE + 1];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = ((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2);
+        }
+        return distinct(grams);
+    }
+
+    private static long[] distinct(long[] values) {
+        if (values.length == 0) {
+            return values;
+        }
+        Arrays.sort(values);
+        int size = 1;
+        for (int i = 1; i < values.length; i++) {
+            if (values[i] != values[size - 1]) {
+                values[size++] = values[i];
+            }
+        }
+        return Arrays.copyOf(values, size);
+    }
+
+    static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+
+    private record Document(Product product, String title) {
+    }
+
+    private record Match(Document document, int score) {
+    }
+}
@@ -0,0 +1,93 @@
+package org.example.service.search;
+
+import org.example.entity.Product;
+import org.example.repository.ProductChangeRepository;
+import org.example.repository.ProductRepository;
+import org.example.service.ProductChangedEvent;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ Точний набір id наявних товарів у стиснутому бітмапі: запит за невідомим id отримує відповідь без бази даних.
+ Крім локальних подій, набір застосовує повідомлення catalogue_product_changed від інших вузлів,
+ інакше товар, створений на іншому вузлі, тут вважався б відсутнім.
+ Повідомлення приходить уже після коміту, а id видаються вузлам блоками по 50, тож за самими id не видно,
+ що набір уже знає всі закомічені товари. Промах остаточний лише тоді, коли набір застосував журнал змін
+ до його поточного кінця; інакше викликач іде в базу даних
+*/
+public class ProductIdSet extends InMemoryProductIndex<RoaringBitmap> {
+
+    private final LongAdder rejected = new LongAdder();
+
+    public ProductIdSet(ProductRepository productRepository, ProductChangeRepository productChangeRepository,
+                        boolean enabled, Duration pollInterval) {
+        super(productRepository, productChangeRepository, enabled, pollInterval);
+    }
+
+    /*
+     false лише тоді, коли товару точно немає; поки набір будується, відповідь завжди true.
+     Кінець журналу читається вже після промаху: товар, закомічений до цього, має в журналі менший токен.
+     Промахи не об'єднуються - запит, що почався раніше, міг не побачити щойно закомічений товар.
+     Це один прохід індексу журналу замість читання товару з усіма колонками
+    */
+    public boolean mightContain(int productId) {
+        if (!this.isReady() || this.read(ids -> ids.contains(productId)) || !this.isCaughtUp()) {
+            return true;
+        }
+        this.rejected.increment();
+        return false;
+    }
+
+    public long rejected() {
+        return this.rejected.sum();
+    }
+
+    public long size() {
+        return this.isReady() ? this.read(RoaringBitmap::getLongCardinality) : 0;
+    }
+
+    /*
+     Формат повідомлень ProductCacheInvalidator: TYPE:id або IMPORTED.
+     Імпортовані товари набір отримує з журналу змін, а до того isCaughtUp() не дає вважати їх відсутніми
+    */
+    public void onNotification(String notification) {
+        int separator = notification.indexOf(':');
+        if (separator < 0) {
+            return;
+        }
+        var type = ProductChangedEvent.Type.valueOf(notification.substring(0, separator));
+        int productId = Integer.parseInt(notification.substring(separator + 1));
+        // з повідомлення відомий лише id, решта полів набору не потрібна
+        this.onProductChanged(new ProductChangedEvent(type, productId,
+                type == ProductChangedEvent.Type.DELETED ? null : new Product(productId, null, null)));
+    }
+
+    @Override
+    protected String name() {
+        return "product-id-set";
+    }
+
+    @Override
+    protected RoaringBitmap createStructure() {
+        return new RoaringBitmap();
+    }
+
+    @Override
+    protected void put(RoaringBitmap ids, Product product) {
+        ids.add(product.getId().intValue());
+    }
+
+    @Override
+    protected void remove(RoaringBitmap ids, int productId) {
+        ids.remove(productId);
+    }
+
+    // без журналу змін набір бачить лише локальні зміни і вважається актуальним
+    private boolean isCaughtUp() {
+        ProductChangeRepository productChangeRepository = this.productChangeRepository();
+        return productChangeRepository == null
+                || this.appliedToken() >= productChangeRepository.lastToken();
+    }
+}
@@ -0,0 +1,48 @@
+package org.example.service.search;
+
+import org.example.entity.Product;
+import org.example.repository.ProductChangeRepository;
+import org.example.repository.ProductRepository;
+
+import java.time.Duration;
+import java.util.List;
+
+/*
+ Пошук товарів за підрядком назви через NGramIndex в пам'яті.
+ Відповідає тим самим набором товарів, що й запит до бази даних, без обмеження кількості:
+ GET /catalogue-api/products?filter= не посторінковий, і відповідь не має залежати від готовності індексу
+*/
+public class ProductSearchIndex extends InMemoryProductIndex<NGramIndex> {
+
+    private final ProductSearchRanking ranking;
+
+    public ProductSearchIndex(ProductRepository productRepository, ProductChangeRepository productChangeRepository,
+                              boolean enabled, Duration pollInterval, ProductSearchRanking ranking) {
+        super(productRepository, productChangeRepository, enabled, pollInterval);
+        this.ranking = ranking;
+    }
+
+    public List<Product> search(String filter) {
+        return this.read(index -> index.search(filter, this.ranking, Integer.MAX_VALUE));
+    }
+
+    @Override
+    protected String name() {
+        return "product-search-index";
+    }
+
+    @Override
+    protected NGramIndex createStructure() {
+        return new NGramIndex();
+    }
+
+    @Override
+    protected void put(NGramIndex index, Product product) {
+        index.put(product);
+    }
+
+    @Override
+    protected void remove(NGramIndex index, int productId) {
+        index.remove(productId);
+    }
+}
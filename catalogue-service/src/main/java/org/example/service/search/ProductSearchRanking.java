@@ -0,0 +1,18 @@
+package org.example.service.search;
+
+import java.util.Locale;
+
+public enum ProductSearchRanking {
+    /*
+     Порядок за ідентифікатором, як у SQL запиту
+    */
+    ID,
+    /*
+     Спочатку товари, назва яких починається з запиту, потім ті, що містять його в назві; коротші назви вище
+    */
+    RELEVANCE;
+
+    public static ProductSearchRanking of(String value) {
+        return ProductSearchRanking.valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,4 @@
+package org.example.service.search;
+
+public record ProductSuggestion(int id, String title) {
+}
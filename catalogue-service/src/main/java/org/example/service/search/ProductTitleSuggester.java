@@ -0,0 +1,52 @@
+package org.example.service.search;
+
+import org.example.entity.Product;
+import org.example.repository.ProductChangeRepository;
+import org.example.repository.ProductRepository;
+
+import java.time.Duration;
+import java.util.List;
+
+/*
+ Підказки назв товарів за префіксом через TitleTrie в пам'яті
+*/
+public class ProductTitleSuggester extends InMemoryProductIndex<TitleTrie> {
+
+    public ProductTitleSuggester(ProductRepository productRepository,
+                                 ProductChangeRepository productChangeRepository,
+                                 boolean enabled, Duration pollInterval) {
+        super(productRepository, productChangeRepository, enabled, pollInterval);
+    }
+
+    public List<ProductSuggestion> suggest(String prefix, int limit) {
+        return this.read(trie -> trie.suggest(prefix, limit));
+    }
+
+    public long estimatedMemoryBytes() {
+        return this.isReady() ? this.read(TitleTrie::estimatedMemoryBytes) : 0;
+    }
+
+    public int size() {
+        return this.isReady() ? this.read(TitleTrie::size) : 0;
+    }
+
+    @Override
+    protected String name() {
+        return "product-title-suggester";
+    }
+
+    @Override
+    protected TitleTrie createStructure() {
+        return new TitleTrie();
+    }
+
+    @Override
+    protected void put(TitleTrie trie, Product product) {
+        trie.put(product.getId(), product.getTitle());
+    }
+
+    @Override
+    protected void remove(TitleTrie trie, int productId) {
+        trie.remove(productId);
+    }
+}
@@ -0,0 +1,197 @@
+package org.example.service.search;
+
+import java.util.*;
+
+/*
+ Префіксне дерево нормалізованих назв товарів.
+ Діти вузла зберігаються у відсортованих масивах char[]/Node[] замість HashMap,
+ а товари з однаковою назвою - у масивах int[]/String[] кінцевого вузла.
+ Клас не потокобезпечний, синхронізацію забезпечує ProductTitleSuggester
+*/
+public class TitleTrie {
+
+    // приблизні розміри об'єктів в HotSpot з compressed oops
+    private static final int NODE_BYTES = 32;
+    private static final int ARRAY_HEADER_BYTES = 16;
+    private static final int STRING_BYTES = 40;
+
+    private static final char[] NO_LABELS = new char[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private static final int[] NO_IDS = new int[0];
+    private static final String[] NO_TITLES = new String[0];
+
+    private final Node root = new Node();
+
+    private final Map<Integer, String> keys = new HashMap<>();
+
+    private long nodes = 1;
+
+    private long edges;
+
+    private long entries;
+
+    private long titleChars;
+
+    public int size() {
+        return this.keys.size();
+    }
+
+    public long estimatedMemoryBytes() {
+        return this.nodes * (NODE_BYTES + 4L * ARRAY_HEADER_BYTES)
+                + this.edges * (Character.BYTES + Integer.BYTES)
+                + this.entries * (Integer.BYTES + Integer.BYTES + STRING_BYTES)
+                + this.titleChars
+                // карта id -> ключ
+                + this.keys.size() * 64L;
+    }
+
+    public void put(int id, String title) {
+        this.remove(id);
+
+        String key = normalize(title);
+        Node node = this.root;
+        for (int i = 0; i < key.length(); i++) {
+            node = this.childOrCreate(node, key.charAt(i));
+        }
+        node.addEntry(id, title);
+        this.keys.put(id, key);
+        this.entries++;
+        this.titleChars += title.length();
+    }
+
+    public void remove(int id) {
+        String key = this.keys.remove(id);
+        if (key == null) {
+            return;
+        }
+
+        Node[] path = new Node[key.length() + 1];
+        path[0] = this.root;
+        for (int i = 0; i < key.length(); i++) {
+            path[i + 1] = path[i].child(key.charAt(i));
+        }
+
+        Node terminal = path[key.length()];
+        this.titleChars -= terminal.removeEntry(id).length();
+        this.entries--;
+
+        // прибираємо вузли, які більше нікуди не ведуть
+        for (int i = key.length(); i > 0 && path[i].isEmpty(); i--) {
+            path[i - 1].removeChild(key.charAt(i - 1));
+            this.nodes--;
+            this.edges--;
+        }
+    }
+
+    public List<ProductSuggestion> suggest(String prefix, int limit) {
+        String key = normalize(prefix);
+        Node node = this.root;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.child(key.charAt(i));
+        }
+        if (node == null) {
+            return List.of();
+        }
+
+        List<ProductSuggestion> suggestions = new ArrayList<>(Math.min(limit, 16));
+        Deque<Node> stack = new ArrayDeque<>();
+        stack.push(node);
+        // обхід в прямому порядку дає назви в лексикографічному порядку, коротші першими
+        while (!stack.isEmpty() && suggestions.size() < limit) {
+            Node current = stack.pop();
+            for (int i = 0; i < current.ids.length && suggestions.size() < limit; i++) {
+                suggestions.add(new ProductSuggestion(current.ids[i], current.titles[i]));
+            }
+            for (int i = current.children.length - 1; i >= 0; i--) {
+                stack.push(current.children[i]);
+            }
+        }
+        return suggestions;
+    }
+
+    private Node childOrCreate(Node node, char label) {
+        Node child = node.child(label);
+        if (child == null) {
+            child = new Node();
+            node.addChild(label, child);
+            this.nodes++;
+            this.edges++;
+        }
+        return child;
+    }
+
+    static String normalize(String title) {
+        return title.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Node {
+
+        private char[] labels = NO_LABELS;
+
+        private Node[] children = NO_CHILDREN;
+
+        private int[] ids = NO_IDS;
+
+        private String[] titles = NO_TITLES;
+
+        Node child(char label) {
+            int position = Arrays.binarySearch(this.labels, label);
+            return position >= 0 ? this.children[position] : null;
+        }
+
+        void addChild(char label, Node child) {
+            int insertion = -Arrays.binarySearch(this.labels, label) - 1;
+            char[] labels = new char[this.labels.length + 1];
+            Node[] children = new Node[this.children.length + 1];
+            System.arraycopy(this.labels, 0, labels, 0, insertion);
+            System.arraycopy(this.children, 0, children, 0, insertion);
+            labels[insertion] = label;
+            children[insertion] = child;
+            System.arraycopy(this.labels, insertion, labels, insertion + 1, this.labels.length - insertion);
+            System.arraycopy(this.children, insertion, children, insertion + 1, this.children.length - insertion);
+            this.labels = labels;
+            this.children = children;
+        }
+
+        void removeChild(char label) {
+            int position = Arrays.binarySearch(this.labels, label);
+            char[] labels = new char[this.labels.length - 1];
+            Node[] children = new Node[this.children.length - 1];
+            System.arraycopy(this.labels, 0, labels, 0, position);
+            System.arraycopy(this.children, 0, children, 0, position);
+            System.arraycopy(this.labels, position + 1, labels, position, labels.length - position);
+            System.arraycopy(this.children, position + 1, children, position, children.length - position);
+            this.labels = labels;
+            this.children = children;
+        }
+
+        void addEntry(int id, String title) {
+            this.ids = Arrays.copyOf(this.ids, this.ids.length + 1);
+            this.titles = Arrays.copyOf(this.titles, this.titles.length + 1);
+            this.ids[this.ids.length - 1] = id;
+            this.titles[this.titles.length - 1] = title;
+        }
+
+        String removeEntry(int id) {
+            for (int i = 0; i < this.ids.length; i++) {
+                if (this.ids[i] == id) {
+                    String title = this.titles[i];
+                    int[] ids = new int[this.ids.length - 1];
+                    String[] titles = new String[this.titles.length - 1];
+                    System.arraycopy(this.ids, 0, ids, 0, i);
+                    System.arraycopy(this.titles, 0, titles, 0, i);
+                    System.arraycopy(this.ids, i + 1, ids, i, ids.length - i);
+                    System.arraycopy(this.titles, i + 1, titles, i, titles.length - i);
+                    this.ids = ids.length == 0 ? NO_IDS : ids;
+                    this.titles = titles.length == 0 ? NO_TITLES : titles;
+                    return title;
+                }
+            }
+            throw new IllegalStateException("Product %d is not indexed".formatted(id));
+        }
+
+        boolean isEmpty() {
+            return this.ids.length == 0 && this.labels.length == 0;
+        }
+    }
+}
@@ -0,0 +1,377 @@
+package org.example.service.snapshot;
+
+import org.example.entity.Product;
+import org.example.service.ProductVersionsDigest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ Товари поза купою: записи лежать підряд у direct ByteBuffer-сегментах, а індекс - два відсортовані за id
+ масиви (id та адреса запису), тож мільйони товарів не створюють мільйонів об'єктів для GC.
+ Один ByteBuffer адресується int і не буває більшим за 2 ГБ, тому арена - це список сегментів до 1 ГБ,
+ а адреса запису - long: номер сегмента в старших бітах і зсув у ньому в молодших. Запис не перетинає межу сегмента.
+ Запис: id, версія, довжина назви, назва в UTF-8, довжина опису (-1 для null), опис в UTF-8.
+ Зміна товару дописує новий запис, старий стає сміттям; коли сміття більше половини, арена ущільнюється.
+ Не потокобезпечна, доступ синхронізує ProductSnapshot
+*/
+public class ProductArena {
+
+    private static final int HEADER_BYTES = 16;
+
+    private static final int MAX_SEGMENT_BYTES = 1 << 30;
+
+    private static final long COMPACTION_THRESHOLD_BYTES = 1 << 20;
+
+    private static final byte[] ID_PREFIX = "{\"id\":".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] TITLE_PREFIX = ",\"title\":\"".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] DETAILS_PREFIX = ",\"details\":".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] NULL = "null".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private final int initialCapacity;
+
+    private final int segmentBytes;
+
+    private final int segmentShift;
+
+    private List<ByteBuffer> segments = new ArrayList<>();
+
+    // зайнято в останньому сегменті
+    private int position;
+
+    private long used;
+
+    private long garbage;
+
+    private int[] ids = new int[1024];
+
+    private long[] addresses = new long[1024];
+
+    private int size;
+
+    private long modifications;
+
+    public ProductArena(int initialCapacity) {
+        this(initialCapacity, MAX_SEGMENT_BYTES);
+    }
+
+    // segmentBytes - степінь двійки, не більша за 1 ГБ; менші сегменти лише для тестів
+    ProductArena(int initialCapacity, int segmentBytes) {
+        if (Integer.bitCount(segmentBytes) != 1 || segmentBytes > MAX_SEGMENT_BYTES) {
+            throw new IllegalArgumentException("Segment size must be a power of two up to 1 GB: " + segmentBytes);
+        }
+        this.initialCapacity = Math.min(initialCapacity, segmentBytes);
+        this.segmentBytes = segmentBytes;
+        this.segmentShift = Integer.numberOfTrailingZeros(segmentBytes);
+        this.segments.add(ByteBuffer.allocateDirect(this.initialCapacity));
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public long capacity() {
+        long capacity = 0;
+        for (ByteBuffer segment : this.segments) {
+            capacity += segment.capacity();
+        }
+        return capacity;
+    }
+
+    public long modifications() {
+        return this.modifications;
+    }
+
+    /*
+     Версія, не новіша за збережену, пропускається: зміни з журналу приходять і після локальної події
+    */
+    public void put(Product product) {
+        int index = Arrays.binarySearch(this.ids, 0, this.size, product.getId());
+        if (index >= 0 && this.version(this.addresses[index]) >= product.getVersion()) {
+            return;
+        }
+
+        byte[] title = product.getTitle().getBytes(StandardCharsets.UTF_8);
+        byte[] details = product.getDetails() == null ? null : product.getDetails().getBytes(StandardCharsets.UTF_8);
+        int length = HEADER_BYTES + title.length + (details == null ? 0 : details.length);
+
+        long address = this.allocate(length);
+        ByteBuffer segment = this.segment(address);
+        int offset = offset(address, this.segmentBytes);
+        segment.putInt(offset, product.getId());
+        segment.putInt(offset + 4, product.getVersion());
+        segment.putInt(offset + 8, title.length);
+        segment.put(offset + 12, title);
+        segment.putInt(offset + 12 + title.length, details == null ? -1 : details.length);
+        if (details != null) {
+            segment.put(offset + HEADER_BYTES + title.length, details);
+        }
+
+        if (index >= 0) {
+            this.garbage += this.recordLength(this.addresses[index]);
+            this.addresses[index] = address;
+        } else {
+            this.insert(-index - 1, product.getId(), address);
+        }
+        this.modifications++;
+        this.compactIfNeeded();
+    }
+
+    public void remove(int productId) {
+        int index = Arrays.binarySearch(this.ids, 0, this.size, productId);
+        if (index < 0) {
+            return;
+        }
+        this.garbage += this.recordLength(this.addresses[index]);
+        System.arraycopy(this.ids, index + 1, this.ids, index, this.size - index - 1);
+        System.arraycopy(this.addresses, index + 1, this.addresses, index, this.size - index - 1);
+        this.size--;
+        this.modifications++;
+        this.compactIfNeeded();
+    }
+
+    public Product get(int productId) {
+        int index = Arrays.binarySearch(this.ids, 0, this.size, productId);
+        return index < 0 ? null : this.decode(this.addresses[index]);
+    }
+
+    /*
+     Наступні після afterId товари, не більше limit
+    */
+    public List<Product> page(int afterId, int limit) {
+        List<Product> products = new ArrayList<>(Math.min(limit, this.size));
+        for (int index = this.indexAfter(afterId); index < this.size && products.size() < limit; index++) {
+            products.add(this.decode(this.addresses[index]));
+        }
+        return products;
+    }
+
+    /*
+     JSON наступних після afterId товарів (не більше limit) кодується просто з байтів арени, без String і Jackson.
+     Повертає id останнього записаного товару або -1, якщо товарів після afterId немає
+    */
+    public int writeJson(int afterId, int limit, JsonBuffer out) {
+        int lastId = -1;
+        int end = (int) Math.min(this.size, (long) this.indexAfter(afterId) + limit);
+        for (int index = this.indexAfter(afterId); index < end; index++) {
+            ByteBuffer segment = this.segment(this.addresses[index]);
+            int offset = offset(this.addresses[index], this.segmentBytes);
+            out.beginElement();
+            out.write(ID_PREFIX);
+            out.writeInt(segment.getInt(offset));
+            out.write(TITLE_PREFIX);
+            int titleLength = segment.getInt(offset + 8);
+            writeEscaped(segment, offset + 12, titleLength, out);
+            out.write('"');
+            out.write(DETAILS_PREFIX);
+            int detailsLength = segment.getInt(offset + 12 + titleLength);
+            if (detailsLength < 0) {
+                out.write(NULL);
+            } else {
+                out.write('"');
+                writeEscaped(segment, offset + HEADER_BYTES + titleLength, detailsLength, out);
+                out.write('"');
+            }
+            out.write('}');
+            lastId = this.ids[index];
+        }
+        return lastId;
+    }
+
+    // той самий дайджест, що й ProductETags.of(Iterable) для списку в порядку id
+    public String versionsDigest() {
+        ProductVersionsDigest digest = new ProductVersionsDigest();
+        for (int index = 0; index < this.size; index++) {
+            digest.add(this.ids[index], this.version(this.addresses[index]));
+        }
+        return digest.hex();
+    }
+
+    private int indexAfter(int afterId) {
+        int index = Arrays.binarySearch(this.ids, 0, this.size, afterId);
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+
+    private ByteBuffer segment(long address) {
+        return this.segments.get((int) (address >>> this.segmentShift));
+    }
+
+    private static int offset(long address, int segmentBytes) {
+        return (int) (address & (segmentBytes - 1));
+    }
+
+    private int version(long address) {
+        return this.segment(address).getInt(offset(address, this.segmentBytes) + 4);
+    }
+
+    private Product decode(long address) {
+        ByteBuffer segment = this.segment(address);
+        int offset = offset(address, this.segmentBytes);
+        int titleLength = segment.getInt(offset + 8);
+        int detailsLength = segment.getInt(offset + 12 + titleLength);
+        return new Product(segment.getInt(offset), string(segment, offset + 12, titleLength),
+                detailsLength < 0 ? null : string(segment, offset + HEADER_BYTES + titleLength, detailsLength),
+                segment.getInt(offset + 4));
+    }
+
+    private static String string(ByteBuffer segment, int offset, int length) {
+        byte[] bytes = new byte[length];
+        segment.get(offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /*
+     Екрануються лише лапки, зворотна коса риска та керуючі символи; байти багатобайтових символів UTF-8
+     завжди >= 0x80 і копіюються як є
+    */
+    private static void writeEscaped(ByteBuffer segment, int offset, int length, JsonBuffer out) {
+        for (int position = offset; position < offset + length; position++) {
+            byte value = segment.get(position);
+            if (value == '"' || value == '\\') {
+                out.write('\\');
+                out.write(value);
+            } else if (value >= 0 && value < 0x20) {
+                switch (value) {
+                    case '\n' -> out.write('\\', 'n');
+                    case '\r' -> out.write('\\', 'r');
+                    case '\t' -> out.write('\\', 't');
+                    case '\b' -> out.write('\\', 'b');
+                    case '\f' -> out.write('\\', 'f');
+                    default -> {
+                        out.write(new byte[]{'\\', 'u', '0', '0'});
+                        out.write(HEX[value >> 4]);
+                        out.write(HEX[value & 0xF]);
+                    }
+                }
+            } else {
+                out.write(value);
+            }
+        }
+    }
+
+    private int recordLength(long address) {
+        ByteBuffer segment = this.segment(address);
+        int offset = offset(address, this.segmentBytes);
+        int titleLength = segment.getInt(offset + 8);
+        int detailsLength = segment.getInt(offset + 12 + titleLength);
+        return HEADER_BYTES + titleLength + Math.max(detailsLength, 0);
+    }
+
+    private void insert(int index, int productId, long address) {
+        if (this.size == this.ids.length) {
+            this.ids = Arrays.copyOf(this.ids, this.size * 2);
+            this.addresses = Arrays.copyOf(this.addresses, this.size * 2);
+        }
+        // id нових товарів зазвичай більші за наявні, тож це додавання в кінець
+        System.arraycopy(this.ids, index, this.ids, index + 1, this.size - index);
+        System.arraycopy(this.addresses, index, this.addresses, index + 1, this.size - index);
+        this.ids[index] = productId;
+        this.addresses[index] = address;
+        this.size++;
+    }
+
+    /*
+     Місце під запис в останньому сегменті. Сегмент, менший за максимальний, росте вдвічі з копіюванням,
+     повний максимальний лишається як є, а запис іде в новий сегмент
+    */
+    private long allocate(int length) {
+        ByteBuffer last = this.segments.get(this.segments.size() - 1);
+        if (last.capacity() - this.position < length) {
+            long required = (long) this.position + length;
+            if (last.capacity() < this.segmentBytes && required <= this.segmentBytes) {
+                int capacity = (int) Math.min(this.segmentBytes, Math.max(required, last.capacity() * 2L));
+                ByteBuffer grown = ByteBuffer.allocateDirect(capacity);
+                grown.put(0, last, 0, this.position);
+                this.segments.set(this.segments.size() - 1, grown);
+            } else {
+                this.segments.add(ByteBuffer.allocateDirect(Math.max(length, this.initialCapacity)));
+                this.position = 0;
+            }
+        }
+        long address = ((long) (this.segments.size() - 1) << this.segmentShift) | this.position;
+        this.position += length;
+        this.used += length;
+        return address;
+    }
+
+    // живі записи переписуються в порядку id у нові сегменти
+    private void compactIfNeeded() {
+        if (this.garbage < COMPACTION_THRESHOLD_BYTES || this.garbage * 2 < this.used) {
+            return;
+        }
+        long live = this.used - this.garbage;
+        List<ByteBuffer> old = this.segments;
+        this.segments = new ArrayList<>();
+        this.segments.add(ByteBuffer.allocateDirect(
+                (int) Math.min(this.segmentBytes, Math.max(live * 2, this.initialCapacity))));
+        this.position = 0;
+        this.used = 0;
+        this.garbage = 0;
+        for (int index = 0; index < this.size; index++) {
+            ByteBuffer from = old.get((int) (this.addresses[index] >>> this.segmentShift));
+            int fromOffset = offset(this.addresses[index], this.segmentBytes);
+            int titleLength = from.getInt(fromOffset + 8);
+            int length = HEADER_BYTES + titleLength + Math.max(from.getInt(fromOffset + 12 + titleLength), 0);
+            long address = this.allocate(length);
+            this.segment(address).put(offset(address, this.segmentBytes), from, fromOffset, length);
+            this.addresses[index] = address;
+        }
+    }
+
+    /*
+     Буфер на купі для однієї порції JSON, який перевикористовується між порціями
+    */
+    public static class JsonBuffer {
+
+        private byte[] bytes = new byte[64 * 1024];
+
+        private int length;
+
+        private int elements;
+
+        void beginElement() {
+            if (this.elements++ > 0) {
+                this.write(',');
+            }
+        }
+
+        public void write(int value) {
+            if (this.length == this.bytes.length) {
+                this.bytes = Arrays.copyOf(this.bytes, this.bytes.length * 2);
+            }
+            this.bytes[this.length++] = (byte) value;
+        }
+
+        void write(int first, int second) {
+            this.write(first);
+            this.write(second);
+        }
+
+        void write(byte[] values) {
+            if (this.length + values.length > this.bytes.length) {
+                this.bytes = Arrays.copyOf(this.bytes, Math.max(this.bytes.length * 2, this.length + values.length));
+            }
+            System.arraycopy(values, 0, this.bytes, this.length, values.length);
+            this.length += values.length;
+        }
+
+        void writeInt(int value) {
+            this.write(Integer.toString(value).getBytes(StandardCharsets.US_ASCII));
+        }
+
+        public void flushTo(OutputStream out) throws IOException {
+            out.write(this.bytes, 0, this.length);
+            this.length = 0;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package org.example.service.snapshot;
+
+import org.example.entity.Product;
+import org.example.repository.ProductChangeRepository;
+import org.example.repository.ProductRepository;
+import org.example.service.search.InMemoryProductIndex;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+
+/*
+ Копія всього каталогу поза купою для вузлів, що здебільшого читають.
+ Як і інші структури в пам'яті, знімок застосовує журнал змін, тож бачить і записи інших вузлів, і імпорти.
+ Списки віддаються порціями під коротким блокуванням на читання, щоб не затримувати записи
+*/
+public class ProductSnapshot extends InMemoryProductIndex<ProductArena> {
+
+    private static final int PAGE_SIZE = 1000;
+
+    private final int initialCapacity;
+
+    private volatile CachedVersions cachedVersions;
+
+    public ProductSnapshot(ProductRepository productRepository, ProductChangeRepository productChangeRepository,
+                           boolean enabled, int initialCapacity, Duration pollInterval) {
+        super(productRepository, productChangeRepository, enabled, pollInterval);
+        this.initialCapacity = initialCapacity;
+    }
+
+    public Optional<Product> find(int productId) {
+        return this.read(arena -> Optional.ofNullable(arena.get(productId)));
+    }
+
+    // товари декодуються з арени посторінково під час обходу
+    public Iterable<Product> findAll() {
+        return () -> new Iterator<>() {
+
+            private Iterator<Product> page = Collections.emptyIterator();
+
+            private int lastId = Integer.MIN_VALUE;
+
+            private boolean exhausted;
+
+            @Override
+            public boolean hasNext() {
+                while (!this.page.hasNext() && !this.exhausted) {
+                    int afterId = this.lastId;
+                    List<Product> products = ProductSnapshot.this.read(arena -> arena.page(afterId, PAGE_SIZE));
+                    this.exhausted = products.size() < PAGE_SIZE;
+                    if (!products.isEmpty()) {
+                        this.lastId = products.get(products.size() - 1).getId();
+                    }
+                    this.page = products.iterator();
+                }
+                return this.page.hasNext();
+            }
+
+            @Override
+            public Product next() {
+                if (!this.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return this.page.next();
+            }
+        };
+    }
+
+    /*
+     JSON-масив усіх товарів у порядку id, закодований просто з байтів арени.
+     У вихідний потік пишеться поза блокуванням
+    */
+    public void writeJsonArray(OutputStream out) throws IOException {
+        ProductArena.JsonBuffer buffer = new ProductArena.JsonBuffer();
+        buffer.write('[');
+        int lastId = Integer.MIN_VALUE;
+        while (true) {
+            int afterId = lastId;
+            lastId = this.read(arena -> arena.writeJson(afterId, PAGE_SIZE, buffer));
+            buffer.flushTo(out);
+            if (lastId < 0) {
+                break;
+            }
+        }
+        buffer.write(']');
+        buffer.flushTo(out);
+    }
+
+    // перераховується лише після змін арени
+    public Versions versions() {
+        return this.read(arena -> {
+            CachedVersions cached = this.cachedVersions;
+            if (cached != null && cached.arena() == arena && cached.modifications() == arena.modifications()) {
+                return cached.versions();
+            }
+            Versions versions = new Versions(arena.size(), arena.versionsDigest());
+            this.cachedVersions = new CachedVersions(arena, arena.modifications(), versions);
+            return versions;
+        });
+    }
+
+    public long size() {
+        return this.isReady() ? this.read(ProductArena::size) : 0;
+    }
+
+    public long memoryBytes() {
+        return this.isReady() ? this.read(ProductArena::capacity) : 0;
+    }
+
+    @Override
+    protected String name() {
+        return "product-snapshot";
+    }
+
+    @Override
+    protected ProductArena createStructure() {
+        return new ProductArena(this.initialCapacity);
+    }
+
+    @Override
+    protected void put(ProductArena arena, Product product) {
+        arena.put(product);
+    }
+
+    @Override
+    protected void remove(ProductArena arena, int productId) {
+        arena.remove(productId);
+    }
+
+    // кількість товарів і дайджест їхніх id та версій, з яких контролер складає ETag списку
+    public record Versions(int size, String digest) {
+    }
+
+    private record CachedVersions(ProductArena arena, long modifications, Versions versions) {
+    }
+}
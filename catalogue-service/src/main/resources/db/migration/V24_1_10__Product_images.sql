@@ -0,0 +1,11 @@
+-- Файли зображень лежать на диску за SHA-256 вмісту, таблиця лише пов'язує їх з товарами.
+-- Мініатюра генерується під час завантаження і зберігається окремим варіантом
+CREATE TABLE IF NOT EXISTS catalogue.t_product_image (
+    c_product_id   INTEGER     NOT NULL REFERENCES catalogue.t_product (id) ON DELETE CASCADE,
+    c_variant      VARCHAR(9)  NOT NULL CHECK (c_variant IN ('ORIGINAL', 'THUMBNAIL')),
+    c_hash         CHAR(64)    NOT NULL,
+    c_content_type VARCHAR(32) NOT NULL,
+    c_size         BIGINT      NOT NULL,
+    c_uploaded_at  TIMESTAMPTZ NOT NULL DEFAULT now(),
+    PRIMARY KEY (c_product_id, c_variant)
+);
@@ -0,0 +1,3 @@
+-- для стиснення журналу (новіший запис того самого товару) і заповнення V24_1_12 (чи є у товару запис).
+-- CONCURRENTLY не блокує запис у журнал, тому Flyway виконує цю міграцію поза транзакцією
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_product_change_product_id ON catalogue.t_product_change (c_product_id, id);
@@ -0,0 +1 @@
+CREATE INDEX IF NOT EXISTS idx_product_title_id ON catalogue.t_product (c_title, id);
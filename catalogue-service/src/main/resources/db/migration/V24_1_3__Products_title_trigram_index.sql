@@ -0,0 +1,4 @@
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- gin_trgm_ops індексує триграми в нижньому регістрі, тому індекс обслуговує ILIKE '%...%' без lower()
+CREATE INDEX IF NOT EXISTS idx_product_title_trgm ON catalogue.t_product USING gin (c_title gin_trgm_ops);
@@ -0,0 +1,3 @@
+-- Hibernate резервує id блоками по 50 (pooled-lo), тому вставки можна батчити.
+-- Вставки напряму через SQL отримують кожну 50-ту позицію і не перетинаються з блоками Hibernate
+ALTER SEQUENCE catalogue.t_product_id_seq INCREMENT BY 50;
@@ -0,0 +1 @@
+ALTER TABLE catalogue.t_product ADD COLUMN IF NOT EXISTS c_version INTEGER NOT NULL DEFAULT 0;
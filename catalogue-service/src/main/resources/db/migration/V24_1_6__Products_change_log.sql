@@ -0,0 +1,11 @@
+CREATE TABLE IF NOT EXISTS catalogue.t_product_change (
+    id           BIGSERIAL PRIMARY KEY,
+    c_product_id INTEGER     NOT NULL,
+    c_type       VARCHAR(7)  NOT NULL CHECK (c_type IN ('CREATED', 'UPDATED', 'DELETED')),
+    c_title      VARCHAR(50),
+    c_details    VARCHAR(1000),
+    c_version    INTEGER,
+    c_changed_at TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+
+-- наявні товари потрапляють у журнал пакетами в V24_1_12, а не однією транзакцією тут
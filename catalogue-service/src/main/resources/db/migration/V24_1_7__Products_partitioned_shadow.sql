@@ -0,0 +1,43 @@
+-- Перехід t_product на hash-секціонування за id у три кроки, без зупинки запису:
+-- 1) секціонована таблиця-тінь, яку тригер синхронізує з t_product при кожній зміні;
+-- 2) V24_1_8 переносить наявні рядки пакетами, кожен пакет у власній транзакції;
+-- 3) V24_1_9 під коротким ексклюзивним блокуванням підміняє t_product тінню
+CREATE TABLE IF NOT EXISTS catalogue.t_product_partitioned (
+    id        INTEGER       NOT NULL DEFAULT nextval('catalogue.t_product_id_seq'),
+    c_title   VARCHAR(50)   NOT NULL CHECK (LENGTH(TRIM(c_title)) >= 3),
+    c_details VARCHAR(1000),
+    c_version INTEGER       NOT NULL DEFAULT 0,
+    CONSTRAINT t_product_partitioned_pkey PRIMARY KEY (id)
+) PARTITION BY HASH (id);
+
+DO $$
+BEGIN
+    FOR remainder IN 0..15 LOOP
+        EXECUTE format('CREATE TABLE IF NOT EXISTS catalogue.t_product_p%s PARTITION OF catalogue.t_product_partitioned '
+                           || 'FOR VALUES WITH (MODULUS 16, REMAINDER %s)', lpad(remainder::text, 2, '0'), remainder);
+    END LOOP;
+END
+$$;
+
+CREATE INDEX IF NOT EXISTS idx_product_partitioned_title_id ON catalogue.t_product_partitioned (c_title, id);
+CREATE INDEX IF NOT EXISTS idx_product_partitioned_title_trgm ON catalogue.t_product_partitioned
+    USING gin (c_title gin_trgm_ops);
+
+CREATE OR REPLACE FUNCTION catalogue.f_product_sync_partitioned() RETURNS TRIGGER AS $$
+BEGIN
+    IF TG_OP = 'DELETE' THEN
+        DELETE FROM catalogue.t_product_partitioned WHERE id = OLD.id;
+        RETURN OLD;
+    END IF;
+    INSERT INTO catalogue.t_product_partitioned (id, c_title, c_details, c_version)
+    VALUES (NEW.id, NEW.c_title, NEW.c_details, NEW.c_version)
+    ON CONFLICT (id) DO UPDATE SET c_title   = EXCLUDED.c_title,
+                                   c_details = EXCLUDED.c_details,
+                                   c_version = EXCLUDED.c_version;
+    RETURN NEW;
+END
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_product_sync_partitioned
+    AFTER INSERT OR UPDATE OR DELETE ON catalogue.t_product
+    FOR EACH ROW EXECUTE FUNCTION catalogue.f_product_sync_partitioned();
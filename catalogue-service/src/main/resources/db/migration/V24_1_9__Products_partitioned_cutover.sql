@@ -0,0 +1,17 @@
+-- Тінь уже містить усі рядки (перенесені V24_1_8 або записані тригером), тож підміна - це лише перейменування.
+-- Послідовність належала старій таблиці (SERIAL) і видалилась би разом з нею
+LOCK TABLE catalogue.t_product IN ACCESS EXCLUSIVE MODE;
+
+DROP TRIGGER trg_product_sync_partitioned ON catalogue.t_product;
+DROP FUNCTION catalogue.f_product_sync_partitioned();
+
+ALTER SEQUENCE catalogue.t_product_id_seq OWNED BY NONE;
+DROP TABLE catalogue.t_product;
+
+ALTER TABLE catalogue.t_product_partitioned RENAME TO t_product;
+ALTER TABLE catalogue.t_product RENAME CONSTRAINT t_product_partitioned_pkey TO t_product_pkey;
+ALTER INDEX catalogue.idx_product_partitioned_title_id RENAME TO idx_product_title_id;
+ALTER INDEX catalogue.idx_product_partitioned_title_trgm RENAME TO idx_product_title_trgm;
+ALTER SEQUENCE catalogue.t_product_id_seq OWNED BY catalogue.t_product.id;
+
+ANALYZE catalogue.t_product;
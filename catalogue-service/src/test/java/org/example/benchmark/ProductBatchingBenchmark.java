@@ -0,0 +1,117 @@
+package org.example.benchmark;
+
+import org.example.repository.ProductRepository;
+import org.example.service.batching.ProductBatchLoader;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ Звернення до бази за секунду і p99 затримки findProduct з пакетуванням і без нього, 64 потоки, випадкові id.
+ mvn test -Dtest=ProductBatchingBenchmark -Dbenchmark=true
+*/
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("Бенчмарк пакетування findProduct")
+class ProductBatchingBenchmark {
+
+    private static final int PRODUCTS = 10_000;
+
+    private static final int THREADS = 64;
+
+    private static final Duration DURATION = Duration.ofSeconds(10);
+
+    @Autowired
+    ProductRepository productRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void findProduct_64ConcurrentCallers_BatchingReducesRoundTrips() throws Exception {
+        //given
+        List<Integer> ids = this.jdbcTemplate.queryForList("""
+                insert into catalogue.t_product(c_title, c_details)
+                select 'Product ' || i, 'Description ' || i from generate_series(1, ?) i
+                returning id""", Integer.class, PRODUCTS);
+        int minId = ids.stream().mapToInt(Integer::intValue).min().orElseThrow();
+        int maxId = ids.stream().mapToInt(Integer::intValue).max().orElseThrow();
+
+        try {
+            //when
+            LongAdder queries = new LongAdder();
+            Result direct = run(minId, maxId, id -> {
+                this.productRepository.findById(id);
+                queries.increment();
+            });
+            Result batched;
+            try (var loader = new ProductBatchLoader(this.productRepository, true, Duration.ofMillis(2), 100, 4)) {
+                batched = run(minId, maxId, loader::load);
+                queries.reset();
+                queries.add(loader.batches());
+            }
+
+            //then
+            System.out.printf("findById:      %,d calls/s, %,d queries/s, p99 %.2f ms%n",
+                    direct.callsPerSecond(), direct.callsPerSecond(), direct.p99Millis());
+            System.out.printf("batch loader:  %,d calls/s, %,d queries/s, p99 %.2f ms%n",
+                    batched.callsPerSecond(), queries.sum() / DURATION.toSeconds(), batched.p99Millis());
+            assertTrue(queries.sum() / DURATION.toSeconds() < direct.callsPerSecond());
+        } finally {
+            this.jdbcTemplate.update("delete from catalogue.t_product where id = any(?)",
+                    (Object) ids.toArray(Integer[]::new));
+        }
+    }
+
+    private static Result run(int minId, int maxId, IntConsumer findProduct) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        long deadline = System.nanoTime() + DURATION.toNanos();
+        List<Future<long[]>> workers = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            workers.add(executor.submit(() -> {
+                long[] latencies = new long[1 << 16];
+                int count = 0;
+                while (System.nanoTime() < deadline) {
+                    long startedAt = System.nanoTime();
+                    findProduct.accept(ThreadLocalRandom.current().nextInt(minId, maxId + 1));
+                    if (count == latencies.length) {
+                        latencies = Arrays.copyOf(latencies, count * 2);
+                    }
+                    latencies[count++] = System.nanoTime() - startedAt;
+                }
+                return Arrays.copyOf(latencies, count);
+            }));
+        }
+        long[] all = new long[0];
+        for (Future<long[]> worker : workers) {
+            long[] latencies = worker.get();
+            int offset = all.length;
+            all = Arrays.copyOf(all, offset + latencies.length);
+            System.arraycopy(latencies, 0, all, offset, latencies.length);
+        }
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+        Arrays.sort(all);
+        return new Result(all.length / DURATION.toSeconds(), all[(int) (all.length * 0.99)] / 1_000_000.0);
+    }
+
+    private record Result(long callsPerSecond, double p99Millis) {
+    }
+}
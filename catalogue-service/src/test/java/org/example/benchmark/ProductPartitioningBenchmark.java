@@ -0,0 +1,130 @@
+package org.example.benchmark;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ Пропускна здатність запису і читання за id: секціонована t_product проти звичайної таблиці з тими самими
+ індексами, обидві заповнені однаковою кількістю рядків.
+ mvn test -Dtest=ProductPartitioningBenchmark -Dbenchmark=true -Dbenchmark.products=10000000
+*/
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("Бенчмарк секціонованої t_product")
+class ProductPartitioningBenchmark {
+
+    private static final int PRODUCTS = Integer.getInteger("benchmark.products", 2_000_000);
+
+    private static final int THREADS = 16;
+
+    private static final Duration DURATION = Duration.ofSeconds(15);
+
+    private static final String HEAP_TABLE = "catalogue.t_product_heap_benchmark";
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    int minId;
+
+    int maxId;
+
+    @BeforeEach
+    void setUp() {
+        this.minId = this.jdbcTemplate.queryForObject("select nextval('catalogue.t_product_id_seq')",
+                Integer.class);
+        this.jdbcTemplate.update("""
+                insert into catalogue.t_product (id, c_title, c_details)
+                select ? + g, 'Product ' || g, 'Description of product ' || g
+                from generate_series(1, ?) g""", this.minId, PRODUCTS);
+        this.maxId = this.minId + PRODUCTS;
+        // наступні вставки не повинні перетнутися з засіяними id
+        this.jdbcTemplate.queryForObject("select setval('catalogue.t_product_id_seq', ?)", Long.class,
+                (long) this.maxId + 1);
+
+        this.jdbcTemplate.execute("""
+                create table %s (
+                    id        integer       primary key default nextval('catalogue.t_product_id_seq'),
+                    c_title   varchar(50)   not null check (length(trim(c_title)) >= 3),
+                    c_details varchar(1000),
+                    c_version integer       not null default 0
+                )""".formatted(HEAP_TABLE));
+        this.jdbcTemplate.execute("create index on %s (c_title, id)".formatted(HEAP_TABLE));
+        this.jdbcTemplate.execute("create index on %s using gin (c_title gin_trgm_ops)".formatted(HEAP_TABLE));
+        this.jdbcTemplate.update("insert into %s select * from catalogue.t_product where id between ? and ?"
+                .formatted(HEAP_TABLE), this.minId, this.maxId);
+        this.jdbcTemplate.execute("analyze catalogue.t_product");
+        this.jdbcTemplate.execute("analyze " + HEAP_TABLE);
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.jdbcTemplate.execute("drop table if exists " + HEAP_TABLE);
+        this.jdbcTemplate.update("delete from catalogue.t_product where id >= ?", this.minId);
+    }
+
+    @Test
+    void partitionedTable_WriteAndReadThroughput() throws Exception {
+        //when
+        long heapWrites = run(HEAP_TABLE, true);
+        long partitionedWrites = run("catalogue.t_product", true);
+        long heapReads = run(HEAP_TABLE, false);
+        long partitionedReads = run("catalogue.t_product", false);
+
+        //then
+        System.out.printf("%,d products, %d threads%n", PRODUCTS, THREADS);
+        System.out.printf("writes/s: heap %,d, partitioned %,d%n", heapWrites, partitionedWrites);
+        System.out.printf("reads/s:  heap %,d, partitioned %,d%n", heapReads, partitionedReads);
+        assertTrue(partitionedWrites > 0 && partitionedReads > 0);
+    }
+
+    /*
+     Запис - суміш вставок і оновлень за випадковим id, читання - вибірка за випадковим id
+    */
+    private long run(String table, boolean writes) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        long deadline = System.nanoTime() + DURATION.toNanos();
+        List<Future<Long>> workers = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            workers.add(executor.submit(() -> {
+                long operations = 0;
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline) {
+                    int id = random.nextInt(this.minId + 1, this.maxId + 1);
+                    if (!writes) {
+                        this.jdbcTemplate.queryForList("select * from %s where id = ?".formatted(table), id);
+                    } else if (random.nextBoolean()) {
+                        this.jdbcTemplate.update("insert into %s (c_title, c_details) values (?, ?)"
+                                .formatted(table), "Product " + id, "Benchmark");
+                    } else {
+                        this.jdbcTemplate.update("update %s set c_details = ?, c_version = c_version + 1 where id = ?"
+                                .formatted(table), "Updated", id);
+                    }
+                    operations++;
+                }
+                return operations;
+            }));
+        }
+        long operations = 0;
+        for (Future<Long> worker : workers) {
+            operations += worker.get();
+        }
+        executor.shutdown();
+        return operations / DURATION.toSeconds();
+    }
+}
@@ -0,0 +1,121 @@
+package org.example.benchmark;
+
+import org.example.repository.JdbcProductReader;
+import org.example.repository.ProductReader;
+import org.example.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ Затримка і виділена пам'ять на один виклик: ProductRepository (JPA) проти JdbcProductReader,
+ список зі 1000 товарів і окремий товар за id. Виділення рахує com.sun.management.ThreadMXBean.
+ mvn test -Dtest=ProductReadPathBenchmark -Dbenchmark=true
+*/
+@SpringBootTest
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("Бенчмарк читання товарів через JPA і JdbcClient")
+class ProductReadPathBenchmark {
+
+    private static final int PRODUCTS = 1_000;
+
+    private static final int WARMUP = 2_000;
+
+    private static final int ITERATIONS = 10_000;
+
+    @Autowired
+    ProductRepository productRepository;
+
+    @Autowired
+    DataSource dataSource;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    JdbcProductReader jdbcProductReader;
+
+    List<Integer> ids;
+
+    @BeforeEach
+    void setUp() {
+        this.jdbcProductReader = new JdbcProductReader(JdbcClient.create(this.dataSource),
+                new TransactionTemplate(new DataSourceTransactionManager(this.dataSource)));
+        this.ids = this.jdbcTemplate.queryForList("""
+                insert into catalogue.t_product (c_title, c_details)
+                select 'Benchmark product ' || g, 'Description of product ' || g
+                from generate_series(1, ?) g
+                returning id""", Integer.class, PRODUCTS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.jdbcTemplate.update("delete from catalogue.t_product where id = any(?)",
+                (Object) this.ids.toArray(Integer[]::new));
+    }
+
+    @Test
+    void readPaths_ListAndSingleReads() {
+        //when
+        Result jpaList = measure(this.productRepository, reader ->
+                reader.findAllByTitleLikeIgnoreCase("benchmark product%").forEach(product -> { }), 100);
+        Result jdbcList = measure(this.jdbcProductReader, reader ->
+                reader.findAllByTitleLikeIgnoreCase("benchmark product%").forEach(product -> { }), 100);
+        Result jpaSingle = measure(this.productRepository, this::findRandom, 1);
+        Result jdbcSingle = measure(this.jdbcProductReader, this::findRandom, 1);
+
+        //then
+        System.out.printf("list of %d:  JPA %s%n             JDBC %s%n", PRODUCTS, jpaList, jdbcList);
+        System.out.printf("single:       JPA %s%n             JDBC %s%n", jpaSingle, jdbcSingle);
+        assertTrue(jdbcList.bytesPerCall() < jpaList.bytesPerCall());
+    }
+
+    private void findRandom(ProductReader reader) {
+        reader.findById(this.ids.get(ThreadLocalRandom.current().nextInt(PRODUCTS))).orElseThrow();
+    }
+
+    // списки повільніші на два порядки, тож ітерацій менше
+    private static Result measure(ProductReader reader, Consumer<ProductReader> call, int divisor) {
+        var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (int i = 0; i < WARMUP / divisor; i++) {
+            call.accept(reader);
+        }
+        int iterations = ITERATIONS / divisor;
+        long[] latencies = new long[iterations];
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < iterations; i++) {
+            long startedAt = System.nanoTime();
+            call.accept(reader);
+            latencies[i] = System.nanoTime() - startedAt;
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        Arrays.sort(latencies);
+        return new Result(latencies[iterations / 2] / 1000.0, latencies[(int) (iterations * 0.99)] / 1000.0,
+                allocated / iterations);
+    }
+
+    private record Result(double p50Micros, double p99Micros, long bytesPerCall) {
+
+        @Override
+        public String toString() {
+            return "p50 %.1f us, p99 %.1f us, %,d bytes/call".formatted(this.p50Micros, this.p99Micros,
+                    this.bytesPerCall);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package org.example.benchmark;
+
+import jakarta.transaction.Transactional;
+import org.example.entity.Product;
+import org.example.repository.ProductRepository;
+import org.example.service.search.NGramIndex;
+import org.example.service.search.ProductSearchRanking;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/*
+ Порівняння пошуку через ILIKE з триграмним індексом та через NGramIndex в пам'яті.
+ Запускається окремо, бо наповнення бази на 10M товарів займає кілька хвилин:
+ mvn test -Dtest=ProductSearchBenchmark -Dbenchmark=true -DargLine=-Xmx8g
+*/
+@DataJpaTest
+@Transactional
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("Бенчмарк пошуку товарів: SQL ILIKE проти NGramIndex")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class ProductSearchBenchmark {
+
+    private static final List<String> QUERIES = List.of("a1b", "product 4242", "9f0", "ab", "zz99", "product 1");
+
+    private static final int ITERATIONS = 20;
+
+    @Autowired
+    ProductRepository productRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @ParameterizedTest
+    @ValueSource(ints = {100_000, 1_000_000, 10_000_000})
+    void search(int products) {
+        this.jdbcTemplate.update("""
+                insert into catalogue.t_product (c_title, c_details)
+                select 'Product ' || g || ' ' || substr(md5(g::text), 1, 8), 'Description ' || md5(g::text)
+                from generate_series(1, ?) g""", products);
+        this.jdbcTemplate.execute("analyze catalogue.t_product");
+
+        long buildStartedAt = System.nanoTime();
+        NGramIndex index = new NGramIndex();
+        this.jdbcTemplate.query("select id, c_title, c_details from catalogue.t_product",
+                resultSet -> {
+                    index.put(new Product(resultSet.getInt(1), resultSet.getString(2), resultSet.getString(3)));
+                });
+        long buildMillis = (System.nanoTime() - buildStartedAt) / 1_000_000;
+
+        for (String query : QUERIES) {
+            long[] sql = measure(filter -> this.productRepository.findAllByTitleLikeIgnoreCase("%" + filter + "%")
+                    .forEach(product -> { }), query);
+            long[] memory = measure(filter -> index.search(filter, ProductSearchRanking.ID, Integer.MAX_VALUE),
+                    query);
+            System.out.printf("%,d products, query \"%s\": SQL p50=%d us p99=%d us, index p50=%d us p99=%d us%n",
+                    products, query, sql[0], sql[1], memory[0], memory[1]);
+        }
+        System.out.printf("%,d products: index built in %d ms%n", products, buildMillis);
+    }
+
+    private static long[] measure(Consumer<String> search, String query) {
+        // прогрів
+        search.accept(query);
+
+        long[] durations = new long[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            long startedAt = System.nanoTime();
+            search.accept(query);
+            durations[i] = (System.nanoTime() - startedAt) / 1_000;
+        }
+        Arrays.sort(durations);
+        return new long[]{durations[ITERATIONS / 2], durations[ITERATIONS * 99 / 100]};
+    }
+}
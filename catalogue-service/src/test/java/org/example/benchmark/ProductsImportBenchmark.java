@@ -0,0 +1,113 @@
+package org.example.benchmark;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.transaction.Transactional;
+import org.example.config.controller.ProductsRestController;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ Імпорт 1M товарів з CSV, який генерується на льоту, з малою купою: файл не має опинитися в пам'яті.
+ mvn test -Dtest=ProductsImportBenchmark -Dbenchmark=true -DargLine=-Xmx128m
+*/
+@SpringBootTest
+@Transactional
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("Бенчмарк імпорту товарів з CSV")
+class ProductsImportBenchmark {
+
+    private static final int PRODUCTS = 1_000_000;
+
+    @Autowired
+    ProductsRestController productsRestController;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void importProducts_1MRows_ImportsUnderMinute() throws Exception {
+        //given
+        long before = this.jdbcTemplate.queryForObject("select count(*) from catalogue.t_product", Long.class);
+        var request = new GeneratingRequest();
+        var response = new MockHttpServletResponse();
+
+        //when
+        long startedAt = System.nanoTime();
+        this.productsRestController.importProducts(request, response, Locale.ENGLISH);
+        long millis = (System.nanoTime() - startedAt) / 1_000_000;
+
+        //then
+        assertEquals("{\"imported\":%d,\"rejected\":0}".formatted(PRODUCTS), response.getContentAsString());
+        assertEquals(before + PRODUCTS, this.jdbcTemplate.queryForObject("select count(*) from catalogue.t_product",
+                Long.class));
+        Runtime runtime = Runtime.getRuntime();
+        System.out.printf("%,d products imported in %d ms, heap used %d MB of %d MB%n", PRODUCTS, millis,
+                (runtime.totalMemory() - runtime.freeMemory()) >> 20, runtime.maxMemory() >> 20);
+        assertTrue(millis < 60_000);
+    }
+
+    /*
+     Тіло запиту генерується по рядку, MockHttpServletRequest.setContent тримав би весь файл
+    */
+    private static class GeneratingRequest extends MockHttpServletRequest {
+
+        private final ServletInputStream inputStream = new ServletInputStream() {
+
+            private int row;
+
+            private byte[] line = "title,details\n".getBytes(StandardCharsets.UTF_8);
+
+            private int position;
+
+            @Override
+            public int read() {
+                if (this.position == this.line.length) {
+                    if (this.row == PRODUCTS) {
+                        return -1;
+                    }
+                    this.row++;
+                    this.line = "Product %d,\"Description of product %d, imported\"\n"
+                            .formatted(this.row, this.row).getBytes(StandardCharsets.UTF_8);
+                    this.position = 0;
+                }
+                return this.line[this.position++];
+            }
+
+            @Override
+            public boolean isFinished() {
+                return this.row == PRODUCTS && this.position == this.line.length;
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setReadListener(ReadListener readListener) {
+            }
+        };
+
+        GeneratingRequest() {
+            super("POST", "/catalogue-api/products/import");
+            setContentType("text/csv");
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            return this.inputStream;
+        }
+    }
+}
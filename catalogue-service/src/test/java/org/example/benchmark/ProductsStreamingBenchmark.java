@@ -0,0 +1,92 @@
+package org.example.benchmark;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.transaction.Transactional;
+import org.example.config.controller.ProductsRestController;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ Потокове вивантаження 5M товарів з малою купою: якщо сутності чи відповідь накопичуються
+ в пам'яті, тест впаде з OutOfMemoryError.
+ mvn test -Dtest=ProductsStreamingBenchmark -Dbenchmark=true -DargLine=-Xmx128m
+*/
+@SpringBootTest
+@Transactional
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("Бенчмарк потокового вивантаження каталогу")
+class ProductsStreamingBenchmark {
+
+    private static final int PRODUCTS = 5_000_000;
+
+    @Autowired
+    ProductsRestController productsRestController;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void streamProducts_5MProducts_StreamsWithFlatHeap() throws Exception {
+        //given
+        this.jdbcTemplate.update("""
+                insert into catalogue.t_product (c_title, c_details)
+                select 'Product ' || g, 'Description of product ' || g
+                from generate_series(1, ?) g""", PRODUCTS);
+        var response = new CountingResponse();
+
+        //when
+        long startedAt = System.nanoTime();
+        this.productsRestController.streamProducts(null, response);
+        long millis = (System.nanoTime() - startedAt) / 1_000_000;
+
+        //then
+        // останній рядок NDJSON не має роздільника
+        assertEquals(PRODUCTS - 1, response.lines);
+        Runtime runtime = Runtime.getRuntime();
+        System.out.printf("%,d products streamed in %d ms, %,d bytes, heap used %d MB of %d MB%n",
+                PRODUCTS, millis, response.bytes,
+                (runtime.totalMemory() - runtime.freeMemory()) >> 20, runtime.maxMemory() >> 20);
+    }
+
+    /*
+     Відповідь, яка лише рахує байти, бо MockHttpServletResponse тримає все тіло в пам'яті
+    */
+    private static class CountingResponse extends MockHttpServletResponse {
+
+        long bytes;
+
+        long lines;
+
+        private final ServletOutputStream outputStream = new ServletOutputStream() {
+            @Override
+            public void write(int b) {
+                bytes++;
+                if (b == '\n') {
+                    lines++;
+                }
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+            }
+        };
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            return this.outputStream;
+        }
+    }
+}
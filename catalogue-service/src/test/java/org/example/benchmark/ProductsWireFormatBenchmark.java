@@ -0,0 +1,82 @@
+package org.example.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.example.entity.Product;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ Байти на дроті та час кодування/декодування списку з 1000 товарів у JSON і Smile, без стиснення та з gzip.
+ mvn test -Dtest=ProductsWireFormatBenchmark -Dbenchmark=true
+*/
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("Бенчмарк форматів відповіді зі списком товарів")
+class ProductsWireFormatBenchmark {
+
+    private static final int PRODUCTS = 1_000;
+
+    private static final int ITERATIONS = 2_000;
+
+    private static final TypeReference<List<Product>> PRODUCTS_TYPE = new TypeReference<>() {
+    };
+
+    @Test
+    void encodeAndDecode_1kProducts() throws IOException {
+        List<Product> products = IntStream.rangeClosed(1, PRODUCTS)
+                .mapToObj(i -> new Product(i, "Product %d".formatted(i),
+                        "Description of product %d. ".formatted(i).repeat(10)))
+                .toList();
+
+        measure("JSON", Jackson2ObjectMapperBuilder.json().build(), products);
+        measure("Smile", Jackson2ObjectMapperBuilder.json().factory(new SmileFactory()).build(), products);
+    }
+
+    private static void measure(String format, ObjectMapper objectMapper, List<Product> products)
+            throws IOException {
+        byte[] body = objectMapper.writeValueAsBytes(products);
+        assertEquals(products, objectMapper.readValue(body, PRODUCTS_TYPE));
+
+        long[] encode = new long[ITERATIONS];
+        long[] decode = new long[ITERATIONS];
+        // перша половина ітерацій - прогрів
+        for (int i = 0; i < ITERATIONS * 2; i++) {
+            long startedAt = System.nanoTime();
+            objectMapper.writeValueAsBytes(products);
+            long encodedAt = System.nanoTime();
+            objectMapper.readValue(body, PRODUCTS_TYPE);
+            long decodedAt = System.nanoTime();
+            if (i >= ITERATIONS) {
+                encode[i - ITERATIONS] = (encodedAt - startedAt) / 1_000;
+                decode[i - ITERATIONS] = (decodedAt - encodedAt) / 1_000;
+            }
+        }
+        Arrays.sort(encode);
+        Arrays.sort(decode);
+
+        System.out.printf("%s: %,d bytes, gzip %,d bytes, encode p50=%d us p99=%d us, decode p50=%d us p99=%d us%n",
+                format, body.length, gzip(body).length,
+                encode[ITERATIONS / 2], encode[ITERATIONS * 99 / 100],
+                decode[ITERATIONS / 2], decode[ITERATIONS * 99 / 100]);
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        }
+        return out.toByteArray();
+    }
+}
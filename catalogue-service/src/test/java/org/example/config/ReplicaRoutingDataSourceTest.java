@@ -0,0 +1,142 @@
+package org.example.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ReplicaRoutingDataSourceTest {
+
+    DataSource primary = mock(DataSource.class);
+
+    DataSource replica1 = mock(DataSource.class);
+
+    DataSource replica2 = mock(DataSource.class);
+
+    Connection primaryConnection = mock(Connection.class);
+
+    Connection replica1Connection = mock(Connection.class);
+
+    Connection replica2Connection = mock(Connection.class);
+
+    String client = "j.dewar";
+
+    ReplicaRoutingDataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        doReturn(this.primaryConnection).when(this.primary).getConnection();
+        doReturn(this.replica1Connection).when(this.replica1).getConnection();
+        doReturn(this.replica2Connection).when(this.replica2).getConnection();
+        this.dataSource = new ReplicaRoutingDataSource(this.primary, List.of(this.replica1, this.replica2),
+                () -> this.client, Duration.ofSeconds(5), Duration.ofSeconds(30),
+                Clock.fixed(Instant.parse("2024-05-01T10:00:00Z"), ZoneOffset.UTC));
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    void getConnection_ReadOnlyTransaction_RoundRobinsReplicas() throws SQLException {
+        //given
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        //when
+        List<Connection> connections = List.of(this.dataSource.getConnection(), this.dataSource.getConnection(),
+                this.dataSource.getConnection());
+
+        //then
+        assertEquals(List.of(this.replica1Connection, this.replica2Connection, this.replica1Connection),
+                connections);
+        verifyNoInteractions(this.primary);
+    }
+
+    @Test
+    void getConnection_ReadWriteTransaction_UsesPrimary() throws SQLException {
+        //given
+
+        //when
+        Connection connection = this.dataSource.getConnection();
+
+        //then
+        assertEquals(this.primaryConnection, connection);
+        verifyNoInteractions(this.replica1, this.replica2);
+    }
+
+    @Test
+    void getConnection_ReplicaIsUnavailable_SkipsIt() throws SQLException {
+        //given
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        doThrow(new SQLException("Connection refused")).when(this.replica1).getConnection();
+
+        //when
+        List<Connection> connections = List.of(this.dataSource.getConnection(), this.dataSource.getConnection(),
+                this.dataSource.getConnection());
+
+        //then
+        assertEquals(List.of(this.replica2Connection, this.replica2Connection, this.replica2Connection),
+                connections);
+        verify(this.replica1).getConnection();
+    }
+
+    @Test
+    void getConnection_AllReplicasAreUnavailable_FallsBackToPrimary() throws SQLException {
+        //given
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        doThrow(new SQLException("Connection refused")).when(this.replica1).getConnection();
+        doThrow(new SQLException("Connection refused")).when(this.replica2).getConnection();
+
+        //when
+        Connection connection = this.dataSource.getConnection();
+
+        //then
+        assertEquals(this.primaryConnection, connection);
+    }
+
+    @Test
+    void getConnection_ClientHasJustWritten_ReadsFromPrimary() throws SQLException {
+        //given
+        this.dataSource.getConnection();
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        //when
+        Connection connection = this.dataSource.getConnection();
+
+        //then
+        assertEquals(this.primaryConnection, connection);
+        verifyNoInteractions(this.replica1, this.replica2);
+    }
+
+    @Test
+    void isActive_ClientHasJustWritten_ReturnsTrue() throws SQLException {
+        //given
+        boolean activeBeforeWrite = this.dataSource.isActive();
+        this.dataSource.getConnection();
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        //when
+        boolean active = this.dataSource.isActive();
+
+        //then
+        assertFalse(activeBeforeWrite);
+        assertTrue(active);
+    }
+}
@@ -0,0 +1,95 @@
+package org.example.config.controller;
+
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.example.config.controller.payload.RejectedProductRow;
+import org.example.entity.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.support.StaticMessageSource;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductCsvRowsTest {
+
+    Validator validator;
+
+    StaticMessageSource messageSource;
+
+    @BeforeEach
+    void setUp() {
+        this.validator = Validation.buildDefaultValidatorFactory().getValidator();
+        this.messageSource = new StaticMessageSource();
+        this.messageSource.addMessage("catalogue.products.import.errors.row_is_invalid", Locale.ENGLISH,
+                "Row is invalid");
+    }
+
+    @Test
+    void next_QuotedFields_ParsesCommasQuotesAndLineBreaks() {
+        //given
+        var rows = this.rows("""
+                title,details\r
+                "Product, №1","Line 1
+                Line 2"\r
+                "Product ""2\""",
+                """);
+        rows.readHeader();
+
+        //when
+        var products = new ArrayList<Product>();
+        rows.forEachRemaining(products::add);
+
+        //then
+        assertEquals(List.of(new Product(null, "Product, №1", "Line 1\nLine 2"),
+                new Product(null, "Product \"2\"", null)), products);
+        assertEquals(0, rows.rejected());
+    }
+
+    @Test
+    void next_RowIsInvalid_RejectsRowWithItsLineAndContinues() {
+        //given
+        var rejected = new ArrayList<RejectedProductRow>();
+        var rows = this.rows("""
+                title,details
+                "Multi
+                line",Too short title
+                Ab,Too short title
+                Only title
+                Product №4,Description №4
+                """).onRejected(rejected::add);
+        rows.readHeader();
+
+        //when
+        var products = new ArrayList<Product>();
+        rows.forEachRemaining(products::add);
+
+        //then
+        assertEquals(List.of(new Product(null, "Multi\nline", "Too short title"),
+                new Product(null, "Product №4", "Description №4")), products);
+        assertEquals(List.of(
+                new RejectedProductRow(4, List.of("{catalogue.products.create.errors.title_size_is_invalid}")),
+                new RejectedProductRow(5, List.of("Row is invalid"))), rejected);
+        assertEquals(2, rows.rejected());
+    }
+
+    @Test
+    void readHeader_HeaderIsInvalid_ThrowsIllegalArgumentException() {
+        //given
+        var rows = this.rows("name,description\nProduct,Description\n");
+
+        //when
+        var exception = assertThrows(IllegalArgumentException.class, rows::readHeader);
+
+        //then
+        assertEquals("catalogue.products.import.errors.header_is_invalid", exception.getMessage());
+    }
+
+    private ProductCsvRows rows(String csv) {
+        return new ProductCsvRows(new StringReader(csv), this.validator, this.messageSource, Locale.ENGLISH);
+    }
+}
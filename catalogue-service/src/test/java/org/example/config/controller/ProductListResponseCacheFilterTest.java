@@ -0,0 +1,178 @@
+package org.example.config.controller;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.service.cache.ProductListResponseCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductListResponseCacheFilterTest {
+
+    static final String BODY = "[{\"id\":1,\"title\":\"Товар\",\"details\":null}]";
+
+    ProductListResponseCache responseCache;
+
+    ProductListResponseCacheFilter filter;
+
+    AtomicInteger controllerCalls = new AtomicInteger();
+
+    // замість контролера
+    HttpServlet controller = new HttpServlet() {
+        @Override
+        protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+            ProductListResponseCacheFilterTest.this.controllerCalls.incrementAndGet();
+            response.setContentType("application/json");
+            response.setHeader(HttpHeaders.ETAG, "\"1-2a\"");
+            response.getOutputStream().write(BODY.getBytes(StandardCharsets.UTF_8));
+        }
+    };
+
+    @BeforeEach
+    void setUp() {
+        this.responseCache = new ProductListResponseCache(Caffeine.newBuilder().build());
+        this.filter = new ProductListResponseCacheFilter(this.responseCache);
+    }
+
+    @Test
+    void doFilter_SameRequestTwice_AnswersSecondFromCache() throws Exception {
+        //given
+        this.perform(this.request("товар"));
+
+        //when
+        var response = this.perform(this.request("товар"));
+
+        //then
+        assertEquals(1, this.controllerCalls.get());
+        assertEquals(200, response.getStatus());
+        assertEquals(BODY, response.getContentAsString(StandardCharsets.UTF_8));
+        assertEquals("\"1-2a\"", response.getHeader(HttpHeaders.ETAG));
+        assertNull(response.getHeader(HttpHeaders.CONTENT_ENCODING));
+    }
+
+    @Test
+    void doFilter_FilterDiffersInCase_GoesToController() throws Exception {
+        //given
+        this.perform(this.request("товар"));
+
+        //when
+        this.perform(this.request("Товар"));
+
+        //then
+        assertEquals(2, this.controllerCalls.get());
+    }
+
+    @Test
+    void doFilter_GzipIsAccepted_ReturnsGzippedBodyWithWeakETag() throws Exception {
+        //given
+        this.perform(this.request("товар"));
+        var request = this.request("товар");
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, "deflate, gzip;q=0.5");
+
+        //when
+        var response = this.perform(request);
+
+        //then
+        assertEquals("gzip", response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("W/\"1-2a\"", response.getHeader(HttpHeaders.ETAG));
+        try (var in = new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray()))) {
+            assertEquals(BODY, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void doFilter_GzipIsRefused_ReturnsPlainBody() throws Exception {
+        //given
+        this.perform(this.request("товар"));
+        var request = this.request("товар");
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0, *");
+
+        //when
+        var response = this.perform(request);
+
+        //then
+        assertNull(response.getHeader(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(BODY, response.getContentAsString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void doFilter_ETagMatches_ReturnsNotModified() throws Exception {
+        //given
+        this.perform(this.request("товар"));
+        var request = this.request("товар");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "W/\"1-2a\"");
+
+        //when
+        var response = this.perform(request);
+
+        //then
+        assertEquals(304, response.getStatus());
+        assertEquals(0, response.getContentLength());
+        assertEquals(1, this.controllerCalls.get());
+    }
+
+    @Test
+    void doFilter_OtherParameter_IsNotCached() throws Exception {
+        //given
+        var request = this.request("товар");
+        request.addParameter("limit", "10");
+        this.perform(request);
+
+        //when
+        this.perform(this.request("товар"));
+
+        //then
+        assertEquals(2, this.controllerCalls.get());
+    }
+
+    @Test
+    void doFilter_NdjsonIsRequested_IsNotCached() throws Exception {
+        //given
+        var request = this.request("товар");
+        request.addHeader(HttpHeaders.ACCEPT, "application/x-ndjson");
+        this.perform(request);
+
+        //when
+        this.perform(this.request("товар"));
+
+        //then
+        assertEquals(2, this.controllerCalls.get());
+    }
+
+    @Test
+    void acceptsGzip_ParsesQualityValues() {
+        assertTrue(ProductListResponseCacheFilter.acceptsGzip("gzip"));
+        assertTrue(ProductListResponseCacheFilter.acceptsGzip("br, GZIP;q=0.1"));
+        assertTrue(ProductListResponseCacheFilter.acceptsGzip("*"));
+        assertFalse(ProductListResponseCacheFilter.acceptsGzip(null));
+        assertFalse(ProductListResponseCacheFilter.acceptsGzip("gzip;q=0"));
+        assertFalse(ProductListResponseCacheFilter.acceptsGzip("gzip; q=0.0, *"));
+        assertFalse(ProductListResponseCacheFilter.acceptsGzip("*;q=0"));
+        assertFalse(ProductListResponseCacheFilter.acceptsGzip("deflate"));
+    }
+
+    private MockHttpServletRequest request(String filter) {
+        var request = new MockHttpServletRequest("GET", ProductListResponseCacheFilter.PATH);
+        request.addParameter("filter", filter);
+        return request;
+    }
+
+    private MockHttpServletResponse perform(MockHttpServletRequest request) throws Exception {
+        var response = new MockHttpServletResponse();
+        this.filter.doFilter(request, response, new MockFilterChain(this.controller));
+        return response;
+    }
+}
@@ -0,0 +1,205 @@
+package org.example.controller;
+
+import org.example.config.controller.ProductImageRestController;
+import org.example.entity.ProductImage;
+import org.example.service.ProductImageService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.MessageSource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ProductImageRestControllerTest {
+
+    static final ProductImage IMAGE = new ProductImage(1, ProductImage.Variant.ORIGINAL, "abcdef", "image/png", 10);
+
+    @Mock
+    ProductImageService productImageService;
+
+    @Mock
+    MessageSource messageSource;
+
+    @InjectMocks
+    ProductImageRestController controller;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void findImage_ImageExists_WritesWholeFile() throws IOException {
+        //given
+        var request = new MockHttpServletRequest("GET", "/catalogue-api/products/1/image");
+        var response = new MockHttpServletResponse();
+        this.givenImageFile();
+
+        //when
+        this.controller.findImage(1, new ServletWebRequest(request, response));
+
+        //then
+        assertEquals(HttpStatus.OK.value(), response.getStatus());
+        assertEquals("\"abcdef\"", response.getHeader(HttpHeaders.ETAG));
+        assertEquals("bytes", response.getHeader(HttpHeaders.ACCEPT_RANGES));
+        assertEquals("image/png", response.getContentType());
+        assertEquals(10, response.getContentLengthLong());
+        assertEquals("0123456789", response.getContentAsString());
+    }
+
+    @Test
+    void findImage_RangeIsRequested_WritesPartialContent() throws IOException {
+        //given
+        var request = new MockHttpServletRequest("GET", "/catalogue-api/products/1/image");
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+        var response = new MockHttpServletResponse();
+        this.givenImageFile();
+
+        //when
+        this.controller.findImage(1, new ServletWebRequest(request, response));
+
+        //then
+        assertEquals(HttpStatus.PARTIAL_CONTENT.value(), response.getStatus());
+        assertEquals("bytes 2-5/10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals(4, response.getContentLengthLong());
+        assertEquals("2345", response.getContentAsString());
+    }
+
+    @Test
+    void findImage_IfRangeDoesNotMatch_WritesWholeFile() throws IOException {
+        //given
+        var request = new MockHttpServletRequest("GET", "/catalogue-api/products/1/image");
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+        request.addHeader(HttpHeaders.IF_RANGE, "\"stale\"");
+        var response = new MockHttpServletResponse();
+        this.givenImageFile();
+
+        //when
+        this.controller.findImage(1, new ServletWebRequest(request, response));
+
+        //then
+        assertEquals(HttpStatus.OK.value(), response.getStatus());
+        assertEquals("0123456789", response.getContentAsString());
+    }
+
+    @Test
+    void findImage_RangeIsNotSatisfiable_ReturnsRangeNotSatisfiable() throws IOException {
+        //given
+        var request = new MockHttpServletRequest("GET", "/catalogue-api/products/1/image");
+        request.addHeader(HttpHeaders.RANGE, "bytes=20-");
+        var response = new MockHttpServletResponse();
+        this.givenImageFile();
+
+        //when
+        this.controller.findImage(1, new ServletWebRequest(request, response));
+
+        //then
+        assertEquals(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value(), response.getStatus());
+        assertEquals("bytes */10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void findImage_FileIsMissingOnThisNode_ThrowsNoSuchElementException() {
+        //given
+        var request = new MockHttpServletRequest("GET", "/catalogue-api/products/1/image");
+        var response = new MockHttpServletResponse();
+        doReturn(Optional.of(IMAGE)).when(this.productImageService)
+                .findImage(1, ProductImage.Variant.ORIGINAL);
+        doReturn(this.directory.resolve("abcdef")).when(this.productImageService).imageFile(IMAGE);
+
+        //when
+        var exception = assertThrows(NoSuchElementException.class,
+                () -> this.controller.findImage(1, new ServletWebRequest(request, response)));
+
+        //then
+        assertEquals("catalogue.products.images.errors.image_not_found", exception.getMessage());
+        assertNull(response.getHeader(HttpHeaders.ACCEPT_RANGES));
+    }
+
+    @Test
+    void findImage_ETagMatches_ReturnsNotModified() throws IOException {
+        //given
+        var request = new MockHttpServletRequest("GET", "/catalogue-api/products/1/image");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"abcdef\"");
+        var response = new MockHttpServletResponse();
+        doReturn(Optional.of(IMAGE)).when(this.productImageService)
+                .findImage(1, ProductImage.Variant.ORIGINAL);
+
+        //when
+        this.controller.findImage(1, new ServletWebRequest(request, response));
+
+        //then
+        assertEquals(HttpStatus.NOT_MODIFIED.value(), response.getStatus());
+        verify(this.productImageService, never()).imageFile(any());
+    }
+
+    @Test
+    void findImage_SendfileIsSupported_DelegatesFileToContainer() throws IOException {
+        //given
+        var request = new MockHttpServletRequest("GET", "/catalogue-api/products/1/image");
+        request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+        request.addHeader(HttpHeaders.RANGE, "bytes=-3");
+        var response = new MockHttpServletResponse();
+        Path file = this.givenImageFile();
+
+        //when
+        this.controller.findImage(1, new ServletWebRequest(request, response));
+
+        //then
+        assertEquals(file.toRealPath().toString(), request.getAttribute("org.apache.tomcat.sendfile.filename"));
+        assertEquals(7L, request.getAttribute("org.apache.tomcat.sendfile.start"));
+        assertEquals(10L, request.getAttribute("org.apache.tomcat.sendfile.end"));
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void findThumbnail_ImageDoesNotExist_ThrowsNoSuchElementException() {
+        //given
+        var request = new MockHttpServletRequest("GET", "/catalogue-api/products/1/image/thumbnail");
+
+        //when
+        var exception = assertThrows(NoSuchElementException.class, () -> this.controller.findThumbnail(1,
+                new ServletWebRequest(request, new MockHttpServletResponse())));
+
+        //then
+        assertEquals("catalogue.products.images.errors.image_not_found", exception.getMessage());
+    }
+
+    @Test
+    void saveImage_ContentTypeHasParameters_PassesBareContentTypeToService() throws IOException {
+        //given
+        var request = new MockHttpServletRequest("PUT", "/catalogue-api/products/1/image");
+        request.setContentType("image/png;q=1");
+        request.setContent(new byte[]{1, 2, 3});
+        doReturn(IMAGE).when(this.productImageService).saveImage(eq(1), eq("image/png"), any());
+
+        //when
+        var result = this.controller.saveImage(1, request);
+
+        //then
+        assertEquals(HttpStatus.NO_CONTENT, result.getStatusCode());
+        assertEquals("\"abcdef\"", result.getHeaders().getETag());
+    }
+
+    private Path givenImageFile() throws IOException {
+        Path file = Files.writeString(this.directory.resolve("abcdef"), "0123456789");
+        doReturn(Optional.of(IMAGE)).when(this.productImageService).findImage(1, ProductImage.Variant.ORIGINAL);
+        doReturn(file).when(this.productImageService).imageFile(IMAGE);
+        return file;
+    }
+}
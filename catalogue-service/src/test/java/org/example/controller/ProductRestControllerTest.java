@@ -8,14 +8,18 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.springframework.context.MessageSource;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ProblemDetail;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.validation.BindException;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 import org.springframework.validation.MapBindingResult;
 
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -33,40 +37,61 @@ public class ProductRestControllerTest {
     ProductRestController productRestController;
 
     @Test
-    void getProduct_ProductExists_ReturnsProduct() {
+    void findProduct_ProductDoesNotExist_ReturnsPreRenderedNotFound() {
         //given
-        Product product = new Product(1, "Product title", "Product detail");
-        doReturn(Optional.of(product)).when(this.productService).findProduct(1);
+        doReturn(Optional.empty()).when(this.productService).findProduct(anyInt());
+        doReturn("Товар \"не\" знайдено").when(this.messageSource)
+                .getMessage("catalogue.errors.product.not_found", new Object[0],
+                        "catalogue.errors.product.not_found", Locale.ENGLISH);
 
         //when
-        Product result = this.productRestController.getProduct(1);
+        ResponseEntity<?> result = this.productRestController.findProduct(1, null,
+                new MockHttpServletRequest("GET", "/catalogue-api/products/1"), Locale.ENGLISH);
+        ResponseEntity<?> nextResult = this.productRestController.findProduct(2, null,
+                new MockHttpServletRequest("GET", "/catalogue-api/products/2"), Locale.ENGLISH);
 
         //then
-        assertEquals(product, result);
+        assertEquals(HttpStatus.NOT_FOUND, result.getStatusCode());
+        assertEquals(MediaType.APPLICATION_PROBLEM_JSON, result.getHeaders().getContentType());
+        assertEquals("{\"type\":\"about:blank\",\"title\":\"Not Found\",\"status\":404,"
+                        + "\"detail\":\"Товар \\\"не\\\" знайдено\",\"instance\":\"/catalogue-api/products/1\"}",
+                new String((byte[]) result.getBody(), StandardCharsets.UTF_8));
+        assertEquals("{\"type\":\"about:blank\",\"title\":\"Not Found\",\"status\":404,"
+                        + "\"detail\":\"Товар \\\"не\\\" знайдено\",\"instance\":\"/catalogue-api/products/2\"}",
+                new String((byte[]) nextResult.getBody(), StandardCharsets.UTF_8));
     }
 
     @Test
-    void getProduct_ProductDoesNotExist_ThrowsNoSuchElementException() {
+    void findProduct_ProductDoesNotExistForLocalesWithSameMessage_SharesNotFoundBody() {
         //given
+        doReturn(Optional.empty()).when(this.productService).findProduct(anyInt());
+        doReturn("Product not found").when(this.messageSource)
+                .getMessage(eq("catalogue.errors.product.not_found"), any(), any(), any(Locale.class));
 
         //when
-        Exception exception = assertThrows(NoSuchFieldException.class,
-                () -> this.productRestController.getProduct(1));
+        ResponseEntity<?> result = this.productRestController.findProduct(1, null,
+                new MockHttpServletRequest("GET", "/catalogue-api/products/1"), Locale.ENGLISH);
+        ResponseEntity<?> otherResult = this.productRestController.findProduct(1, null,
+                new MockHttpServletRequest("GET", "/catalogue-api/products/1"), Locale.forLanguageTag("xx-unknown"));
 
         //then
-        assertEquals("catalogue.errors.product.not_found", exception.getMessage());
+        assertArrayEquals((byte[]) result.getBody(), (byte[]) otherResult.getBody());
     }
 
     @Test
     void findProduct_ReturnsProduct(){
         //given
-        Product product = new Product(1, "Product title", "Product details");
+        Product product = new Product(1, "Product title", "Product details", 3);
+        doReturn(Optional.of(product)).when(this.productService).findProduct(1);
 
         //when
-        Product result = this.productRestController.findProduct(product);
+        ResponseEntity<?> result = this.productRestController.findProduct(1, null,
+                new MockHttpServletRequest("GET", "/catalogue-api/products/1"), Locale.ENGLISH);
 
         //then
-        assertEquals(product, result);
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        assertEquals("W/\"3\"", result.getHeaders().getETag());
+        assertEquals(product, result.getBody());
     }
 
     @Test
@@ -77,14 +102,17 @@ public class ProductRestControllerTest {
 
         BindingResult bindingResult = new MapBindingResult(Map.of(), "payload");
 
+        doReturn(4).when(this.productService).updateProduct(1, 3, "New title", "New description");
+
         //when
-        ResponseEntity<?> result = this.productRestController.updateProduct(1, payload, bindingResult);
+        ResponseEntity<?> result = this.productRestController.updateProduct(1, "W/\"3\"", null, payload, bindingResult);
 
         //then
         assertNotNull(result);
         assertEquals(HttpStatus.NO_CONTENT, result.getStatusCode());
+        assertEquals("W/\"4\"", result.getHeaders().getETag());
 
-        verify(this.productService).updateProduct(1, "New title", "New description");
+        verify(this.productService).updateProduct(1, 3, "New title", "New description");
 
     }
 
@@ -97,7 +125,7 @@ public class ProductRestControllerTest {
 
         //when
         BindException exception = assertThrows(BindException.class,
-                () -> this.productRestController.updateProduct(1, payload, bindingResult));
+                () -> this.productRestController.updateProduct(1, null, null, payload, bindingResult));
 
         //then
         assertEquals(List.of(new FieldError("payload", "title", "error")),
@@ -111,13 +139,37 @@ public class ProductRestControllerTest {
         //given
 
         //when
-        ResponseEntity<Void> result = this.productRestController.deleteProduct(1);
+        ResponseEntity<Void> result = this.productRestController.deleteProduct(1, null);
 
         //then
         assertNotNull(result);
         assertEquals(HttpStatus.NO_CONTENT, result.getStatusCode());
 
-        verify(this.productService).deleteProduct(1);
+        verify(this.productService).deleteProduct(1, null);
+    }
+
+    @Test
+    void deleteProduct_IfMatchIsSmileETag_DeletesMatchingVersion() {
+        //given
+
+        //when
+        this.productRestController.deleteProduct(1, "W/\"3+smile\"");
+
+        //then
+        verify(this.productService).deleteProduct(1, 3);
+    }
+
+    @Test
+    void deleteProduct_IfMatchIsUnknown_ThrowsOptimisticLockingFailureException() {
+        //given
+
+        //when
+        var exception = assertThrows(OptimisticLockingFailureException.class,
+                () -> this.productRestController.deleteProduct(1, "W/\"3-a\""));
+
+        //then
+        assertEquals("catalogue.errors.product.version_mismatch", exception.getMessage());
+        verifyNoInteractions(this.productService);
     }
 
     @Test
@@ -1,26 +1,54 @@
 package org.example.controller;
 
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.example.config.controller.ProductsRestController;
 import org.example.config.controller.payload.NewProductPayload;
+import org.example.config.controller.payload.NewProductsPayload;
+import org.example.config.controller.payload.ProductChangesPage;
+import org.example.config.controller.payload.ProductsPage;
 import org.example.entity.Product;
+import org.example.entity.ProductChange;
+import org.example.entity.ProductSummary;
+import org.example.service.ProductChangedEvent;
 import org.example.service.ProductService;
+import org.example.service.ProductsCursor;
+import org.example.service.ProductsSort;
+import org.example.service.events.ProductEventsHub;
+import org.example.service.search.ProductSuggestion;
+import org.example.service.snapshot.ProductSnapshot;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.MessageSource;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.validation.BindException;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 import org.springframework.validation.MapBindingResult;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -31,6 +59,21 @@ public class ProductsRestControllerTest {
     @Mock
     ProductService productService;
 
+    @Mock
+    MessageSource messageSource;
+
+    @Mock
+    ProductEventsHub productEventsHub;
+
+    @Mock
+    ProductSnapshot productSnapshot;
+
+    @Spy
+    ObjectMapper objectMapper = new ObjectMapper();
+
+    @Spy
+    MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter = new MappingJackson2SmileHttpMessageConverter();
+
     @InjectMocks
     ProductsRestController productRestController;
 
@@ -46,12 +89,204 @@ public class ProductsRestControllerTest {
                 .when(this.productService).findAllProducts("product");
 
         //when
-        Iterable<Product> result = this.productRestController.findProducts(filter);
+        ResponseEntity<List<Product>> result = this.productRestController.findProducts(filter, null);
+
+        //then
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        assertNotNull(result.getHeaders().getETag());
+        assertEquals(List.of(new Product(1, "First product", "Description of first product"),
+                new Product(2, "Second product", "Description of second product")), result.getBody());
+
+    }
+
+    @Test
+    void findAllProducts_SnapshotIsReady_WritesProductsFromSnapshot() throws IOException {
+        //given
+        var request = new MockHttpServletRequest("GET", "/catalogue-api/products");
+        var response = new MockHttpServletResponse();
+        doReturn(true).when(this.productSnapshot).isReady();
+        doReturn(new ProductSnapshot.Versions(1, "2a")).when(this.productSnapshot).versions();
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(0).write("[{\"id\":1,\"title\":\"First product\",\"details\":null}]"
+                    .getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(this.productSnapshot).writeJsonArray(any());
+
+        //when
+        this.productRestController.findAllProducts(new ServletWebRequest(request, response), response);
+
+        //then
+        assertEquals("W/\"1-2a\"", response.getHeader(HttpHeaders.ETAG));
+        assertEquals("application/json", response.getContentType());
+        assertEquals("[{\"id\":1,\"title\":\"First product\",\"details\":null}]", response.getContentAsString());
+        verifyNoInteractions(this.productService);
+    }
+
+    @Test
+    void findAllProducts_SnapshotIsReadyAndETagMatches_ReturnsNotModified() throws IOException {
+        //given
+        var request = new MockHttpServletRequest("GET", "/catalogue-api/products");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "W/\"1-2a\"");
+        var response = new MockHttpServletResponse();
+        doReturn(true).when(this.productSnapshot).isReady();
+        doReturn(new ProductSnapshot.Versions(1, "2a")).when(this.productSnapshot).versions();
+
+        //when
+        this.productRestController.findAllProducts(new ServletWebRequest(request, response), response);
+
+        //then
+        assertEquals(HttpStatus.NOT_MODIFIED.value(), response.getStatus());
+        verify(this.productSnapshot, never()).writeJsonArray(any());
+    }
+
+    @Test
+    void findAllProducts_SnapshotIsReadyAndSmileIsAccepted_WritesProductsFromServiceAsSmile() throws IOException {
+        //given
+        var request = new MockHttpServletRequest("GET", "/catalogue-api/products");
+        request.addHeader(HttpHeaders.ACCEPT, "application/x-jackson-smile, application/json");
+        var response = new MockHttpServletResponse();
+        doReturn(List.of(new Product(1, "First product", "Description of first product")))
+                .when(this.productService).findAllProducts(null);
+
+        //when
+        this.productRestController.findAllProducts(new ServletWebRequest(request, response), response);
+
+        //then
+        assertEquals("application/x-jackson-smile", response.getContentType());
+        assertTrue(response.getHeader(HttpHeaders.ETAG).endsWith("+smile\""));
+        assertEquals(List.of(new Product(1, "First product", "Description of first product")),
+                this.smileHttpMessageConverter.getObjectMapper().readValue(response.getContentAsByteArray(),
+                        new TypeReference<List<Product>>() {
+                        }));
+        verify(this.productSnapshot, never()).writeJsonArray(any());
+    }
+
+    @Test
+    void findAllProducts_SnapshotIsNotReady_WritesProductsFromService() throws IOException {
+        //given
+        var request = new MockHttpServletRequest("GET", "/catalogue-api/products");
+        var response = new MockHttpServletResponse();
+        doReturn(false).when(this.productSnapshot).isReady();
+        doReturn(List.of(new Product(1, "First product", null)))
+                .when(this.productService).findAllProducts(null);
+
+        //when
+        this.productRestController.findAllProducts(new ServletWebRequest(request, response), response);
+
+        //then
+        assertEquals("application/json", response.getContentType());
+        assertNotNull(response.getHeader(HttpHeaders.ETAG));
+        assertEquals("[{\"id\":1,\"title\":\"First product\",\"details\":null}]",
+                response.getContentAsString());
+    }
+
+    @Test
+    void findProductsPage_NextPageExists_ReturnsPageWithCursor() {
+        //given
+        doReturn(List.of(new Product(1, "First product", "Description of first product"),
+                new Product(2, "Second product", "Description of second product"),
+                new Product(3, "Third product", "Description of third product")))
+                .when(this.productService)
+                .findProductsPage("product", ProductsCursor.first(ProductsSort.TITLE), 3);
+
+        //when
+        ProductsPage result = this.productRestController.findProductsPage("product", "title", null, 2);
 
         //then
         assertEquals(List.of(new Product(1, "First product", "Description of first product"),
-                new Product(2, "Second product", "Description of second product")), result);
+                new Product(2, "Second product", "Description of second product")), result.products());
+        assertEquals(new ProductsCursor(ProductsSort.TITLE, 2, "Second product"),
+                ProductsCursor.decode(ProductsSort.TITLE, result.next()));
+    }
+
+    @Test
+    void findProductsPage_LastPage_ReturnsPageWithoutCursor() {
+        //given
+        ProductsCursor cursor = new ProductsCursor(ProductsSort.ID, 2, "");
+
+        doReturn(List.of(new Product(3, "Third product", "Description of third product")))
+                .when(this.productService)
+                .findProductsPage(null, cursor, 3);
+
+        //when
+        ProductsPage result = this.productRestController.findProductsPage(null, "id", cursor.encode(), 2);
+
+        //then
+        assertEquals(List.of(new Product(3, "Third product", "Description of third product")), result.products());
+        assertNull(result.next());
+    }
 
+    @Test
+    void findProductsPage_LimitIsInvalid_ThrowsIllegalArgumentException() {
+        //given
+
+        //when
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> this.productRestController.findProductsPage(null, "id", null, 0));
+
+        //then
+        assertEquals("catalogue.products.errors.limit_is_invalid", exception.getMessage());
+
+        verifyNoInteractions(this.productService);
+    }
+
+    @Test
+    void findProductsPage_CursorIsInvalid_ThrowsIllegalArgumentException() {
+        //given
+        String after = new ProductsCursor(ProductsSort.ID, 2, "").encode();
+
+        //when
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> this.productRestController.findProductsPage(null, "title", after, 10));
+
+        //then
+        assertEquals("catalogue.products.errors.cursor_is_invalid", exception.getMessage());
+
+        verifyNoInteractions(this.productService);
+    }
+
+    @Test
+    void suggestProducts_ReturnsSuggestions() {
+        //given
+        doReturn(List.of(new ProductSuggestion(1, "First product")))
+                .when(this.productService).suggestProducts("fir", 10);
+
+        //when
+        List<ProductSuggestion> result = this.productRestController.suggestProducts("fir", 10);
+
+        //then
+        assertEquals(List.of(new ProductSuggestion(1, "First product")), result);
+    }
+
+    @Test
+    void suggestProducts_PrefixIsBlank_ReturnsEmptyList() {
+        //given
+
+        //when
+        List<ProductSuggestion> result = this.productRestController.suggestProducts("  ", 10);
+
+        //then
+        assertTrue(result.isEmpty());
+
+        verifyNoInteractions(this.productService);
+    }
+
+    @Test
+    void handleIllegalArgumentException_ReturnsBadRequest() {
+        //given
+        IllegalArgumentException exception = new IllegalArgumentException("error_code");
+
+        doReturn("error details")
+                .when(this.messageSource)
+                .getMessage("error_code", new Object[0], "error_code", Locale.ENGLISH);
+
+        //when
+        var result = this.productRestController.handleIllegalArgumentException(exception, Locale.ENGLISH);
+
+        //then
+        assertNotNull(result);
+        assertEquals(HttpStatus.BAD_REQUEST, result.getStatusCode());
+        assertEquals("error details", result.getBody().getDetail());
     }
 
     @Test
@@ -118,4 +353,174 @@ public class ProductsRestControllerTest {
 
         verifyNoInteractions(this.productService);
     }
+
+    @Test
+    void findProductsByIds_ReturnsProducts() {
+        //given
+        doReturn(List.of(new Product(2, "Товар №2", "Опис товару №2")))
+                .when(this.productService).findProductsByIds(List.of(2, 5));
+
+        //when
+        List<Product> result = this.productRestController.findProductsByIds(List.of(2, 5));
+
+        //then
+        assertEquals(List.of(new Product(2, "Товар №2", "Опис товару №2")), result);
+    }
+
+    @Test
+    void findProductsByIdsList_TooManyIds_ThrowsIllegalArgumentException() {
+        //given
+        List<Integer> ids = IntStream.rangeClosed(1, 10_001).boxed().toList();
+
+        //when
+        var exception = assertThrows(IllegalArgumentException.class,
+                () -> this.productRestController.findProductsByIdsList(ids));
+
+        //then
+        assertEquals("catalogue.products.errors.ids_size_is_invalid", exception.getMessage());
+        verifyNoInteractions(this.productService);
+    }
+
+    @Test
+    void findChanges_ChangesExist_ReturnsPageWithLastToken() {
+        //given
+        List<ProductChange> changes = List.of(
+                new ProductChange(11, ProductChangedEvent.Type.CREATED, 5, new Product(5, "Товар №5", null)),
+                new ProductChange(12, ProductChangedEvent.Type.DELETED, 2, null));
+        doReturn(changes).when(this.productService).findChanges(10, 1000);
+
+        //when
+        ProductChangesPage result = this.productRestController.findChanges(10, 1000);
+
+        //then
+        assertEquals(new ProductChangesPage(changes, 12), result);
+    }
+
+    @Test
+    void findChanges_NoChanges_ReturnsSameToken() {
+        //given
+        doReturn(List.of()).when(this.productService).findChanges(12, 1000);
+
+        //when
+        ProductChangesPage result = this.productRestController.findChanges(12, 1000);
+
+        //then
+        assertEquals(new ProductChangesPage(List.of(), 12), result);
+    }
+
+    @Test
+    void createProducts_RequestIsValid_ReturnsCreatedIdsInOrder() throws BindException {
+        //given
+        var payload = new NewProductsPayload(List.of(
+                new NewProductPayload("Новий товар №1", "Опис товару №1"),
+                new NewProductPayload("Новий товар №2", null)));
+        BindingResult bindingResult = new MapBindingResult(Map.of(), "payload");
+
+        doReturn(List.of(new Product(51, "Новий товар №1", "Опис товару №1"),
+                new Product(52, "Новий товар №2", null)))
+                .when(this.productService)
+                .createProducts(List.of(new Product(null, "Новий товар №1", "Опис товару №1"),
+                        new Product(null, "Новий товар №2", null)));
+
+        //when
+        ResponseEntity<List<Integer>> result = this.productRestController.createProducts(payload, bindingResult);
+
+        //then
+        assertNotNull(result);
+        assertEquals(HttpStatus.CREATED, result.getStatusCode());
+        assertEquals(List.of(51, 52), result.getBody());
+    }
+
+    @Test
+    void createProducts_RequestIsInvalid_ThrowsBindException() {
+        //given
+        var payload = new NewProductsPayload(List.of(new NewProductPayload("  ", null)));
+        BindingResult bindingResult = new MapBindingResult(Map.of(), "payload");
+        bindingResult.addError(new FieldError("payload", "products[0].title", "error"));
+
+        //when
+        var exception = assertThrows(BindException.class,
+                () -> this.productRestController.createProducts(payload, bindingResult));
+
+        //then
+        assertEquals(List.of(new FieldError("payload", "products[0].title", "error")), exception.getAllErrors());
+        verifyNoInteractions(this.productService);
+    }
+
+    @Test
+    void subscribeToChanges_LastEventIdIsPresent_SubscribesFromIt() {
+        //given
+        var emitter = new SseEmitter();
+        doReturn(emitter).when(this.productEventsHub).subscribe(5L);
+
+        //when
+        var result = this.productRestController.subscribeToChanges(5L);
+
+        //then
+        assertSame(emitter, result);
+        verify(this.productEventsHub).subscribe(5L);
+        verifyNoMoreInteractions(this.productEventsHub);
+    }
+
+    @Test
+    void subscribeToChanges_LastEventIdIsNegative_ThrowsIllegalArgumentException() {
+        //when
+        var exception = assertThrows(IllegalArgumentException.class,
+                () -> this.productRestController.subscribeToChanges(-1L));
+
+        //then
+        assertEquals("catalogue.products.errors.change_token_is_invalid", exception.getMessage());
+        verifyNoInteractions(this.productEventsHub);
+    }
+
+    @Test
+    void findProducts_FieldsAreIdAndTitle_ReturnsSummaries() {
+        //given
+        doReturn(List.of(new ProductSummary(1, "First product")))
+                .when(this.productService).findAllProductSummaries("product");
+
+        //when
+        var result = this.productRestController.findProducts("product", Set.of("id", "title"), null);
+
+        //then
+        assertEquals(HttpStatus.OK, result.getStatusCode());
+        assertEquals(List.of(new ProductSummary(1, "First product")), result.getBody());
+        verify(this.productService).findAllProductSummaries("product");
+        verifyNoMoreInteractions(this.productService);
+    }
+
+    @Test
+    void findProducts_FieldIsUnknown_ThrowsIllegalArgumentException() {
+        //when
+        var exception = assertThrows(IllegalArgumentException.class,
+                () -> this.productRestController.findProducts("product", Set.of("id", "price"), null));
+
+        //then
+        assertEquals("catalogue.products.errors.fields_are_invalid", exception.getMessage());
+        verifyNoInteractions(this.productService);
+    }
+
+    @Test
+    void importProducts_ImportFails_EndsReportWithProblemDetail() throws IOException {
+        //given
+        var request = new MockHttpServletRequest("POST", "/catalogue-api/products/import");
+        request.setContentType("text/csv");
+        request.setContent("title,details\nProduct,Description\n".getBytes(StandardCharsets.UTF_8));
+        var response = new MockHttpServletResponse();
+        doThrow(new DataAccessResourceFailureException("Connection lost"))
+                .when(this.productService).importProducts(any());
+        doReturn("Import failed, no products were imported").when(this.messageSource)
+                .getMessage("catalogue.products.import.errors.import_failed", new Object[0],
+                        "catalogue.products.import.errors.import_failed", Locale.ENGLISH);
+
+        //when
+        this.productRestController.importProducts(request, response, Locale.ENGLISH);
+
+        //then
+        assertEquals(HttpStatus.OK.value(), response.getStatus());
+        String report = response.getContentAsString(StandardCharsets.UTF_8);
+        assertTrue(report.contains("\"status\":500"));
+        assertTrue(report.contains("\"detail\":\"Import failed, no products were imported\""));
+        assertFalse(report.contains("\"imported\""));
+    }
 }
@@ -0,0 +1,138 @@
+package org.example.controller.integrationalTest;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/*
+ Стиснення робить сам Tomcat, тому тест іде через справжній сервер, а не MockMvc.
+ Запити йдуть поза транзакцією тесту, тож товар створюється й видаляється самим тестом
+*/
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "server.compression.enabled=true",
+        "server.compression.mime-types=application/json,application/x-jackson-smile",
+        "server.compression.min-response-size=256B"
+})
+public class ProductCompressionIT {
+
+    static final int PRODUCT_ID = 9;
+
+    @LocalServerPort
+    int port;
+
+    @Autowired
+    JwtDecoder jwtDecoder;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    HttpClient httpClient = HttpClient.newHttpClient();
+
+    @BeforeEach
+    void setUp() {
+        doReturn(Jwt.withTokenValue("token")
+                .header("alg", "none")
+                .subject("j.dewar")
+                .claim("scope", "view_catalogue edit_catalogue")
+                .build())
+                .when(this.jwtDecoder).decode("token");
+        this.jdbcTemplate.update("insert into catalogue.t_product (id, c_title, c_details) values (?, ?, ?)",
+                PRODUCT_ID, "Product №9", "Description of Product №9 ".repeat(20));
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.jdbcTemplate.update("delete from catalogue.t_product where id = ?", PRODUCT_ID);
+        this.jdbcTemplate.update("delete from catalogue.t_product_change where c_product_id = ?", PRODUCT_ID);
+        reset(this.jwtDecoder);
+    }
+
+    @Test
+    void findProduct_GzipIsAccepted_ReturnsCompressedProductWithWeakETagUsableInIfMatch() throws Exception {
+        // given
+        var request = this.request()
+                .header(HttpHeaders.ACCEPT, "application/json")
+                .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                .GET()
+                .build();
+
+        // when
+        var response = this.httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        String eTag = response.headers().firstValue(HttpHeaders.ETAG).orElseThrow();
+        String body = gunzip(response.body());
+
+        var updateResponse = this.httpClient.send(this.request()
+                .header(HttpHeaders.IF_MATCH, eTag)
+                .header(HttpHeaders.CONTENT_TYPE, "application/json")
+                .method("PATCH", HttpRequest.BodyPublishers.ofString("""
+                        {"title": "New title", "details": "New details"}"""))
+                .build(), HttpResponse.BodyHandlers.discarding());
+        var staleUpdateResponse = this.httpClient.send(this.request()
+                .header(HttpHeaders.IF_MATCH, eTag)
+                .header(HttpHeaders.CONTENT_TYPE, "application/json")
+                .method("PATCH", HttpRequest.BodyPublishers.ofString("""
+                        {"title": "Other title", "details": "Other details"}"""))
+                .build(), HttpResponse.BodyHandlers.discarding());
+
+        // then
+        assertEquals(200, response.statusCode());
+        assertEquals("gzip", response.headers().firstValue(HttpHeaders.CONTENT_ENCODING).orElse(null));
+        assertEquals("W/\"0\"", eTag);
+        assertTrue(body.contains("\"id\":9"));
+        assertEquals(204, updateResponse.statusCode());
+        assertEquals("W/\"1\"", updateResponse.headers().firstValue(HttpHeaders.ETAG).orElse(null));
+        assertEquals(412, staleUpdateResponse.statusCode());
+    }
+
+    @Test
+    void findProduct_SmileAndJson_ReturnDifferentETags() throws Exception {
+        // given
+        var jsonRequest = this.request()
+                .header(HttpHeaders.ACCEPT, "application/json")
+                .GET()
+                .build();
+        var smileRequest = this.request()
+                .header(HttpHeaders.ACCEPT, "application/x-jackson-smile")
+                .GET()
+                .build();
+
+        // when
+        var jsonResponse = this.httpClient.send(jsonRequest, HttpResponse.BodyHandlers.discarding());
+        var smileResponse = this.httpClient.send(smileRequest, HttpResponse.BodyHandlers.discarding());
+
+        // then
+        assertEquals("W/\"0\"", jsonResponse.headers().firstValue(HttpHeaders.ETAG).orElse(null));
+        assertEquals("W/\"0+smile\"", smileResponse.headers().firstValue(HttpHeaders.ETAG).orElse(null));
+    }
+
+    private HttpRequest.Builder request() {
+        return HttpRequest.newBuilder(URI.create("http://localhost:%d/catalogue-api/products/%d"
+                        .formatted(this.port, PRODUCT_ID)))
+                .header(HttpHeaders.AUTHORIZATION, "Bearer token");
+    }
+
+    private static String gunzip(InputStream body) throws IOException {
+        try (InputStream in = new GZIPInputStream(body)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -8,6 +8,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.restdocs.AutoConfigureRestDocs;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.restdocs.RestDocumentationExtension;
 import org.springframework.test.context.jdbc.Sql;
@@ -22,6 +23,7 @@ import static org.springframework.restdocs.payload.PayloadDocumentation.fieldWit
 import static org.springframework.restdocs.payload.PayloadDocumentation.responseFields;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @Transactional
@@ -63,6 +65,24 @@ public class ProductRestControllerIT {
                         )));
     }
 
+    @Test
+    @Sql("/sql/products.sql")
+    void findProduct_ETagMatches_ReturnsNotModified() throws Exception {
+        // given
+        var requestBuilder = MockMvcRequestBuilders.get("/catalogue-api/products/1")
+                .header(HttpHeaders.IF_NONE_MATCH, "W/\"0\"")
+                .with(jwt().jwt(builder -> builder.claim("scope", "view_catalogue")));
+
+        // when
+        this.mockMvc.perform(requestBuilder)
+                // then
+                .andExpectAll(
+                        status().isNotModified(),
+                        header().string(HttpHeaders.ETAG, "W/\"0\""),
+                        content().string("")
+                );
+    }
+
     @Test
     void findProduct_ProductDoesNotExist_ReturnsNotFound() throws Exception {
         // given
@@ -73,7 +93,10 @@ public class ProductRestControllerIT {
         this.mockMvc.perform(requestBuilder)
                 // then
                 .andExpectAll(
-                        status().isNotFound()
+                        status().isNotFound(),
+                        content().contentType(MediaType.APPLICATION_PROBLEM_JSON),
+                        content().json("""
+                                {"status": 404, "detail": "Product not found", "instance": "/catalogue-api/products/1"}""")
                 );
     }
 
@@ -161,6 +184,53 @@ public class ProductRestControllerIT {
                 );
     }
 
+    @Test
+    @Sql("/sql/products.sql")
+    void updateProduct_IfMatchIsStale_ReturnsPreconditionFailed() throws Exception {
+        // given
+        var requestBuilder = MockMvcRequestBuilders.patch("/catalogue-api/products/1")
+                .locale(Locale.ENGLISH)
+                .header(HttpHeaders.IF_MATCH, "\"7\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                        {
+                            "title": "New product title",
+                            "details": "New product description"
+                        }""")
+                .with(jwt().jwt(builder -> builder.claim("scope", "edit_catalogue")));
+
+        // when
+        this.mockMvc.perform(requestBuilder)
+                // then
+                .andExpectAll(
+                        status().isPreconditionFailed(),
+                        content().contentTypeCompatibleWith(MediaType.APPLICATION_PROBLEM_JSON)
+                );
+    }
+
+    @Test
+    @Sql("/sql/products.sql")
+    void updateProduct_IfMatchIsCurrent_ReturnsNoContentWithNewETag() throws Exception {
+        // given
+        var requestBuilder = MockMvcRequestBuilders.patch("/catalogue-api/products/1")
+                .header(HttpHeaders.IF_MATCH, "\"0\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                        {
+                            "title": "New product title",
+                            "details": "New product description"
+                        }""")
+                .with(jwt().jwt(builder -> builder.claim("scope", "edit_catalogue")));
+
+        // when
+        this.mockMvc.perform(requestBuilder)
+                // then
+                .andExpectAll(
+                        status().isNoContent(),
+                        header().string(HttpHeaders.ETAG, "W/\"1\"")
+                );
+    }
+
     @Test
     void updateProduct_UserIsNotAuthorized_ReturnsForbidden() throws Exception {
         // given
@@ -197,6 +267,22 @@ public class ProductRestControllerIT {
                 );
     }
 
+    @Test
+    @Sql("/sql/products.sql")
+    void deleteProduct_IfMatchIsStale_ReturnsPreconditionFailed() throws Exception {
+        // given
+        var requestBuilder = MockMvcRequestBuilders.delete("/catalogue-api/products/1")
+                .header(HttpHeaders.IF_MATCH, "\"7\"")
+                .with(jwt().jwt(builder -> builder.claim("scope", "edit_catalogue")));
+
+        // when
+        this.mockMvc.perform(requestBuilder)
+                // then
+                .andExpectAll(
+                        status().isPreconditionFailed()
+                );
+    }
+
     @Test
     void deleteProduct_ProductDoesNotExist_ReturnsNotFound() throws Exception {
         // given
@@ -8,6 +8,7 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
@@ -15,6 +16,7 @@ import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
 import java.util.Locale;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -30,6 +32,9 @@ class ProductsRestControllerIT {
     @Autowired
     MockMvc mockMvc;
 
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
     @Test
     @Sql("/sql/products.sql")
     void findProducts_ReturnsProductsList() throws Exception {
@@ -52,6 +57,190 @@ class ProductsRestControllerIT {
                 );
     }
 
+    @Test
+    @Sql("/sql/products.sql")
+    void findProducts_ETagMatches_ReturnsNotModified() throws Exception {
+        // given
+        String eTag = this.mockMvc.perform(MockMvcRequestBuilders.get("/catalogue-api/products")
+                        .param("filter", "product")
+                        .with(jwt().jwt(builder -> builder.claim("scope", "view_catalogue"))))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        var requestBuilder = MockMvcRequestBuilders.get("/catalogue-api/products")
+                .param("filter", "product")
+                .header(HttpHeaders.IF_NONE_MATCH, eTag)
+                .with(jwt().jwt(builder -> builder.claim("scope", "view_catalogue")));
+
+        // when
+        this.mockMvc.perform(requestBuilder)
+                // then
+                .andExpectAll(
+                        status().isNotModified(),
+                        header().string(HttpHeaders.ETAG, eTag),
+                        content().string("")
+                );
+    }
+
+    @Test
+    @Sql("/sql/products.sql")
+    void streamProducts_AcceptsNdjson_StreamsProductsLineByLine() throws Exception {
+        // given
+        var requestBuilder = MockMvcRequestBuilders.get("/catalogue-api/products")
+                .param("filter", "product")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .with(jwt().jwt(builder -> builder.claim("scope", "view_catalogue")));
+
+        // when
+        this.mockMvc.perform(requestBuilder)
+                // then
+                .andExpectAll(
+                        status().isOk(),
+                        content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON),
+                        content().string("""
+                                {"id":1,"title":"Product №1","details":"Description of Product №1"}
+                                {"id":3,"title":"Product №3","details":"Description of Product №3"}""")
+                );
+    }
+
+    @Test
+    @Sql("/sql/products.sql")
+    void streamProductsArray_ReturnsProductsList() throws Exception {
+        // given
+        var requestBuilder = MockMvcRequestBuilders.get("/catalogue-api/products")
+                .param("filter", "product")
+                .param("stream", "true")
+                .with(jwt().jwt(builder -> builder.claim("scope", "view_catalogue")));
+
+        // when
+        this.mockMvc.perform(requestBuilder)
+                // then
+                .andExpectAll(
+                        status().isOk(),
+                        content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON),
+                        content().json("""
+                                [
+                                    {"id": 1, "title": "Product №1", "details": "Description of Product №1"},
+                                    {"id": 3, "title": "Product №3", "details": "Description of Product №3"}
+                                ]""")
+                );
+    }
+
+    @Test
+    @Sql("/sql/products.sql")
+    void findProductsByIds_ReturnsProductsInRequestedOrder() throws Exception {
+        // given
+        var requestBuilder = MockMvcRequestBuilders.get("/catalogue-api/products")
+                .param("ids", "3,1,42")
+                .with(jwt().jwt(builder -> builder.claim("scope", "view_catalogue")));
+
+        // when
+        this.mockMvc.perform(requestBuilder)
+                // then
+                .andExpectAll(
+                        status().isOk(),
+                        content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON),
+                        content().json("""
+                                [
+                                    {"id": 3, "title": "Product №3", "details": "Description of product №3"},
+                                    {"id": 1, "title": "Product №1", "details": "Description of Product №1"}
+                                ]""", true)
+                );
+    }
+
+    @Test
+    @Sql("/sql/products.sql")
+    void findProductsByIdsList_ReturnsProducts() throws Exception {
+        // given
+        var requestBuilder = MockMvcRequestBuilders.post("/catalogue-api/products/by-ids")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[2, 4]")
+                .with(jwt().jwt(builder -> builder.claim("scope", "view_catalogue")));
+
+        // when
+        this.mockMvc.perform(requestBuilder)
+                // then
+                .andExpectAll(
+                        status().isOk(),
+                        content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON),
+                        content().json("""
+                                [
+                                    {"id": 2, "title": "Condom", "details": "Thin"},
+                                    {"id": 4, "title": "Alcohol", "details": "Medical"}
+                                ]""", true)
+                );
+    }
+
+    @Test
+    @Sql("/sql/products.sql")
+    void findProductsPage_SortedByTitle_ReturnsFirstPageWithCursor() throws Exception {
+        // given
+        var requestBuilder = MockMvcRequestBuilders.get("/catalogue-api/products")
+                .param("sort", "title")
+                .param("limit", "2")
+                .with(jwt().jwt(builder -> builder.claim("scope", "view_catalogue")));
+
+        // when
+        this.mockMvc.perform(requestBuilder)
+                // then
+                .andExpectAll(
+                        status().isOk(),
+                        content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON),
+                        content().json("""
+                                {
+                                    "products": [
+                                        {"id": 4, "title": "Alcohol", "details": "Medical"},
+                                        {"id": 2, "title": "Condom", "details": "Thin"}
+                                    ]
+                                }"""),
+                        jsonPath("$.next").isString()
+                );
+    }
+
+    @Test
+    @Sql("/sql/products.sql")
+    void findProductsByIds_LimitIsSet_ReturnsBadRequest() throws Exception {
+        // given
+        var requestBuilder = MockMvcRequestBuilders.get("/catalogue-api/products")
+                .param("ids", "3,1")
+                .param("limit", "2")
+                .locale(Locale.ENGLISH)
+                .with(jwt().jwt(builder -> builder.claim("scope", "view_catalogue")));
+
+        // when
+        this.mockMvc.perform(requestBuilder)
+                // then
+                .andExpectAll(
+                        status().isBadRequest(),
+                        content().contentTypeCompatibleWith(MediaType.APPLICATION_PROBLEM_JSON),
+                        content().json("""
+                                {
+                                    "detail": "Products requested by ids cannot be paged"
+                                }""")
+                );
+    }
+
+    @Test
+    @Sql("/sql/products.sql")
+    void findProductsPage_CursorIsInvalid_ReturnsBadRequest() throws Exception {
+        // given
+        var requestBuilder = MockMvcRequestBuilders.get("/catalogue-api/products")
+                .param("after", "not a cursor")
+                .param("limit", "2")
+                .locale(Locale.ENGLISH)
+                .with(jwt().jwt(builder -> builder.claim("scope", "view_catalogue")));
+
+        // when
+        this.mockMvc.perform(requestBuilder)
+                // then
+                .andExpectAll(
+                        status().isBadRequest(),
+                        content().contentTypeCompatibleWith(MediaType.APPLICATION_PROBLEM_JSON),
+                        content().json("""
+                                {
+                                    "detail": "Page cursor is invalid"
+                                }""")
+                );
+    }
+
     @Test
     @Sql("/sql/products.sql")
     void findProducts_UserIsNotAuthorized_ReturnsForbidden() throws Exception {
@@ -134,4 +323,218 @@ class ProductsRestControllerIT {
                         status().isForbidden()
                 );
     }
-}
\ No newline at end of file
+
+    @Test
+    void createProducts_RequestIsValid_ReturnsCreatedIds() throws Exception {
+        // given
+        var requestBuilder = MockMvcRequestBuilders.post("/catalogue-api/products/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                        {"products": [
+                            {"title": "Batch product №1", "details": "Description of batch product №1"},
+                            {"title": "Batch product №2", "details": null}
+                        ]}""")
+                .with(jwt().jwt(builder -> builder.claim("scope", "edit_catalogue")));
+
+        // when
+        this.mockMvc.perform(requestBuilder)
+                // then
+                .andExpectAll(
+                        status().isCreated(),
+                        content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON),
+                        jsonPath("$.length()").value(2));
+    }
+
+    @Test
+    void createProducts_RequestIsInvalid_ReturnsProblemDetail() throws Exception {
+        // given
+        var requestBuilder = MockMvcRequestBuilders.post("/catalogue-api/products/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                        {"products": []}""")
+                .locale(Locale.ENGLISH)
+                .with(jwt().jwt(builder -> builder.claim("scope", "edit_catalogue")));
+
+        // when
+        this.mockMvc.perform(requestBuilder)
+                // then
+                .andExpectAll(
+                        status().isBadRequest(),
+                        content().contentTypeCompatibleWith(MediaType.APPLICATION_PROBLEM_JSON),
+                        content().json("""
+                                {
+                                    "errors": ["At least one product must be specified"]
+                                }"""));
+    }
+
+    @Test
+    void createProducts_UserIsNotAuthorized_ReturnsForbidden() throws Exception {
+        // given
+        var requestBuilder = MockMvcRequestBuilders.post("/catalogue-api/products/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                        {"products": [{"title": "Batch product", "details": null}]}""")
+                .with(jwt().jwt(builder -> builder.claim("scope", "view_catalogue")));
+
+        // when
+        this.mockMvc.perform(requestBuilder)
+                // then
+                .andExpectAll(
+                        status().isForbidden()
+                );
+    }
+
+    @Test
+    void findChanges_ProductCreated_ReturnsCreatedChange() throws Exception {
+        // given
+        long since = this.jdbcTemplate.queryForObject(
+                "select coalesce(max(id), 0) from catalogue.t_product_change", Long.class);
+        this.mockMvc.perform(MockMvcRequestBuilders.post("/catalogue-api/products")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                        {"title": "Changed product", "details": "Changed product description"}""")
+                .with(jwt().jwt(builder -> builder.claim("scope", "edit_catalogue"))));
+        var requestBuilder = MockMvcRequestBuilders.get("/catalogue-api/products/changes")
+                .param("since", String.valueOf(since))
+                .with(jwt().jwt(builder -> builder.claim("scope", "view_catalogue")));
+
+        // when
+        this.mockMvc.perform(requestBuilder)
+                // then
+                .andExpectAll(
+                        status().isOk(),
+                        content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON),
+                        jsonPath("$.changes.length()").value(1),
+                        jsonPath("$.changes[0].type").value("CREATED"),
+                        jsonPath("$.changes[0].product.title").value("Changed product")
+                );
+    }
+
+    @Test
+    void subscribeToChanges_StartsEventStream() throws Exception {
+        // given
+        var requestBuilder = MockMvcRequestBuilders.get("/catalogue-api/products/events")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .with(jwt().jwt(builder -> builder.claim("scope", "view_catalogue")));
+
+        // when
+        this.mockMvc.perform(requestBuilder)
+                // then
+                .andExpectAll(
+                        request().asyncStarted(),
+                        content().contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM)
+                );
+    }
+
+    @Test
+    @Sql("/sql/products.sql")
+    void findProducts_FieldsAreIdAndTitle_ReturnsProductsWithoutDetails() throws Exception {
+        // given
+        var requestBuilder = MockMvcRequestBuilders.get("/catalogue-api/products")
+                .param("filter", "product")
+                .param("fields", "id,title")
+                .with(jwt().jwt(builder -> builder.claim("scope", "view_catalogue")));
+
+        // when
+        this.mockMvc.perform(requestBuilder)
+                // then
+                .andExpectAll(
+                        status().isOk(),
+                        content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON),
+                        content().json("""
+                                [
+                                    {"id": 1, "title": "Product №1"},
+                                    {"id": 3, "title": "Product №3"}
+                                ]""", true)
+                );
+    }
+
+    @Test
+    @Sql("/sql/products.sql")
+    void findProducts_SmileIsAccepted_ReturnsSmile() throws Exception {
+        // given
+        var smile = MediaType.parseMediaType("application/x-jackson-smile");
+        var requestBuilder = MockMvcRequestBuilders.get("/catalogue-api/products")
+                .param("filter", "product")
+                .accept(smile, MediaType.APPLICATION_JSON)
+                .with(jwt().jwt(builder -> builder.claim("scope", "view_catalogue")));
+
+        // when
+        this.mockMvc.perform(requestBuilder)
+                // then
+                .andExpectAll(
+                        status().isOk(),
+                        content().contentTypeCompatibleWith(smile)
+                );
+    }
+
+    @Test
+    void importProducts_ImportsValidRowsAndReportsRejectedOnes() throws Exception {
+        // given
+        long before = this.jdbcTemplate.queryForObject("select count(*) from catalogue.t_product", Long.class);
+        var requestBuilder = MockMvcRequestBuilders.post("/catalogue-api/products/import")
+                .contentType("text/csv")
+                .content("""
+                        title,details
+                        Imported product,"Description, with comma"
+                        Ab,Too short title
+                        "Product ""quoted""",
+                        """)
+                .with(jwt().jwt(builder -> builder.claim("scope", "edit_catalogue")));
+
+        // when
+        this.mockMvc.perform(requestBuilder)
+                // then
+                .andExpectAll(
+                        status().isOk(),
+                        content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON),
+                        content().string("""
+                                {"line":3,"errors":["Product title must be between 3 and 50 characters"]}
+                                {"imported":2,"rejected":1}""")
+                );
+        assertEquals(before + 2, this.jdbcTemplate.queryForObject("select count(*) from catalogue.t_product",
+                Long.class));
+        assertEquals(1, this.jdbcTemplate.queryForObject(
+                "select count(*) from catalogue.t_product_change where c_title = 'Product \"quoted\"'", Long.class));
+    }
+
+    @Test
+    void importProducts_HeaderIsInvalid_ReturnsBadRequest() throws Exception {
+        // given
+        var requestBuilder = MockMvcRequestBuilders.post("/catalogue-api/products/import")
+                .contentType("text/csv")
+                .content("name,description\nProduct,Description\n")
+                .with(jwt().jwt(builder -> builder.claim("scope", "edit_catalogue")));
+
+        // when
+        this.mockMvc.perform(requestBuilder)
+                // then
+                .andExpectAll(
+                        status().isBadRequest(),
+                        content().contentTypeCompatibleWith(MediaType.APPLICATION_PROBLEM_JSON)
+                );
+    }
+
+    @Test
+    @Sql("/sql/products.sql")
+    void exportProducts_FilterIsSet_ReturnsFilteredCsv() throws Exception {
+        // given
+        var requestBuilder = MockMvcRequestBuilders.get("/catalogue-api/products/export.csv")
+                .param("filter", "product")
+                .with(jwt().jwt(builder -> builder.claim("scope", "view_catalogue")));
+
+        // when
+        this.mockMvc.perform(requestBuilder)
+                // then
+                .andExpectAll(
+                        status().isOk(),
+                        content().contentTypeCompatibleWith("text/csv"),
+                        header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"products.csv\""),
+                        content().string("""
+                                id,title,details
+                                1,Product №1,Description of Product №1
+                                3,Product №3,Description of product №3
+                                """)
+                );
+    }
+}
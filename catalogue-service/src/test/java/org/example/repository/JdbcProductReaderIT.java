@@ -0,0 +1,68 @@
+package org.example.repository;
+
+import jakarta.transaction.Transactional;
+import org.example.entity.Product;
+import org.example.entity.ProductSummary;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Sql("/sql/products.sql")
+@Transactional
+@DisplayName("Інтеграційні тести читання товарів через JdbcClient")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class JdbcProductReaderIT {
+
+    @Autowired
+    DataSource dataSource;
+
+    JdbcProductReader reader;
+
+    @BeforeEach
+    void setUp() {
+        this.reader = new JdbcProductReader(JdbcClient.create(this.dataSource),
+                new TransactionTemplate(new DataSourceTransactionManager(this.dataSource)));
+    }
+
+    @Test
+    void findById_ProductExists_ReturnsProductWithVersion() {
+        //when
+        Optional<Product> product = this.reader.findById(2);
+
+        //then
+        assertEquals(Optional.of(new Product(2, "Condom", "Thin", 0)), product);
+    }
+
+    @Test
+    void findAllByTitleLikeIgnoreCase_ReturnsFilteredProductsList() {
+        //when
+        List<Product> products = this.reader.findAllByTitleLikeIgnoreCase("%condom%");
+
+        //then
+        assertEquals(List.of(new Product(2, "Condom", "Thin")), products);
+    }
+
+    @Test
+    void findAllSummariesByIdIn_ReturnsSummariesOfExistingProducts() {
+        //when
+        List<ProductSummary> summaries = this.reader.findAllSummariesByIdIn(List.of(4, 1, 5));
+
+        //then
+        assertEquals(List.of(new ProductSummary(1, "Product №1"), new ProductSummary(4, "Alcohol")),
+                summaries.stream().sorted((a, b) -> a.id() - b.id()).toList());
+    }
+}
@@ -0,0 +1,76 @@
+package org.example.repository;
+
+import jakarta.transaction.Transactional;
+import org.example.entity.ProductImage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Sql("/sql/products.sql")
+@Transactional
+@DisplayName("Інтеграційні тести зображень товарів")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class ProductImageRepositoryIT {
+
+    static final String HASH = "6105d6cc76af400325e94d588ce511be5bfdbb73b437dc51eca43917d7a43e3d";
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    ProductImageRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        this.repository = new ProductImageRepository(this.jdbcTemplate);
+    }
+
+    @Test
+    void saveAll_ImageIsReplaced_ReturnsNewImage() {
+        //given
+        this.repository.saveAll(List.of(new ProductImage(1, ProductImage.Variant.ORIGINAL, HASH, "image/png", 5)));
+
+        //when
+        this.repository.saveAll(List.of(new ProductImage(1, ProductImage.Variant.ORIGINAL, HASH.replace('6', '7'),
+                "image/jpeg", 7)));
+
+        //then
+        assertEquals(Optional.of(new ProductImage(1, ProductImage.Variant.ORIGINAL, HASH.replace('6', '7'),
+                        "image/jpeg", 7)),
+                this.repository.findByProductIdAndVariant(1, ProductImage.Variant.ORIGINAL));
+        assertTrue(this.repository.findByProductIdAndVariant(1, ProductImage.Variant.THUMBNAIL).isEmpty());
+    }
+
+    @Test
+    void saveAll_ProductDoesNotExist_ThrowsDataIntegrityViolationException() {
+        //when
+        //then
+        assertThrows(DataIntegrityViolationException.class, () -> this.repository.saveAll(
+                List.of(new ProductImage(100, ProductImage.Variant.ORIGINAL, HASH, "image/png", 5))));
+    }
+
+    @Test
+    void findByProductIdAndVariant_ProductIsDeleted_ReturnsEmptyOptional() {
+        //given
+        this.repository.saveAll(List.of(new ProductImage(2, ProductImage.Variant.ORIGINAL, HASH, "image/png", 5),
+                new ProductImage(2, ProductImage.Variant.THUMBNAIL, HASH, "image/png", 5)));
+
+        //when
+        this.jdbcTemplate.update("delete from catalogue.t_product where id = 2");
+
+        //then
+        assertTrue(this.repository.findByProductIdAndVariant(2, ProductImage.Variant.ORIGINAL).isEmpty());
+        assertTrue(this.repository.findByProductIdAndVariant(2, ProductImage.Variant.THUMBNAIL).isEmpty());
+    }
+}
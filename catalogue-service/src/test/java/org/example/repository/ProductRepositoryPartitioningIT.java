@@ -0,0 +1,121 @@
+package org.example.repository;
+
+import jakarta.transaction.Transactional;
+import org.example.entity.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Transactional
+@DisplayName("Інтеграційні тести відсікання секцій t_product")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class ProductRepositoryPartitioningIT {
+
+    private static final Pattern PARTITION = Pattern.compile("t_product_p\\d\\d");
+
+    @Autowired
+    ProductRepository productRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    List<Integer> ids;
+
+    @BeforeEach
+    void setUp() {
+        this.ids = this.jdbcTemplate.queryForList("""
+                insert into catalogue.t_product (c_title, c_details)
+                select 'Product ' || g, 'Description of product ' || g
+                from generate_series(1, 1000) g
+                returning id""", Integer.class);
+        this.jdbcTemplate.execute("analyze catalogue.t_product");
+    }
+
+    @Test
+    void findById_GenericPlan_PrunesPartitionsAtExecutorStartup() {
+        //given
+        int id = this.ids.get(0);
+
+        //when
+        // загальний план не знає id, тож секції відсікаються вже під час виконання
+        List<String> plan = this.explainPrepared("select * from catalogue.t_product where id = $1", "int",
+                String.valueOf(id), "force_generic_plan");
+        var product = this.productRepository.findById(id);
+
+        //then
+        assertEquals(1, scannedPartitions(plan), () -> String.join("\n", plan));
+        assertTrue(plan.stream().anyMatch(line -> line.contains("Subplans Removed: 15")),
+                () -> String.join("\n", plan));
+        assertEquals("Product 1", product.map(Product::getTitle).orElseThrow());
+    }
+
+    @Test
+    void findAllByIdIn_PreparedQuery_ScansOnlyPartitionsOfRequestedIds() throws NoSuchMethodException {
+        //given
+        Integer[] requested = {this.ids.get(0), this.ids.get(1)};
+        String query = ProductRepository.class.getMethod("findAllByIdIn", Integer[].class)
+                .getAnnotation(Query.class).value()
+                .replace(":ids", "$1");
+
+        //when
+        // той самий режим, що й у застосунку: після п'яти виконань Postgres обирає між custom та загальним планом
+        List<String> plan = this.explainPrepared(query, "int[]",
+                "'{%d,%d}'".formatted(requested[0], requested[1]), "auto");
+        List<Product> products = this.productRepository.findAllByIdIn(requested);
+
+        //then
+        assertTrue(scannedPartitions(plan) <= 2, () -> String.join("\n", plan));
+        assertEquals(2, products.size());
+    }
+
+    @Test
+    void findPageOrderById_ReturnsPageAcrossPartitionsInIdOrder() {
+        //given
+        int afterId = this.ids.get(10);
+
+        //when
+        List<Product> page = this.productRepository.findPageOrderById(afterId, 5);
+
+        //then
+        assertEquals(this.ids.subList(11, 16), page.stream().map(Product::getId).toList());
+    }
+
+    /*
+     План підготовленого запиту, як його виконує драйвер з параметрами, а не з літералами в тексті.
+     plan_cache_mode діє лише до кінця транзакції тесту
+    */
+    private List<String> explainPrepared(String query, String parameterType, String argument, String planCacheMode) {
+        this.jdbcTemplate.execute("set local plan_cache_mode = " + planCacheMode);
+        this.jdbcTemplate.execute("prepare product_query(%s) as %s".formatted(parameterType, query));
+        try {
+            for (int i = 0; i < 5; i++) {
+                this.jdbcTemplate.queryForList("execute product_query(%s)".formatted(argument));
+            }
+            return this.jdbcTemplate.queryForList("explain execute product_query(%s)".formatted(argument),
+                    String.class);
+        } finally {
+            this.jdbcTemplate.execute("deallocate product_query");
+        }
+    }
+
+    private static long scannedPartitions(List<String> plan) {
+        return plan.stream()
+                .map(PARTITION::matcher)
+                .filter(Matcher::find)
+                .map(Matcher::group)
+                .distinct()
+                .count();
+    }
+}
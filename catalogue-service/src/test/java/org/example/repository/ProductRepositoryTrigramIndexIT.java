@@ -0,0 +1,72 @@
+package org.example.repository;
+
+import jakarta.transaction.Transactional;
+import org.example.entity.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.stream.StreamSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Transactional
+@DisplayName("Інтеграційні тести триграмного індексу для пошуку товарів за назвою")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class ProductRepositoryTrigramIndexIT {
+
+    @Autowired
+    ProductRepository productRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        this.jdbcTemplate.update("""
+                insert into catalogue.t_product (c_title, c_details)
+                select 'Product ' || g, 'Description of product ' || g
+                from generate_series(1, 1000000) g""");
+        // без свіжої статистики планувальник не знає розміру таблиці
+        this.jdbcTemplate.execute("analyze catalogue.t_product");
+    }
+
+    @Test
+    void findAllByTitleLikeIgnoreCase_UsesTrigramIndex() throws NoSuchMethodException {
+        //given
+        String filter = "%DUCT 123456%";
+        // текст запиту з репозиторію, фільтр іде параметром, як від драйвера
+        String query = ProductRepository.class.getMethod("findAllByTitleLikeIgnoreCase", String.class)
+                .getAnnotation(Query.class).value()
+                .replace(":filter", "$1");
+
+        //when
+        List<String> plan;
+        this.jdbcTemplate.execute("prepare product_query(text) as " + query);
+        try {
+            // після п'яти виконань Postgres обирає між custom та загальним планом
+            for (int i = 0; i < 5; i++) {
+                this.jdbcTemplate.queryForList("execute product_query('%s')".formatted(filter));
+            }
+            plan = this.jdbcTemplate.queryForList("explain execute product_query('%s')".formatted(filter),
+                    String.class);
+        } finally {
+            this.jdbcTemplate.execute("deallocate product_query");
+        }
+        Iterable<Product> products = this.productRepository.findAllByTitleLikeIgnoreCase(filter);
+
+        //then
+        // у секціях індекс називається за таблицею секції, наприклад t_product_p00_c_title_idx
+        assertTrue(plan.stream().anyMatch(line -> line.contains("Bitmap Index Scan") && line.contains("_c_title_idx")),
+                () -> String.join("\n", plan));
+        assertEquals(List.of("Product 123456"),
+                StreamSupport.stream(products.spliterator(), false).map(Product::getTitle).toList());
+    }
+}
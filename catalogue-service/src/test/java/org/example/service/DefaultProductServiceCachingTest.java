@@ -0,0 +1,183 @@
+package org.example.service;
+
+import jakarta.persistence.EntityManager;
+import org.example.config.CacheBeans;
+import org.example.entity.Product;
+import org.example.repository.ProductChangeRepository;
+import org.example.repository.ProductCopyRepository;
+import org.example.repository.ProductRepository;
+import org.example.service.batching.ProductBatchLoader;
+import org.example.service.cache.ProductCacheInvalidator;
+import org.example.service.search.ProductIdSet;
+import org.example.service.search.ProductSearchIndex;
+import org.example.service.search.ProductTitleSuggester;
+import org.example.service.snapshot.ProductSnapshot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/*
+ Перевіряє, що кеш товарів не заповнюється застарілою версією одразу після зміни: ні з репліки,
+ ні з читання, що перетнулося з видаленням з кешу
+*/
+@SpringJUnitConfig(DefaultProductServiceCachingTest.Config.class)
+class DefaultProductServiceCachingTest {
+
+    static final Clock CLOCK = mock(Clock.class);
+
+    @Configuration
+    @EnableCaching
+    @Import(DefaultProductService.class)
+    static class Config {
+
+        @Bean
+        CacheManager cacheManager() {
+            return new ConcurrentMapCacheManager(CacheBeans.PRODUCTS_CACHE);
+        }
+
+        @Bean
+        ProductCacheInvalidator productCacheInvalidator(CacheManager cacheManager) {
+            return new ProductCacheInvalidator(cacheManager.getCache(CacheBeans.PRODUCTS_CACHE),
+                    mock(JdbcTemplate.class), Duration.ofSeconds(5), CLOCK);
+        }
+    }
+
+    // ProductRepository реалізує ProductReader, тож сервіс отримує цей самий мок і для читання
+    @MockBean
+    ProductRepository productRepository;
+
+    @MockBean
+    ProductChangeRepository productChangeRepository;
+
+    @MockBean
+    ProductCopyRepository productCopyRepository;
+
+    @MockBean
+    ProductSearchIndex productSearchIndex;
+
+    @MockBean
+    ProductTitleSuggester productTitleSuggester;
+
+    @MockBean
+    ProductIdSet productIdSet;
+
+    @MockBean
+    ProductBatchLoader productBatchLoader;
+
+    // на нього посилається condition у @Cacheable
+    @MockBean(name = "productSnapshot")
+    ProductSnapshot productSnapshot;
+
+    @MockBean
+    ReplicaReadFence replicaReadFence;
+
+    @MockBean
+    EntityManager entityManager;
+
+    @Autowired
+    ProductService productService;
+
+    @Autowired
+    ProductCacheInvalidator productCacheInvalidator;
+
+    @Autowired
+    CacheManager cacheManager;
+
+    @BeforeEach
+    void setUp() {
+        reset(CLOCK);
+        doReturn(1_000L).when(CLOCK).millis();
+        this.cacheManager.getCache(CacheBeans.PRODUCTS_CACHE).clear();
+        doReturn(true).when(this.productIdSet).mightContain(anyInt());
+    }
+
+    @Test
+    void findProduct_ReplicaLagsBehindChangeFromOtherNode_DoesNotCacheStaleProduct() {
+        //given
+        var stale = new Product(1, "Товар", "Опис", 0);
+        var updated = new Product(1, "Новий товар", "Новий опис", 1);
+        this.productCacheInvalidator.evict("UPDATED:1");
+        doReturn(Optional.of(stale)).doReturn(Optional.of(updated)).when(this.productRepository).findById(1);
+
+        //when
+        var first = this.productService.findProduct(1);
+        var second = this.productService.findProduct(1);
+
+        //then
+        assertEquals(Optional.of(stale), first);
+        assertEquals(Optional.of(updated), second);
+        verify(this.productRepository, times(2)).findById(1);
+    }
+
+    @Test
+    void findProduct_SnapshotIsReady_BypassesCache() {
+        //given
+        var product = new Product(1, "Товар", "Опис", 0);
+        var updated = new Product(1, "Новий товар", "Новий опис", 1);
+        doReturn(true).when(this.productSnapshot).isReady();
+        doReturn(Optional.of(product)).doReturn(Optional.of(updated)).when(this.productSnapshot).find(1);
+
+        //when
+        var first = this.productService.findProduct(1);
+        var second = this.productService.findProduct(1);
+
+        //then
+        assertEquals(Optional.of(product), first);
+        assertEquals(Optional.of(updated), second);
+        assertNull(this.cacheManager.getCache(CacheBeans.PRODUCTS_CACHE).get(1));
+    }
+
+    @Test
+    void findProduct_FenceExpired_CachesProduct() {
+        //given
+        var product = new Product(1, "Товар", "Опис", 1);
+        this.productCacheInvalidator.evict("UPDATED:1");
+        doReturn(6_000L).when(CLOCK).millis();
+        doReturn(Optional.of(product)).when(this.productRepository).findById(1);
+
+        //when
+        this.productService.findProduct(1);
+        var cached = this.productService.findProduct(1);
+
+        //then
+        assertEquals(Optional.of(product), cached);
+        verify(this.productRepository).findById(1);
+    }
+
+    @Test
+    void findProduct_ProductChangedWhileReading_DoesNotCacheStaleProduct() {
+        //given
+        var stale = new Product(1, "Товар", "Опис", 0);
+        var updated = new Product(1, "Новий товар", "Новий опис", 1);
+        // рядок прочитано до коміту зміни, а видалення з кешу відбулося до кінця читання
+        doAnswer(invocation -> {
+            this.productCacheInvalidator.evict(ProductChangedEvent.updated(updated));
+            return Optional.of(stale);
+        }).doReturn(Optional.of(updated)).when(this.productRepository).findById(1);
+
+        //when
+        var first = this.productService.findProduct(1);
+        var second = this.productService.findProduct(1);
+
+        //then
+        assertEquals(Optional.of(stale), first);
+        assertEquals(Optional.of(updated), second);
+        verify(this.productRepository, times(2)).findById(1);
+    }
+}
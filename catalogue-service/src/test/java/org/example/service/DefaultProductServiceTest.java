@@ -1,18 +1,42 @@
 package org.example.service;
 
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
 import org.example.entity.Product;
+import org.example.entity.ProductSummary;
+import org.example.entity.ProductChange;
+import org.example.repository.ProductChangeRepository;
+import org.example.repository.ProductCopyRepository;
 import org.example.repository.ProductRepository;
+import org.example.service.batching.ProductBatchLoader;
+import org.example.service.search.ProductIdSet;
+import org.example.service.search.ProductSearchIndex;
+import org.example.service.search.ProductSuggestion;
+import org.example.service.search.ProductTitleSuggester;
+import org.example.service.snapshot.ProductSnapshot;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
 
+import java.io.ByteArrayOutputStream;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -20,12 +44,78 @@ import static org.mockito.Mockito.*;
 @ExtendWith(MockitoExtension.class)
 public class DefaultProductServiceTest {
 
+    // ProductRepository реалізує ProductReader, тож сервіс отримує цей самий мок і для читання
     @Mock
     ProductRepository productRepository;
 
+    @Mock
+    ProductChangeRepository productChangeRepository;
+
+    @Mock
+    ProductCopyRepository productCopyRepository;
+
+    @Mock
+    ProductSearchIndex productSearchIndex;
+
+    @Mock
+    ProductTitleSuggester productTitleSuggester;
+
+    @Mock
+    ProductBatchLoader productBatchLoader;
+
+    // вимкнений набір id пропускає всі запити в базу даних
+    @Spy
+    ProductIdSet productIdSet = new ProductIdSet(null, null, false, Duration.ofSeconds(1));
+
+    @Mock
+    ProductSnapshot productSnapshot;
+
+    @Mock
+    ReplicaReadFence replicaReadFence;
+
+    @Mock
+    ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    EntityManager entityManager;
+
     @InjectMocks
     DefaultProductService service;
 
+    @Test
+    void streamProducts_FilterIsSet_PassesProductsToConsumerAndDetachesThem() {
+        //given
+        var product1 = new Product(1, "Товар №1", "Опис товару №1");
+        var product2 = new Product(2, "Товар №2", "Опис товару №2");
+        doReturn(Stream.of(product1, product2)).when(this.productRepository)
+                .streamAllByTitleLikeIgnoreCase("%товар%");
+        List<Product> streamed = new ArrayList<>();
+
+        //when
+        this.service.streamProducts("товар", streamed::add);
+
+        //then
+        assertEquals(List.of(product1, product2), streamed);
+
+        verify(this.entityManager).detach(product1);
+        verify(this.entityManager).detach(product2);
+        verify(this.productRepository).streamAllByTitleLikeIgnoreCase("%товар%");
+        verifyNoMoreInteractions(this.productRepository);
+    }
+
+    @Test
+    void exportProducts_FilterIsSet_ExportsWithLikePattern() {
+        //given
+        var out = new ByteArrayOutputStream();
+
+        //when
+        this.service.exportProducts("товар", out);
+
+        //then
+        verify(this.productCopyRepository).exportProducts("%товар%", out);
+        verifyNoInteractions(this.productRepository);
+    }
+
     @Test
     void findAllProducts_FilterIsNotSet_ReturnsProductsList() {
         //given
@@ -66,6 +156,135 @@ public class DefaultProductServiceTest {
         verifyNoMoreInteractions(this.productRepository);
     }
 
+    @Test
+    void findAllProducts_FilterIsSetAndSearchIndexIsReady_ReturnsProductsFromIndex() {
+        //given
+        List<Product> products = IntStream.range(1,4)
+                .mapToObj(i -> new Product(i, "Product №%d".formatted(i),
+                        "Product description №%d".formatted(i)))
+                .toList();
+
+        doReturn(true).when(this.productSearchIndex).isReady();
+        doReturn(products).when(this.productSearchIndex).search("product");
+
+        //when
+        Iterable<Product> result = this.service.findAllProducts("product");
+
+        //then
+        assertEquals(products, result);
+
+        verifyNoInteractions(this.productRepository);
+    }
+
+    @Test
+    void findAllProductSummaries_FilterIsSet_ReturnsSummariesFromProjection() {
+        //given
+        List<ProductSummary> summaries = List.of(new ProductSummary(1, "Product №1"),
+                new ProductSummary(2, "Product №2"));
+
+        doReturn(summaries).when(this.productRepository).findAllSummariesByTitleLikeIgnoreCase("%product%");
+
+        //when
+        List<ProductSummary> result = this.service.findAllProductSummaries("product");
+
+        //then
+        assertEquals(summaries, result);
+
+        verify(this.productRepository).findAllSummariesByTitleLikeIgnoreCase("%product%");
+        verifyNoMoreInteractions(this.productRepository);
+    }
+
+    @Test
+    void findAllProductSummaries_FilterIsSetAndSearchIndexIsReady_ReturnsSummariesFromIndex() {
+        //given
+        doReturn(true).when(this.productSearchIndex).isReady();
+        doReturn(List.of(new Product(1, "Product №1", "Product description №1")))
+                .when(this.productSearchIndex).search("product");
+
+        //when
+        List<ProductSummary> result = this.service.findAllProductSummaries("product");
+
+        //then
+        assertEquals(List.of(new ProductSummary(1, "Product №1")), result);
+
+        verifyNoInteractions(this.productRepository);
+    }
+
+    @Test
+    void findProductsPage_FilterIsNotSetAndSortedById_ReturnsPageAfterCursor() {
+        //given
+        List<Product> products = IntStream.range(11, 14)
+                .mapToObj(i -> new Product(i, "Product №%d".formatted(i),
+                        "Product description №%d".formatted(i)))
+                .toList();
+
+        doReturn(products).when(this.productRepository).findPageOrderById(10, 3);
+
+        //when
+        List<Product> result = this.service.findProductsPage(null,
+                new ProductsCursor(ProductsSort.ID, 10, ""), 3);
+
+        //then
+        assertEquals(products, result);
+
+        verify(this.productRepository).findPageOrderById(10, 3);
+        verifyNoMoreInteractions(this.productRepository);
+    }
+
+    @Test
+    void findProductsPage_FilterIsSetAndSortedByTitle_ReturnsFilteredPageAfterCursor() {
+        //given
+        List<Product> products = IntStream.range(11, 14)
+                .mapToObj(i -> new Product(i, "Product №%d".formatted(i),
+                        "Product description №%d".formatted(i)))
+                .toList();
+
+        doReturn(products).when(this.productRepository)
+                .findPageByTitleOrderByTitle("%product%", "Product №10", 10, 3);
+
+        //when
+        List<Product> result = this.service.findProductsPage("product",
+                new ProductsCursor(ProductsSort.TITLE, 10, "Product №10"), 3);
+
+        //then
+        assertEquals(products, result);
+
+        verify(this.productRepository).findPageByTitleOrderByTitle("%product%", "Product №10", 10, 3);
+        verifyNoMoreInteractions(this.productRepository);
+    }
+
+    @Test
+    void suggestProducts_SuggesterIsReady_ReturnsSuggestionsFromTrie() {
+        //given
+        doReturn(true).when(this.productTitleSuggester).isReady();
+        doReturn(List.of(new ProductSuggestion(1, "Product №1")))
+                .when(this.productTitleSuggester).suggest("prod", 10);
+
+        //when
+        List<ProductSuggestion> result = this.service.suggestProducts("prod", 10);
+
+        //then
+        assertEquals(List.of(new ProductSuggestion(1, "Product №1")), result);
+
+        verifyNoInteractions(this.productRepository);
+    }
+
+    @Test
+    void suggestProducts_SuggesterIsNotReady_ReturnsSuggestionsFromDatabase() {
+        //given
+        doReturn(List.of(new Product(1, "Product №1", "Product description №1")))
+                .when(this.productRepository).findPageByTitleOrderByTitle("prod%", "", 0, 10);
+
+        //when
+        List<ProductSuggestion> result = this.service.suggestProducts("prod", 10);
+
+        //then
+        assertEquals(List.of(new ProductSuggestion(1, "Product №1")), result);
+
+        verify(this.productRepository).findPageByTitleOrderByTitle("prod%", "", 0, 10);
+        verifyNoMoreInteractions(this.productRepository);
+    }
+
     @Test
     void findProduct_ProductExists_ReturnsNotEmptyOptional() {
         //given
@@ -101,6 +320,163 @@ public class DefaultProductServiceTest {
         verifyNoMoreInteractions(this.productRepository);
     }
 
+    @Test
+    void findProduct_IdIsNotInIdSet_ReturnsEmptyOptionalWithoutQuery() {
+        //given
+        doReturn(false).when(this.productIdSet).mightContain(7);
+
+        //when
+        Optional<Product> result = this.service.findProduct(7);
+
+        //then
+        assertTrue(result.isEmpty());
+        verifyNoInteractions(this.productRepository, this.productBatchLoader);
+    }
+
+    @Test
+    void findProduct_SnapshotIsReady_ReturnsProductFromSnapshotWithoutQuery() {
+        //given
+        var product = new Product(1, "Product №1", "Product description №1");
+        doReturn(true).when(this.productSnapshot).isReady();
+        doReturn(Optional.of(product)).when(this.productSnapshot).find(1);
+
+        //when
+        Optional<Product> result = this.service.findProduct(1);
+
+        //then
+        assertEquals(product, result.orElseThrow());
+        verifyNoInteractions(this.productRepository, this.productBatchLoader);
+    }
+
+    @Test
+    void findProduct_SnapshotHasNotCaughtUp_ReadsProductFromDatabase() {
+        //given
+        // товар створено на іншому вузлі, а знімок ще не застосував цю зміну з журналу
+        var product = new Product(1, "Product №1", "Product description №1");
+        doReturn(true).when(this.productSnapshot).isReady();
+        doReturn(Optional.empty()).when(this.productSnapshot).find(1);
+        doReturn(Optional.of(product)).when(this.productRepository).findById(1);
+
+        //when
+        Optional<Product> result = this.service.findProduct(1);
+
+        //then
+        assertEquals(product, result.orElseThrow());
+    }
+
+    @Test
+    void findAllProducts_FilterIsNotSetAndSnapshotIsReady_ReturnsProductsFromSnapshot() {
+        //given
+        var products = List.of(new Product(1, "Product №1", "Product description №1"));
+        doReturn(true).when(this.productSnapshot).isReady();
+        doReturn(products).when(this.productSnapshot).findAll();
+
+        //when
+        var result = this.service.findAllProducts(null);
+
+        //then
+        assertEquals(products, result);
+        verifyNoInteractions(this.productRepository);
+    }
+
+    @Test
+    void findProduct_BatchingIsEnabled_LoadsProductThroughBatchLoader() {
+        //given
+        var product = new Product(1, "Product №1", "Product description №1");
+        doReturn(true).when(this.productBatchLoader).isEnabled();
+        doReturn(Optional.of(product)).when(this.productBatchLoader).load(1);
+
+        //when
+        Optional<Product> result = this.service.findProduct(1);
+
+        //then
+        assertEquals(product, result.orElseThrow());
+        verifyNoInteractions(this.productRepository);
+    }
+
+    @Test
+    void findProduct_ConcurrentCallsForSameId_RunSingleQuery() throws Exception {
+        //given
+        var product = new Product(1, "Product №1", "Product description №1");
+        var registry = new SimpleMeterRegistry();
+        this.service.bindTo(registry);
+        int callers = 16;
+        // запит не завершується, поки решта викликачів не стануть в очікування
+        doAnswer(invocation -> {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (coalescedReads(registry, "find_product") < callers - 1 && System.nanoTime() < deadline) {
+                Thread.onSpinWait();
+            }
+            return Optional.of(product);
+        }).when(this.productRepository).findById(1);
+        var executor = Executors.newFixedThreadPool(callers);
+
+        //when
+        List<Future<Optional<Product>>> results = new ArrayList<>();
+        for (int i = 0; i < callers; i++) {
+            results.add(executor.submit(() -> this.service.findProduct(1)));
+        }
+
+        //then
+        for (Future<Optional<Product>> result : results) {
+            assertEquals(product, result.get(10, TimeUnit.SECONDS).orElseThrow());
+        }
+        executor.shutdown();
+        verify(this.productRepository).findById(1);
+        assertEquals(callers - 1, coalescedReads(registry, "find_product"));
+    }
+
+    @Test
+    void findProduct_ClientIsFenced_DoesNotJoinInFlightQuery() throws Exception {
+        //given
+        var stale = new Product(1, "Product №1", "Product description №1", 0);
+        var fresh = new Product(1, "Product №1", "New product description №1", 1);
+        var registry = new SimpleMeterRegistry();
+        this.service.bindTo(registry);
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        // перший запит (з репліки) висить, поки клієнт з бар'єром не отримає свій результат
+        doAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.of(stale);
+        }).doReturn(Optional.of(fresh)).when(this.productRepository).findById(1);
+        doReturn(false).doReturn(true).when(this.replicaReadFence).isActive();
+        var executor = Executors.newSingleThreadExecutor();
+        Future<Optional<Product>> inFlight = executor.submit(() -> this.service.findProduct(1));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        //when
+        Optional<Product> result = this.service.findProduct(1);
+
+        //then
+        release.countDown();
+        assertEquals(fresh, result.orElseThrow());
+        assertEquals(stale, inFlight.get(10, TimeUnit.SECONDS).orElseThrow());
+        executor.shutdown();
+        assertEquals(0, coalescedReads(registry, "find_product"));
+    }
+
+    @Test
+    void findAllProducts_CalledAfterCoalescedQueryCompleted_RunsNewQuery() {
+        //given
+        doReturn(List.of()).when(this.productRepository).findAllByTitleLikeIgnoreCase("%product%");
+
+        //when
+        this.service.findAllProducts("product");
+        this.service.findAllProducts("product");
+
+        //then
+        verify(this.productRepository, times(2)).findAllByTitleLikeIgnoreCase("%product%");
+    }
+
+    private static double coalescedReads(MeterRegistry registry, String operation) {
+        return registry.get("catalogue.products.reads")
+                .tags("operation", operation, "outcome", "coalesced")
+                .functionCounter()
+                .count();
+    }
+
     @Test
     void createProduct_ReturnsCreatedProduct() {
         String title = "New product";
@@ -118,55 +494,172 @@ public class DefaultProductServiceTest {
 
         verify(this.productRepository)
                 .save(new Product(null, "New product", "Description of new product"));
+        verify(this.eventPublisher).publishEvent(ProductChangedEvent.created(
+                new Product(1, "New product", "Description of new product")));
+
+        verifyNoMoreInteractions(this.productRepository);
+    }
+
+    @Test
+    void findProductsByIds_ReturnsExistingProductsInRequestedOrder() {
+        //given
+        doReturn(List.of(new Product(1, "Товар №1", "Опис товару №1"),
+                new Product(3, "Товар №3", "Опис товару №3")))
+                .when(this.productRepository).findAllByIdIn(new Integer[]{3, 2, 1});
+
+        //when
+        List<Product> result = this.service.findProductsByIds(List.of(3, 2, 1, 3));
+
+        //then
+        assertEquals(List.of(new Product(3, "Товар №3", "Опис товару №3"),
+                new Product(1, "Товар №1", "Опис товару №1")), result);
 
+        verify(this.productRepository).findAllByIdIn(new Integer[]{3, 2, 1});
         verifyNoMoreInteractions(this.productRepository);
     }
 
     @Test
-    void updateProduct_ProductExists_UpdateProduct() {
+    void importProducts_PublishesSingleImportedEvent() {
         //given
-        Integer productId = 1;
-        Product product = new Product(1, "New product", "Description of new product");
-        String title = "New title";
-        String details = "New description";
+        var products = List.of(new Product(null, "New product №1", "Description №1"),
+                new Product(null, "New product №2", null)).iterator();
+
+        doReturn(2).when(this.productCopyRepository).importProducts(products);
+
+        //when
+        int result = this.service.importProducts(products);
+
+        //then
+        assertEquals(2, result);
+
+        verify(this.productCopyRepository).importProducts(products);
+        verify(this.eventPublisher).publishEvent(new ProductsImportedEvent(2));
+        verifyNoMoreInteractions(this.eventPublisher);
+        verifyNoInteractions(this.productRepository, this.productChangeRepository);
+    }
+
+    @Test
+    void createProducts_ReturnsCreatedProductsInOrder() {
+        //given
+        List<Product> products = List.of(new Product(null, "New product №1", "Description №1"),
+                new Product(null, "New product №2", null));
+
+        doReturn(List.of(new Product(1, "New product №1", "Description №1"),
+                new Product(2, "New product №2", null)))
+                .when(this.productRepository)
+                .saveAll(products);
+
+        //when
+        List<Product> result = this.service.createProducts(products);
+
+        //then
+        assertEquals(List.of(new Product(1, "New product №1", "Description №1"),
+                new Product(2, "New product №2", null)), result);
 
-        doReturn(Optional.of(product))
-                .when(this.productRepository).findById(1);
+        verify(this.productRepository).saveAll(products);
+        verify(this.eventPublisher).publishEvent(ProductChangedEvent.created(
+                new Product(1, "New product №1", "Description №1")));
+        verify(this.eventPublisher).publishEvent(ProductChangedEvent.created(
+                new Product(2, "New product №2", null)));
+
+        verifyNoMoreInteractions(this.productRepository);
+    }
+
+    @Test
+    void updateProduct_ProductExists_UpdatesProductInOneStatement() {
+        //given
+        doReturn(Optional.of(4))
+                .when(this.productRepository).updateProductIfVersionMatches(1, 3, "New title", "New description");
 
         //when
-        this.service.updateProduct(productId, title, details);
+        int result = this.service.updateProduct(1, 3, "New title", "New description");
 
         //then
-        verify(this.productRepository).findById(productId);
+        assertEquals(4, result);
+
+        verify(this.productRepository).updateProductIfVersionMatches(1, 3, "New title", "New description");
+        verify(this.productChangeRepository).append(List.of(ProductChangedEvent.updated(
+                new Product(1, "New title", "New description", 4))));
+        verify(this.eventPublisher).publishEvent(ProductChangedEvent.updated(
+                new Product(1, "New title", "New description", 4)));
         verifyNoMoreInteractions(this.productRepository);
     }
 
+    @Test
+    void updateProduct_VersionDoesNotMatch_ThrowsOptimisticLockingFailureException() {
+        //given
+        doReturn(Optional.empty())
+                .when(this.productRepository).updateProductIfVersionMatches(1, 3, "New title", "New description");
+        doReturn(true).when(this.productRepository).existsById(1);
+
+        //when
+        var exception = assertThrows(OptimisticLockingFailureException.class,
+                () -> this.service.updateProduct(1, 3, "New title", "New description"));
+
+        //then
+        assertEquals("catalogue.errors.product.version_mismatch", exception.getMessage());
+        verifyNoInteractions(this.eventPublisher);
+    }
+
     @Test
     void updateProduct_ProductDoesNotExist_ThrowsNoSuchElementException() {
         //given
-        Integer productId = 1;
-        String title = "New title";
-        String details = "New description";
+        doReturn(Optional.empty())
+                .when(this.productRepository).updateProduct(1, "New title", "New description");
 
         //when
-        assertThrows(NoSuchElementException.class,
-                () -> this.service.updateProduct(productId, title, details));
+        var exception = assertThrows(NoSuchElementException.class,
+                () -> this.service.updateProduct(1, null, "New title", "New description"));
 
         //then
-        verify(this.productRepository).findById(productId);
+        assertEquals("catalogue.errors.product.not_found", exception.getMessage());
+
+        verify(this.productRepository).updateProduct(1, "New title", "New description");
+        verify(this.productRepository).existsById(1);
         verifyNoMoreInteractions(this.productRepository);
+        verifyNoInteractions(this.eventPublisher);
     }
 
     @Test
     void deleteProduct_DeletesProduct() {
         //given
-        Integer productId = 1;
+        doReturn(1).when(this.productRepository).deleteProduct(1);
 
         //when
-        this.service.deleteProduct(productId);
+        this.service.deleteProduct(1, null);
 
         //then
-        verify(this.productRepository).deleteById(productId);
+        verify(this.productRepository).deleteProduct(1);
+        verify(this.productChangeRepository).append(List.of(ProductChangedEvent.deleted(1)));
+        verify(this.eventPublisher).publishEvent(ProductChangedEvent.deleted(1));
         verifyNoMoreInteractions(this.productRepository);
     }
+
+    @Test
+    void deleteProduct_VersionDoesNotMatch_ThrowsOptimisticLockingFailureException() {
+        //given
+        doReturn(0).when(this.productRepository).deleteProductIfVersionMatches(1, 2);
+        doReturn(true).when(this.productRepository).existsById(1);
+
+        //when
+        assertThrows(OptimisticLockingFailureException.class, () -> this.service.deleteProduct(1, 2));
+
+        //then
+        verifyNoInteractions(this.eventPublisher, this.productChangeRepository);
+    }
+
+    @Test
+    void findChanges_ReturnsChangesAfterToken() {
+        //given
+        List<ProductChange> changes = List.of(
+                new ProductChange(11, ProductChangedEvent.Type.UPDATED, 1, new Product(1, "Товар №1", null, 2)),
+                new ProductChange(12, ProductChangedEvent.Type.DELETED, 2, null));
+        doReturn(changes).when(this.productChangeRepository).findAllAfter(10, 100);
+
+        //when
+        List<ProductChange> result = this.service.findChanges(10, 100);
+
+        //then
+        assertEquals(changes, result);
+    }
 }
@@ -0,0 +1,36 @@
+package org.example.service;
+
+import org.example.repository.ProductChangeRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ProductChangeLogCompactorTest {
+
+    ProductChangeRepository productChangeRepository = mock(ProductChangeRepository.class);
+
+    Clock clock = Clock.fixed(Instant.parse("2024-05-08T12:00:00Z"), ZoneOffset.UTC);
+
+    @Test
+    void compact_MoreThanOneBatchIsSuperseded_DeletesBatchesUntilLastIsPartial() {
+        //given
+        var before = Instant.parse("2024-05-01T12:00:00Z");
+        doReturn(10_000).doReturn(10_000).doReturn(42).when(this.productChangeRepository).compact(before, 10_000);
+        var compactor = new ProductChangeLogCompactor(this.productChangeRepository, Duration.ofDays(7),
+                Duration.ofHours(1), this.clock);
+
+        //when
+        long result = compactor.compact();
+
+        //then
+        assertEquals(20_042, result);
+        verify(this.productChangeRepository, times(3)).compact(before, 10_000);
+        compactor.close();
+    }
+}
@@ -0,0 +1,68 @@
+package org.example.service;
+
+import jakarta.transaction.Transactional;
+import org.example.entity.Product;
+import org.example.repository.ProductRepository;
+import org.example.service.search.NGramIndex;
+import org.example.service.search.ProductSearchRanking;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.stream.StreamSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Transactional
+@DisplayName("Пошук в індексі в пам'яті та в базі даних повертає ті самі товари")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class ProductSearchParityIT {
+
+    @Autowired
+    ProductRepository productRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        this.jdbcTemplate.batchUpdate("insert into catalogue.t_product (c_title, c_details) values (?, ?)", List.of(
+                new Object[]{"Знижка 50%", "Товар зі знижкою"},
+                new Object[]{"Знижка 500 гривень", "Товар зі знижкою"},
+                new Object[]{"snake_case", "Підкреслення"},
+                new Object[]{"snakeXcase", "Без підкреслення"},
+                new Object[]{"Back\\slash", "Зворотна коса риска"},
+                new Object[]{"PRODUCT one", "Description of product"},
+                new Object[]{"product two", "Description of product"},
+                new Object[]{"Alcohol", "Medical product"}));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"50%", "e_c", "_", "%", "\\", "\\s", "product", "PRODUCT", "знижка", "co"})
+    void search_SameFilter_ReturnsSameProducts(String filter) {
+        //given
+        NGramIndex index = new NGramIndex();
+        this.productRepository.findAll().forEach(index::put);
+
+        //when
+        List<Integer> database = StreamSupport.stream(this.productRepository
+                        .findAllByTitleLikeIgnoreCase(DefaultProductService.containing(filter)).spliterator(), false)
+                .map(Product::getId)
+                .sorted()
+                .toList();
+        List<Integer> memory = index.search(filter, ProductSearchRanking.ID, Integer.MAX_VALUE).stream()
+                .map(Product::getId)
+                .toList();
+
+        //then
+        assertFalse(database.isEmpty());
+        assertEquals(database, memory);
+    }
+}
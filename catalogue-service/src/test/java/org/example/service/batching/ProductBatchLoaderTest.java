@@ -0,0 +1,117 @@
+package org.example.service.batching;
+
+import org.example.entity.Product;
+import org.example.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ProductBatchLoaderTest {
+
+    ProductRepository productRepository = mock(ProductRepository.class);
+
+    ExecutorService callers = Executors.newFixedThreadPool(4);
+
+    ProductBatchLoader loader;
+
+    @AfterEach
+    void tearDown() {
+        this.callers.shutdownNow();
+        this.loader.close();
+    }
+
+    @Test
+    void load_ConcurrentCallsWithinWindow_LoadsProductsWithSingleQuery() throws Exception {
+        //given
+        this.loader = new ProductBatchLoader(this.productRepository, true, Duration.ofSeconds(1), 4, 1);
+        doReturn(List.of(new Product(1, "Товар №1", "Опис"), new Product(2, "Товар №2", "Опис"),
+                new Product(3, "Товар №3", "Опис"))).when(this.productRepository).findAllByIdIn(any());
+
+        //when
+        List<Future<Optional<Product>>> results = new ArrayList<>();
+        for (int id = 1; id <= 4; id++) {
+            int productId = id;
+            results.add(this.callers.submit(() -> this.loader.load(productId)));
+        }
+
+        //then
+        for (int id = 1; id <= 3; id++) {
+            assertEquals(id, results.get(id - 1).get(5, TimeUnit.SECONDS).orElseThrow().getId());
+        }
+        assertTrue(results.get(3).get(5, TimeUnit.SECONDS).isEmpty());
+        var ids = ArgumentCaptor.forClass(Integer[].class);
+        verify(this.productRepository).findAllByIdIn(ids.capture());
+        assertEquals(List.of(1, 2, 3, 4), Arrays.stream(ids.getValue()).sorted().toList());
+        assertEquals(1, this.loader.batches());
+    }
+
+    @Test
+    void load_WindowElapsed_LoadsIncompleteBatch() {
+        //given
+        this.loader = new ProductBatchLoader(this.productRepository, true, Duration.ofMillis(2), 100, 1);
+        doReturn(List.of(new Product(1, "Товар №1", "Опис"))).when(this.productRepository).findAllByIdIn(any());
+
+        //when
+        Optional<Product> result = this.loader.load(1);
+
+        //then
+        assertEquals(1, result.orElseThrow().getId());
+    }
+
+    @Test
+    void load_QueryFailed_ThrowsExceptionToEveryCaller() {
+        //given
+        this.loader = new ProductBatchLoader(this.productRepository, true, Duration.ofMillis(2), 100, 1);
+        doThrow(new IllegalStateException("db")).when(this.productRepository).findAllByIdIn(any());
+
+        //when
+        var exception = assertThrows(IllegalStateException.class, () -> this.loader.load(1));
+
+        //then
+        assertEquals("db", exception.getMessage());
+    }
+
+    @Test
+    void load_CallsFromDifferentClients_LoadsEachBatchWithClientsSecurityContext() throws Exception {
+        //given
+        this.loader = new ProductBatchLoader(this.productRepository, true, Duration.ofSeconds(1), 1, 1);
+        List<String> clients = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            clients.add(SecurityContextHolder.getContext().getAuthentication().getName());
+            return List.of();
+        }).when(this.productRepository).findAllByIdIn(any());
+
+        //when
+        for (String client : List.of("alice", "bob")) {
+            this.callers.submit(() -> {
+                SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken(client, null));
+                try {
+                    return this.loader.load(1);
+                } finally {
+                    SecurityContextHolder.clearContext();
+                }
+            }).get(5, TimeUnit.SECONDS);
+        }
+
+        //then
+        assertEquals(List.of("alice", "bob"), clients);
+        assertEquals(2, this.loader.batches());
+    }
+}
@@ -0,0 +1,130 @@
+package org.example.service.cache;
+
+import org.example.entity.Product;
+import org.example.service.ProductChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ProductCacheInvalidatorTest {
+
+    ConcurrentMapCache cache;
+
+    JdbcTemplate jdbcTemplate;
+
+    Clock clock;
+
+    ProductCacheInvalidator invalidator;
+
+    @BeforeEach
+    void setUp() {
+        this.cache = new ConcurrentMapCache("products", false);
+        this.jdbcTemplate = mock(JdbcTemplate.class);
+        this.clock = mock(Clock.class);
+        doReturn(1_000L).when(this.clock).millis();
+        this.invalidator = new ProductCacheInvalidator(this.cache, this.jdbcTemplate, Duration.ofSeconds(5),
+                this.clock);
+    }
+
+    @Test
+    void notifyNodes_ProductUpdated_SendsNotification() {
+        //given
+        var product = new Product(1, "Товар", "Опис");
+
+        //when
+        this.invalidator.notifyNodes(ProductChangedEvent.updated(product));
+
+        //then
+        verify(this.jdbcTemplate).queryForObject("select pg_notify(?, ?)", Object.class,
+                ProductCacheInvalidator.CHANNEL, "UPDATED:1");
+        verifyNoMoreInteractions(this.jdbcTemplate);
+    }
+
+    @Test
+    void evict_ProductDeleted_RemovesCachedProduct() {
+        //given
+        this.cache.put(1, new Product(1, "Товар", "Опис"));
+        this.cache.put(2, new Product(2, "Товар 2", "Опис 2"));
+
+        //when
+        this.invalidator.evict(ProductChangedEvent.deleted(1));
+
+        //then
+        assertNull(this.cache.get(1));
+        assertNotNull(this.cache.get(2));
+    }
+
+    @Test
+    void evict_NotificationFromOtherNode_RemovesCachedProduct() {
+        //given
+        this.cache.put(1, new Product(1, "Товар", "Опис"));
+
+        //when
+        this.invalidator.evict("UPDATED:1");
+
+        //then
+        assertNull(this.cache.get(1));
+    }
+
+    @Test
+    void evict_ImportNotificationFromOtherNode_ClearsCache() {
+        //given
+        this.cache.put(1, new Product(1, "Товар", "Опис"));
+        this.cache.put(2, new Product(2, "Товар 2", "Опис 2"));
+
+        //when
+        this.invalidator.evict("IMPORTED");
+
+        //then
+        assertNull(this.cache.get(1));
+        assertNull(this.cache.get(2));
+    }
+
+    @Test
+    void evictAll_ClearsCache() {
+        //given
+        this.cache.put(1, new Product(1, "Товар", "Опис"));
+
+        //when
+        this.invalidator.evictAll();
+
+        //then
+        assertNull(this.cache.get(1));
+    }
+
+    @Test
+    void isFenced_NotificationFromOtherNode_FencesProductUntilFenceExpires() {
+        //given
+        this.invalidator.evict("UPDATED:1");
+
+        //when
+        boolean fenced = this.invalidator.isFenced(1);
+        boolean otherFenced = this.invalidator.isFenced(2);
+        doReturn(6_000L).when(this.clock).millis();
+        boolean fencedAfterFence = this.invalidator.isFenced(1);
+
+        //then
+        assertTrue(fenced);
+        assertFalse(otherFenced);
+        assertFalse(fencedAfterFence);
+    }
+
+    @Test
+    void isFenced_ImportNotificationFromOtherNode_FencesAllProducts() {
+        //given
+        this.invalidator.evict("IMPORTED");
+
+        //when
+        boolean fenced = this.invalidator.isFenced(42);
+
+        //then
+        assertTrue(fenced);
+    }
+}
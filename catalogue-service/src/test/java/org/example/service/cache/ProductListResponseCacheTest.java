@@ -0,0 +1,122 @@
+package org.example.service.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.example.entity.Product;
+import org.example.repository.ProductRepository;
+import org.example.service.ProductChangedEvent;
+import org.example.service.search.ProductSearchIndex;
+import org.example.service.search.ProductSearchRanking;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+class ProductListResponseCacheTest {
+
+    ProductListResponseCache cache;
+
+    ProductListResponseCache.Entry entry = new ProductListResponseCache.Entry("application/json", "\"1\"",
+            "[]".getBytes(), new byte[0]);
+
+    @BeforeEach
+    void setUp() {
+        this.cache = new ProductListResponseCache(Caffeine.newBuilder().build());
+    }
+
+    @Test
+    void get_SameFilter_ReturnsCachedEntry() {
+        //given
+        this.cache.put(this.cache.generation(), "Товар", "application/json", this.entry);
+
+        //when
+        var result = this.cache.get("Товар", "application/json");
+
+        //then
+        assertSame(this.entry, result);
+        assertNull(this.cache.get("Товар", "application/x-jackson-smile"));
+    }
+
+    @Test
+    void get_FilterInOtherCaseOrWithSpaces_ReturnsNull() {
+        //given
+        this.cache.put(this.cache.generation(), "Товар", "application/json", this.entry);
+
+        //when
+        var otherCase = this.cache.get("товар", "application/json");
+        var withSpaces = this.cache.get(" Товар", "application/json");
+
+        //then
+        assertNull(otherCase);
+        assertNull(withSpaces);
+    }
+
+    @Test
+    void get_BlankFilter_ReturnsEntryOfWholeCatalogue() {
+        //given
+        this.cache.put(this.cache.generation(), null, "application/json", this.entry);
+
+        //when
+        var result = this.cache.get("  ", "application/json");
+
+        //then
+        assertSame(this.entry, result);
+    }
+
+    @Test
+    void get_ProductChangedAfterPut_ReturnsNull() {
+        //given
+        this.cache.put(this.cache.generation(), "товар", "application/json", this.entry);
+
+        //when
+        this.cache.onProductChanged(ProductChangedEvent.deleted(1));
+
+        //then
+        assertNull(this.cache.get("товар", "application/json"));
+    }
+
+    @Test
+    void put_ResponseBuiltBeforeInvalidation_IsIgnored() {
+        //given
+        long generation = this.cache.generation();
+        this.cache.invalidate();
+
+        //when
+        this.cache.put(generation, "товар", "application/json", this.entry);
+
+        //then
+        assertNull(this.cache.get("товар", "application/json"));
+    }
+
+    @Test
+    void get_ListReadFromIndexBeforeItAppliedCommittedChange_ReturnsNull() {
+        //given
+        ProductRepository productRepository = mock(ProductRepository.class);
+        doCallRealMethod().when(productRepository).forEachProduct(anyInt(), any());
+        doReturn(List.of(new Product(1, "Товар №1", "Опис"))).when(productRepository).findPageOrderById(0, 10_000);
+        var index = new ProductSearchIndex(productRepository, null, true, Duration.ofSeconds(1),
+                ProductSearchRanking.of("id"));
+        index.rebuild();
+        index.addChangeListener(this.cache::invalidate);
+        var event = ProductChangedEvent.updated(new Product(1, "Змінений", "Опис", 1));
+
+        // коміт уже збільшив покоління, а індекс ще не застосував зміну
+        this.cache.onProductChanged(event);
+        long generation = this.cache.generation();
+        List<Product> stale = index.search("Товар");
+        this.cache.put(generation, "Товар", "application/json", this.entry);
+
+        //when
+        index.onProductChanged(event);
+
+        //then
+        assertEquals(1, stale.size());
+        assertTrue(index.search("Товар").isEmpty());
+        assertNull(this.cache.get("Товар", "application/json"));
+    }
+}
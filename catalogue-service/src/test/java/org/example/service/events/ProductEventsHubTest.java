@@ -0,0 +1,140 @@
+package org.example.service.events;
+
+import org.example.entity.Product;
+import org.example.entity.ProductChange;
+import org.example.repository.ProductChangeRepository;
+import org.example.service.ProductChangedEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ProductEventsHubTest {
+
+    ProductChangeRepository productChangeRepository;
+
+    ProductEventsHub hub;
+
+    @BeforeEach
+    void setUp() {
+        this.productChangeRepository = mock(ProductChangeRepository.class);
+        this.hub = new ProductEventsHub(this.productChangeRepository, 2, Duration.ofMinutes(1),
+                Duration.ofHours(1), Duration.ofHours(1), Duration.ofHours(1), 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.hub.close();
+    }
+
+    @Test
+    void onProductChanged_PollsChangesAfterLastToken() {
+        //given
+        doReturn(10L).when(this.productChangeRepository).lastToken();
+        this.hub.onApplicationReady();
+
+        //when
+        this.hub.onProductChanged(ProductChangedEvent.deleted(1));
+
+        //then
+        verify(this.productChangeRepository, timeout(1000)).findAllAfter(10, 1000);
+    }
+
+    @Test
+    void subscribe_LastEventIdIsPresent_ReplaysMissedChanges() {
+        //given
+        doReturn(List.of(new ProductChange(6, ProductChangedEvent.Type.CREATED, 1,
+                new Product(1, "Товар", "Опис"))))
+                .when(this.productChangeRepository).findAllAfter(5, 3);
+
+        //when
+        var emitter = this.hub.subscribe(5L);
+
+        //then
+        assertNotNull(emitter);
+        verify(this.productChangeRepository, timeout(1000)).findAllAfter(5, 3);
+    }
+
+    @Test
+    void close_SubscriberIsConnected_DisconnectsSubscriber() throws InterruptedException {
+        //given
+        this.hub.subscribe(null);
+        for (int i = 0; i < 100 && this.hub.subscribers() == 0; i++) {
+            Thread.sleep(10);
+        }
+
+        //when
+        this.hub.close();
+
+        //then
+        assertEquals(0, this.hub.subscribers());
+    }
+
+    @Test
+    void onProductChanged_SubscriberNeverReads_DisconnectsItAndKeepsDeliveringToOthers()
+            throws InterruptedException {
+        //given
+        var neverReads = new CountDownLatch(1);
+        var delivered = new CountDownLatch(1);
+        var stuck = new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) throws IOException {
+                try {
+                    // як блокуючий запис у сокет клієнта з повним TCP-вікном
+                    neverReads.await();
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new IOException("Write timed out");
+            }
+        };
+        var healthy = new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) {
+                delivered.countDown();
+            }
+        };
+        var emitters = List.of(stuck, healthy).iterator();
+        this.hub.close();
+        this.hub = new ProductEventsHub(this.productChangeRepository, 2, Duration.ofMinutes(1),
+                Duration.ofHours(1), Duration.ofHours(1), Duration.ofMillis(50), 1) {
+            @Override
+            SseEmitter createEmitter() {
+                return emitters.next();
+            }
+        };
+        doReturn(0L).when(this.productChangeRepository).lastToken();
+        doReturn(List.of(new ProductChange(1, ProductChangedEvent.Type.DELETED, 1, null)))
+                .when(this.productChangeRepository).findAllAfter(0, 1000);
+        doReturn(List.of(new ProductChange(2, ProductChangedEvent.Type.DELETED, 2, null)))
+                .when(this.productChangeRepository).findAllAfter(1, 1000);
+        this.hub.onApplicationReady();
+        this.hub.subscribe(null);
+        // єдиний потік відправника застрягає в send підписника, що не читає
+        this.hub.onProductChanged(ProductChangedEvent.deleted(1));
+        this.hub.subscribe(null);
+
+        //when
+        this.hub.onProductChanged(ProductChangedEvent.deleted(2));
+
+        //then
+        try {
+            assertTrue(delivered.await(5, TimeUnit.SECONDS));
+            for (int i = 0; i < 100 && this.hub.subscribers() > 1; i++) {
+                Thread.sleep(10);
+            }
+            assertEquals(1, this.hub.subscribers());
+        } finally {
+            neverReads.countDown();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package org.example.service.images;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductImageStorageTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    void store_ContentIsValid_StoresFileUnderItsHash() throws IOException {
+        //given
+        var storage = new ProductImageStorage(this.root, 1024);
+
+        //when
+        ProductImageStorage.Stored result = storage.store("image".getBytes(StandardCharsets.UTF_8));
+
+        //then
+        assertEquals("6105d6cc76af400325e94d588ce511be5bfdbb73b437dc51eca43917d7a43e3d", result.hash());
+        assertEquals(5, result.size());
+        assertEquals(this.root.resolve("61").resolve("05").resolve(result.hash()), storage.path(result.hash()));
+        assertEquals("image", Files.readString(storage.path(result.hash())));
+    }
+
+    @Test
+    void store_SameContentTwice_KeepsOneFile() throws IOException {
+        //given
+        var storage = new ProductImageStorage(this.root, 1024);
+        ProductImageStorage.Stored first = storage.store("image".getBytes(StandardCharsets.UTF_8));
+
+        //when
+        ProductImageStorage.Stored second = storage.store("image".getBytes(StandardCharsets.UTF_8));
+
+        //then
+        assertEquals(first, second);
+        try (var files = Files.list(this.root.resolve("tmp"))) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void store_ContentIsTooLarge_ThrowsIllegalArgumentExceptionAndLeavesNoFiles() throws IOException {
+        //given
+        var storage = new ProductImageStorage(this.root, 4);
+
+        //when
+        var exception = assertThrows(IllegalArgumentException.class,
+                () -> storage.store("image".getBytes(StandardCharsets.UTF_8)));
+
+        //then
+        assertEquals("catalogue.products.images.errors.image_is_too_large", exception.getMessage());
+        try (var files = Files.walk(this.root)) {
+            assertTrue(files.allMatch(Files::isDirectory));
+        }
+    }
+
+    @Test
+    void receive_UploadIsNotCommitted_KeepsExistingFileWithSameContent() throws IOException {
+        //given
+        var storage = new ProductImageStorage(this.root, 1024);
+        ProductImageStorage.Stored existing = storage.store("image".getBytes(StandardCharsets.UTF_8));
+
+        //when
+        try (ProductImageStorage.Upload upload = storage.receive(
+                new ByteArrayInputStream("image".getBytes(StandardCharsets.UTF_8)))) {
+            assertTrue(Files.exists(upload.path()));
+        }
+
+        //then
+        assertEquals("image", Files.readString(storage.path(existing.hash())));
+        try (var files = Files.list(this.root.resolve("tmp"))) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void receive_UploadIsNotCommitted_LeavesNoStoredFile() throws IOException {
+        //given
+        var storage = new ProductImageStorage(this.root, 1024);
+
+        //when
+        try (ProductImageStorage.Upload upload = storage.receive(
+                new ByteArrayInputStream("image".getBytes(StandardCharsets.UTF_8)))) {
+            assertFalse(Files.exists(storage.path(
+                    "6105d6cc76af400325e94d588ce511be5bfdbb73b437dc51eca43917d7a43e3d")));
+        }
+
+        //then
+        try (var files = Files.walk(this.root)) {
+            assertTrue(files.allMatch(Files::isDirectory));
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package org.example.service.images;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductThumbnailsTest {
+
+    @TempDir
+    Path directory;
+
+    ProductThumbnails thumbnails = new ProductThumbnails(64, 1_000_000);
+
+    @Test
+    void create_ImageIsLarge_ScalesItDownKeepingAspectRatio() throws IOException {
+        //given
+        Path original = this.image("png", 400, 200);
+
+        //when
+        byte[] result = this.thumbnails.create(original, "image/png");
+
+        //then
+        BufferedImage thumbnail = ImageIO.read(new ByteArrayInputStream(result));
+        assertEquals(64, thumbnail.getWidth());
+        assertEquals(32, thumbnail.getHeight());
+    }
+
+    @Test
+    void create_ContentTypeDoesNotMatchFile_ThrowsIllegalArgumentException() throws IOException {
+        //given
+        Path original = this.image("png", 10, 10);
+
+        //when
+        var exception = assertThrows(IllegalArgumentException.class,
+                () -> this.thumbnails.create(original, "image/jpeg"));
+
+        //then
+        assertEquals("catalogue.products.images.errors.image_is_invalid", exception.getMessage());
+    }
+
+    @Test
+    void create_ImageHasTooManyPixels_ThrowsIllegalArgumentException() throws IOException {
+        //given
+        Path original = this.image("jpeg", 2000, 1000);
+
+        //when
+        var exception = assertThrows(IllegalArgumentException.class,
+                () -> this.thumbnails.create(original, "image/jpeg"));
+
+        //then
+        assertEquals("catalogue.products.images.errors.image_is_too_large", exception.getMessage());
+    }
+
+    @Test
+    void create_FileIsNotAnImage_ThrowsIllegalArgumentException() throws IOException {
+        //given
+        Path original = Files.writeString(this.directory.resolve("original"), "not an image");
+
+        //when
+        var exception = assertThrows(IllegalArgumentException.class,
+                () -> this.thumbnails.create(original, "image/png"));
+
+        //then
+        assertEquals("catalogue.products.images.errors.image_is_invalid", exception.getMessage());
+    }
+
+    private Path image(String formatName, int width, int height) throws IOException {
+        Path file = this.directory.resolve("original." + formatName);
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), formatName, file.toFile());
+        return file;
+    }
+}
@@ -0,0 +1,84 @@
+package org.example.service.search;
+
+import org.example.entity.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NGramIndexTest {
+
+    NGramIndex index;
+
+    @BeforeEach
+    void setUp() {
+        this.index = new NGramIndex();
+        this.index.put(new Product(1, "Product №1", "Description of Product №1"));
+        this.index.put(new Product(2, "Condom", "Thin"));
+        this.index.put(new Product(3, "Product №3", "Description of product №3"));
+        this.index.put(new Product(4, "Alcohol", "Medical product"));
+    }
+
+    @Test
+    void search_RankedById_ReturnsProductsWithMatchingTitlesOrderedById() {
+        //given
+
+        //when
+        List<Product> result = this.index.search("PRODUCT", ProductSearchRanking.ID, Integer.MAX_VALUE);
+
+        //then
+        // опис товару 4 містить запит, але база даних шукає лише в назвах
+        assertEquals(List.of(1, 3), result.stream().map(Product::getId).toList());
+    }
+
+    @Test
+    void search_RankedByRelevance_ReturnsTitleMatchesFirst() {
+        //given
+
+        //when
+        List<Product> result = this.index.search("product", ProductSearchRanking.RELEVANCE, 2);
+
+        //then
+        assertEquals(List.of(1, 3), result.stream().map(Product::getId).toList());
+    }
+
+    @Test
+    void search_QueryIsShorterThanGram_ScansAllProducts() {
+        //given
+
+        //when
+        List<Product> result = this.index.search("co", ProductSearchRanking.ID, Integer.MAX_VALUE);
+
+        //then
+        assertEquals(List.of(2, 4), result.stream().map(Product::getId).toList());
+    }
+
+    @Test
+    void put_ProductIsUpdated_ReplacesIndexedText() {
+        //given
+        this.index.put(new Product(2, "Bandage", "Sterile"));
+
+        //when
+        List<Product> oldTitleResult = this.index.search("condom", ProductSearchRanking.ID, Integer.MAX_VALUE);
+        List<Product> newTitleResult = this.index.search("bandage", ProductSearchRanking.ID, Integer.MAX_VALUE);
+
+        //then
+        assertTrue(oldTitleResult.isEmpty());
+        assertEquals(List.of(new Product(2, "Bandage", "Sterile")), newTitleResult);
+        assertEquals(4, this.index.size());
+    }
+
+    @Test
+    void remove_ProductIsRemoved_ProductIsNotFound() {
+        //given
+        this.index.remove(1);
+
+        //when
+        List<Product> result = this.index.search("product №", ProductSearchRanking.ID, Integer.MAX_VALUE);
+
+        //then
+        assertEquals(List.of(3), result.stream().map(Product::getId).toList());
+    }
+}
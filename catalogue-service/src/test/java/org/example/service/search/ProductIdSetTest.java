@@ -0,0 +1,164 @@
+package org.example.service.search;
+
+import org.example.entity.Product;
+import org.example.entity.ProductChange;
+import org.example.repository.ProductChangeRepository;
+import org.example.repository.ProductRepository;
+import org.example.service.ProductChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+class ProductIdSetTest {
+
+    ProductRepository productRepository = mock(ProductRepository.class);
+
+    ProductChangeRepository productChangeRepository = mock(ProductChangeRepository.class);
+
+    ProductIdSet productIdSet;
+
+    @BeforeEach
+    void setUp() {
+        doCallRealMethod().when(this.productRepository).forEachProduct(anyInt(), any());
+        doReturn(List.of(new Product(1, "Товар №1", "Опис"), new Product(51, "Товар №2", "Опис")))
+                .when(this.productRepository).findPageOrderById(0, 10_000);
+        this.productIdSet = new ProductIdSet(this.productRepository, null, true, Duration.ofSeconds(1));
+        this.productIdSet.rebuild();
+    }
+
+    @Test
+    void mightContain_IdIsUnknown_ReturnsFalse() {
+        //when
+        boolean result = this.productIdSet.mightContain(2);
+
+        //then
+        assertFalse(result);
+        assertTrue(this.productIdSet.mightContain(51));
+        assertEquals(1, this.productIdSet.rejected());
+    }
+
+    @Test
+    void mightContain_ProductCreatedLocally_ReturnsTrue() {
+        //given
+        this.productIdSet.onProductChanged(ProductChangedEvent.created(new Product(101, "Товар №3", "Опис")));
+
+        //when
+        boolean result = this.productIdSet.mightContain(101);
+
+        //then
+        assertTrue(result);
+    }
+
+    @Test
+    void onNotification_ProductCreatedAndDeletedOnOtherNode_UpdatesSet() {
+        //when
+        this.productIdSet.onNotification("CREATED:151");
+        this.productIdSet.onNotification("DELETED:1");
+
+        //then
+        assertTrue(this.productIdSet.mightContain(151));
+        assertFalse(this.productIdSet.mightContain(1));
+        assertEquals(2, this.productIdSet.size());
+    }
+
+    @Test
+    void onNotification_ProductsImportedOnOtherNode_KeepsSetWithoutRebuild() {
+        //when
+        this.productIdSet.onNotification("IMPORTED");
+
+        //then
+        assertTrue(this.productIdSet.isReady());
+        assertTrue(this.productIdSet.mightContain(51));
+        verify(this.productRepository, times(1)).findPageOrderById(0, 10_000);
+    }
+
+    @Test
+    void mightContain_SetIsDisabled_ReturnsTrue() {
+        //given
+        var disabled = new ProductIdSet(this.productRepository, null, false, Duration.ofSeconds(1));
+
+        //when
+        boolean result = disabled.mightContain(2);
+
+        //then
+        assertTrue(result);
+    }
+
+    @Test
+    void onApplicationReady_ProductCreatedOnOtherNode_AppliesChangeFromLog() throws InterruptedException {
+        //given
+        doReturn(7L).when(this.productChangeRepository).lastToken();
+        doReturn(List.of(new ProductChange(8, ProductChangedEvent.Type.CREATED, 201,
+                new Product(201, "Товар з іншого вузла", null, 0))))
+                .when(this.productChangeRepository).findAllAfter(7, 1000);
+        var tailing = new ProductIdSet(this.productRepository, this.productChangeRepository, true,
+                Duration.ofMillis(10));
+
+        //when
+        tailing.onApplicationReady();
+
+        //then
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!(tailing.isReady() && tailing.mightContain(201)) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(tailing.mightContain(201));
+        assertTrue(tailing.mightContain(51));
+        tailing.close();
+    }
+
+    @Test
+    void mightContain_IdFromEarlierBlockOfOtherNodeIsNotYetApplied_ReturnsTrue() throws InterruptedException {
+        //given
+        // вузол A тримає блок 101-150, вузол B пізніше взяв 151-200 і вже повідомив про товар 151,
+        // а товар 120 з блоку A закомічено з токеном 9, якого набір ще не застосував
+        doReturn(7L).doReturn(9L).when(this.productChangeRepository).lastToken();
+        var tailing = new ProductIdSet(this.productRepository, this.productChangeRepository, true,
+                Duration.ofHours(1));
+        tailing.onApplicationReady();
+        awaitReady(tailing);
+        tailing.onNotification("CREATED:151");
+
+        //when
+        boolean result = tailing.mightContain(120);
+
+        //then
+        assertTrue(result);
+        assertTrue(tailing.mightContain(151));
+        assertEquals(0, tailing.rejected());
+        tailing.close();
+    }
+
+    @Test
+    void mightContain_SetHasAppliedLogUpToItsHead_ReturnsFalse() throws InterruptedException {
+        //given
+        doReturn(7L).when(this.productChangeRepository).lastToken();
+        var tailing = new ProductIdSet(this.productRepository, this.productChangeRepository, true,
+                Duration.ofHours(1));
+        tailing.onApplicationReady();
+        awaitReady(tailing);
+        tailing.onNotification("CREATED:151");
+
+        //when
+        boolean result = tailing.mightContain(120);
+
+        //then
+        assertFalse(result);
+        assertEquals(1, tailing.rejected());
+        tailing.close();
+    }
+
+    private static void awaitReady(ProductIdSet productIdSet) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!productIdSet.isReady() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(productIdSet.isReady());
+    }
+}
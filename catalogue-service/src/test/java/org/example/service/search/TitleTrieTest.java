@@ -0,0 +1,76 @@
+package org.example.service.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TitleTrieTest {
+
+    TitleTrie trie;
+
+    @BeforeEach
+    void setUp() {
+        this.trie = new TitleTrie();
+        this.trie.put(1, "Product №1");
+        this.trie.put(2, "Condom");
+        this.trie.put(3, "Product №3");
+        this.trie.put(4, "Alcohol");
+        this.trie.put(5, "Product");
+    }
+
+    @Test
+    void suggest_ReturnsTitlesWithPrefixInLexicographicOrder() {
+        //given
+
+        //when
+        List<ProductSuggestion> result = this.trie.suggest("PROD", 10);
+
+        //then
+        assertEquals(List.of(new ProductSuggestion(5, "Product"),
+                new ProductSuggestion(1, "Product №1"),
+                new ProductSuggestion(3, "Product №3")), result);
+    }
+
+    @Test
+    void suggest_LimitIsSet_ReturnsNoMoreThanLimit() {
+        //given
+
+        //when
+        List<ProductSuggestion> result = this.trie.suggest("product", 2);
+
+        //then
+        assertEquals(List.of(new ProductSuggestion(5, "Product"),
+                new ProductSuggestion(1, "Product №1")), result);
+    }
+
+    @Test
+    void put_TitleIsUpdated_SuggestsNewTitleOnly() {
+        //given
+        this.trie.put(2, "Bandage");
+
+        //when
+        List<ProductSuggestion> oldResult = this.trie.suggest("con", 10);
+        List<ProductSuggestion> newResult = this.trie.suggest("ban", 10);
+
+        //then
+        assertTrue(oldResult.isEmpty());
+        assertEquals(List.of(new ProductSuggestion(2, "Bandage")), newResult);
+        assertEquals(5, this.trie.size());
+    }
+
+    @Test
+    void remove_AllProductsRemoved_ReleasesNodes() {
+        //given
+        long emptyTrieMemory = new TitleTrie().estimatedMemoryBytes();
+
+        //when
+        List.of(1, 2, 3, 4, 5).forEach(this.trie::remove);
+
+        //then
+        assertTrue(this.trie.suggest("", 10).isEmpty());
+        assertEquals(emptyTrieMemory, this.trie.estimatedMemoryBytes());
+    }
+}
@@ -0,0 +1,158 @@
+package org.example.service.snapshot;
+
+import org.example.entity.Product;
+import org.example.service.ProductVersionsDigest;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductArenaTest {
+
+    ProductArena arena = new ProductArena(64);
+
+    @Test
+    void put_ProductsOutOfOrder_KeepsThemSortedById() {
+        //given
+        this.arena.put(new Product(3, "Товар №3", null));
+        this.arena.put(new Product(1, "Товар №1", "Опис товару №1"));
+        this.arena.put(new Product(2, "Товар №2", "Опис товару №2"));
+
+        //when
+        List<Product> result = this.arena.page(Integer.MIN_VALUE, 10);
+
+        //then
+        assertEquals(List.of(new Product(1, "Товар №1", "Опис товару №1"),
+                new Product(2, "Товар №2", "Опис товару №2"),
+                new Product(3, "Товар №3", null)), result);
+        assertEquals(List.of(new Product(3, "Товар №3", null)), this.arena.page(2, 10));
+        assertTrue(this.arena.capacity() > 64);
+    }
+
+    @Test
+    void put_ProductsExceedSegment_SpreadsThemAcrossSegments() {
+        //given
+        // сегменти по 1 КБ замість 1 ГБ, щоб не виділяти гігабайти в тесті
+        var segmented = new ProductArena(64, 1024);
+        String details = "x".repeat(100);
+
+        //when
+        for (int id = 1; id <= 1000; id++) {
+            segmented.put(new Product(id, "Товар №" + id, details, 0));
+        }
+        for (int id = 1; id <= 1000; id++) {
+            segmented.put(new Product(id, "Товар №" + id, details + id, 1));
+        }
+
+        //then
+        assertEquals(1000, segmented.size());
+        assertTrue(segmented.capacity() > 1024);
+        for (int id = 1; id <= 1000; id++) {
+            assertEquals(new Product(id, "Товар №" + id, details + id, 1), segmented.get(id));
+        }
+        assertEquals(List.of(new Product(1000, "Товар №1000", details + 1000, 1)), segmented.page(999, 10));
+    }
+
+    @Test
+    void put_OlderVersion_KeepsNewerProduct() {
+        //given
+        this.arena.put(new Product(1, "Товар №1", "Опис", 2));
+
+        //when
+        this.arena.put(new Product(1, "Старий товар", "Опис", 1));
+        this.arena.put(new Product(1, "Товар №1", "Новий опис", 3));
+
+        //then
+        assertEquals(new Product(1, "Товар №1", "Новий опис", 3), this.arena.get(1));
+        assertEquals(1, this.arena.size());
+    }
+
+    @Test
+    void remove_ProductExists_RemovesIt() {
+        //given
+        this.arena.put(new Product(1, "Товар №1", "Опис"));
+        this.arena.put(new Product(2, "Товар №2", "Опис"));
+
+        //when
+        this.arena.remove(1);
+
+        //then
+        assertNull(this.arena.get(1));
+        assertEquals(new Product(2, "Товар №2", "Опис"), this.arena.get(2));
+        assertEquals(1, this.arena.size());
+    }
+
+    @Test
+    void put_ManyUpdates_CompactsArena() {
+        //given
+        String details = "x".repeat(1000);
+
+        //when
+        for (int version = 0; version < 5000; version++) {
+            this.arena.put(new Product(1, "Товар №1", details, version));
+            this.arena.put(new Product(2, "Товар №2", details, version));
+        }
+
+        //then
+        assertEquals(new Product(1, "Товар №1", details, 4999), this.arena.get(1));
+        assertEquals(new Product(2, "Товар №2", details, 4999), this.arena.get(2));
+        assertTrue(this.arena.capacity() < 4 * 1024 * 1024);
+    }
+
+    @Test
+    void writeJson_TitleNeedsEscaping_WritesValidJson() throws IOException {
+        //given
+        this.arena.put(new Product(1, "Товар \"№1\"", "Рядок\nз \\ та \u0001"));
+        this.arena.put(new Product(2, "Товар №2", null));
+        var buffer = new ProductArena.JsonBuffer();
+        var out = new ByteArrayOutputStream();
+
+        //when
+        int lastId = this.arena.writeJson(Integer.MIN_VALUE, 1, buffer);
+        int nextId = this.arena.writeJson(lastId, 1, buffer);
+        int endId = this.arena.writeJson(nextId, 1, buffer);
+        buffer.flushTo(out);
+
+        //then
+        assertEquals(1, lastId);
+        assertEquals(2, nextId);
+        assertEquals(-1, endId);
+        assertEquals("{\"id\":1,\"title\":\"Товар \\\"№1\\\"\",\"details\":\"Рядок\\nз \\\\ та \\u0001\"}," +
+                        "{\"id\":2,\"title\":\"Товар №2\",\"details\":null}",
+                out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void versionsDigest_SameProducts_MatchesListDigest() {
+        //given
+        this.arena.put(new Product(1, "Товар №1", "Опис", 2));
+        this.arena.put(new Product(5, "Товар №5", "Опис", 0));
+        var expected = new ProductVersionsDigest();
+        expected.add(1, 2);
+        expected.add(5, 0);
+
+        //when
+        String result = this.arena.versionsDigest();
+
+        //then
+        assertEquals(expected.hex(), result);
+    }
+
+    @Test
+    void versionsDigest_ListsCollideUnderPolynomialHash_ReturnsDifferentDigests() {
+        //given
+        this.arena.put(new Product(1, "Товар №1", "Опис", 31));
+        var other = new ProductArena(64);
+        other.put(new Product(2, "Товар №2", "Опис", 0));
+
+        //when
+        String result = this.arena.versionsDigest();
+
+        //then
+        assertNotEquals(other.versionsDigest(), result);
+    }
+}
@@ -1,18 +1,40 @@
 package org.example.client;
 
 import org.example.entity.Product;
+import org.example.entity.ProductChange;
+import org.example.entity.ProductChangesPage;
+import org.example.entity.ProductSuggestion;
+import org.example.entity.ProductSummary;
+import org.example.entity.ProductsPage;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.Collection;
+
 public interface ProductsClient {
     Flux<Product> findAllProducts(String filter);
 
+    Flux<ProductSummary> findAllProductSummaries(String filter);
+
     /*
      Flux - патерн проєктування "потік даних",
      який являє собою послідовність елементів,
      котра може випромінювати дані асинхронно
     */
 
+    Mono<ProductsPage> findProductsPage(String filter, String sort, String after, int limit);
+
     Mono<Product> findProduct(int id);
 
+    Flux<Product> findProductsByIds(Collection<Integer> ids);
+
+    Flux<ProductSummary> findProductSummariesByIds(Collection<Integer> ids);
+
+    Flux<ProductSuggestion> suggestProducts(String prefix);
+
+    Mono<ProductChangesPage> findProductChanges(long since);
+
+    // since == null - лише нові зміни; при розриві з'єднання підписка відновлюється з останньої отриманої зміни
+    Flux<ProductChange> streamProductChanges(Long since);
+
 }
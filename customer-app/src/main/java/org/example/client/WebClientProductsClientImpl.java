@@ -2,34 +2,200 @@ package org.example.client;
 
 import lombok.RequiredArgsConstructor;
 import org.example.entity.Product;
+import org.example.entity.ProductChange;
+import org.example.entity.ProductChangesPage;
+import org.example.entity.ProductSuggestion;
+import org.example.entity.ProductSummary;
+import org.example.entity.ProductsPage;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 
 @RequiredArgsConstructor
 public class WebClientProductsClientImpl implements ProductsClient{
 
+    private static final int MAX_CACHED_PRODUCTS = 10_000;
+
+    private static final int MAX_CACHED_LISTS = 100;
+
+    private static final ParameterizedTypeReference<ServerSentEvent<ProductChange>> PRODUCT_CHANGE_EVENT =
+            new ParameterizedTypeReference<>() {
+            };
+
     private final WebClient webClient;
 
+    private final ETagCache<Integer, Product> productsCache = new ETagCache<>(MAX_CACHED_PRODUCTS);
+
+    private final ETagCache<String, List<Product>> productListsCache = new ETagCache<>(MAX_CACHED_LISTS);
+
     @Override
     public Flux<Product> findAllProducts(String filter) {
+        String key = filter == null ? "" : filter;
+        ETagCache.Entry<List<Product>> cached = this.productListsCache.get(key);
         return this.webClient
                 .mutate()
                 .build()
                 .get()
                 .uri("/catalogue-api/products?filter={filter}", filter)
+                .headers(headers -> {
+                    if (cached != null) {
+                        headers.setIfNoneMatch(cached.eTag());
+                    }
+                })
+                .exchangeToMono(response -> {
+                    if (response.statusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED) && cached != null) {
+                        return response.releaseBody().thenReturn(cached.body());
+                    } else if (response.statusCode().is2xxSuccessful()) {
+                        return response.bodyToFlux(Product.class)
+                                .collectList()
+                                .doOnNext(products -> this.productListsCache.put(key,
+                                        response.headers().asHttpHeaders().getETag(), products));
+                    }
+                    return response.<List<Product>>createError();
+                })
+                .flatMapMany(Flux::fromIterable);
+    }
+
+    @Override
+    public Flux<ProductSummary> findAllProductSummaries(String filter) {
+        return this.webClient
+                .get()
+                .uri("/catalogue-api/products?filter={filter}&fields=id,title", filter)
                 .retrieve()
-                .bodyToFlux(Product.class);
+                .bodyToFlux(ProductSummary.class);
+    }
+
+    @Override
+    public Mono<ProductsPage> findProductsPage(String filter, String sort, String after, int limit) {
+        return this.webClient
+                .get()
+                .uri("/catalogue-api/products?filter={filter}&sort={sort}&after={after}&limit={limit}",
+                        filter, sort, after, limit)
+                .retrieve()
+                .bodyToMono(ProductsPage.class);
     }
 
     @Override
     public Mono<Product> findProduct(int id) {
+        ETagCache.Entry<Product> cached = this.productsCache.get(id);
         return this.webClient.get()
                 .uri("/catalogue-api/products/{productId}", id)
-                .retrieve()
-                .bodyToMono(Product.class)
+                .headers(headers -> {
+                    if (cached != null) {
+                        headers.setIfNoneMatch(cached.eTag());
+                    }
+                })
+                .exchangeToMono(response -> {
+                    if (response.statusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED) && cached != null) {
+                        return response.releaseBody().thenReturn(cached.body());
+                    } else if (response.statusCode().is2xxSuccessful()) {
+                        return response.bodyToMono(Product.class)
+                                .doOnNext(product -> this.productsCache.put(id,
+                                        response.headers().asHttpHeaders().getETag(), product));
+                    } else if (response.statusCode().isSameCodeAs(HttpStatus.NOT_FOUND)) {
+                        this.productsCache.remove(id);
+                    }
+                    return response.<Product>createError();
+                })
                 .onErrorComplete(WebClientResponseException.NotFound.class);
     }
+
+    @Override
+    public Flux<Product> findProductsByIds(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return Flux.empty();
+        }
+        return this.webClient
+                .post()
+                .uri("/catalogue-api/products/by-ids")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(ids)
+                .retrieve()
+                .bodyToFlux(Product.class);
+    }
+
+    @Override
+    public Flux<ProductSummary> findProductSummariesByIds(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return Flux.empty();
+        }
+        return this.webClient
+                .post()
+                .uri("/catalogue-api/products/by-ids?fields=id,title")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(ids)
+                .retrieve()
+                .bodyToFlux(ProductSummary.class);
+    }
+
+    @Override
+    public Flux<ProductSuggestion> suggestProducts(String prefix) {
+        return this.webClient
+                .get()
+                .uri("/catalogue-api/products/suggest?prefix={prefix}", prefix)
+                .retrieve()
+                .bodyToFlux(ProductSuggestion.class);
+    }
+
+    @Override
+    public Mono<ProductChangesPage> findProductChanges(long since) {
+        return this.webClient
+                .get()
+                .uri("/catalogue-api/products/changes?since={since}", since)
+                .retrieve()
+                .bodyToMono(ProductChangesPage.class);
+    }
+
+    @Override
+    public Flux<ProductChange> streamProductChanges(Long since) {
+        // -1 - ще нічого не отримано, Last-Event-ID не надсилається
+        AtomicLong lastToken = new AtomicLong(since == null ? -1 : since);
+        return Flux.defer(() -> this.webClient
+                        .get()
+                        .uri("/catalogue-api/products/events")
+                        .accept(MediaType.TEXT_EVENT_STREAM)
+                        .headers(headers -> {
+                            if (lastToken.get() >= 0) {
+                                headers.set("Last-Event-ID", String.valueOf(lastToken.get()));
+                            }
+                        })
+                        .retrieve()
+                        .bodyToFlux(PRODUCT_CHANGE_EVENT))
+                .concatMap(event -> {
+                    if ("resync".equals(event.event())) {
+                        // каталог не вмістив пропущені зміни в потік, дочитуємо їх сторінками
+                        return this.findProductChangesAfter(Math.max(lastToken.get(), 0))
+                                .filter(change -> change.token() > lastToken.get())
+                                .doOnNext(change -> lastToken.set(change.token()));
+                    }
+                    ProductChange change = event.data();
+                    if (change == null || change.token() <= lastToken.get()) {
+                        return Flux.empty();
+                    }
+                    lastToken.set(change.token());
+                    return Flux.just(change);
+                })
+                // каталог закриває потік повільним підписникам, тоді перепідключаємось з Last-Event-ID
+                .repeat()
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+                        .maxBackoff(Duration.ofSeconds(30)));
+    }
+
+    private Flux<ProductChange> findProductChangesAfter(long since) {
+        return this.findProductChanges(since)
+                .expand(page -> page.changes().isEmpty() ? Mono.empty() : this.findProductChanges(page.next()))
+                .concatMapIterable(ProductChangesPage::changes);
+    }
 }
@@ -8,10 +8,13 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Scope;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.security.oauth2.client.registration.ReactiveClientRegistrationRepository;
 import org.springframework.security.oauth2.client.web.reactive.function.client.ServerOAuth2AuthorizedClientExchangeFilterFunction;
 import org.springframework.security.oauth2.client.web.server.ServerOAuth2AuthorizedClientRepository;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
 
 @Configuration
 public class ClientConfig {
@@ -35,8 +38,11 @@ public class ClientConfig {
             @Value("${services.catalogue.uri:http://localhost:8082}") String catalogueBaseUrl,
             WebClient.Builder servicesWebClientBuilder
     ) {
+        // каталог віддає Smile замість JSON і стискає великі відповіді gzip
         return new WebClientProductsClientImpl(servicesWebClientBuilder
                 .baseUrl(catalogueBaseUrl)
+                .clientConnector(new ReactorClientHttpConnector(HttpClient.create().compress(true)))
+                .defaultHeader(HttpHeaders.ACCEPT, "application/x-jackson-smile, application/json;q=0.9")
                 .build());
     }
 
@@ -5,11 +5,18 @@ import lombok.RequiredArgsConstructor;
 import org.example.client.ProductsClient;
 import org.example.client.favourite.FavouriteProductsClient;
 import org.example.entity.FavouriteProduct;
+import org.example.entity.ProductChange;
+import org.example.entity.ProductSuggestion;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 @Controller
@@ -36,13 +43,32 @@ public class ProductsController {
                                                  @RequestParam(name = "filter", required = false) String filter)
     {
         model.addAttribute("filter", filter);
+        // каталог віддає лише обрані товари, фільтр за назвою застосовується тут
         return this.favouriteProductsClient.findFavouriteProducts()
                 .map(FavouriteProduct::productId)
                         .collectList()
-                .flatMap(favouriteProducts -> this.productsClient.findAllProducts(filter)
-                        .filter(product -> favouriteProducts.contains(product.id()))
+                .flatMap(favouriteProducts -> this.productsClient.findProductsByIds(favouriteProducts)
+                        .filter(product -> filter == null || product.title().toLowerCase()
+                                .contains(filter.toLowerCase()))
                         .collectList()
                         .doOnNext(products -> model.addAttribute("products", products)))
                 .thenReturn("customer/products/favourites");
     }
+
+    @GetMapping("suggest")
+    @ResponseBody
+    public Flux<ProductSuggestion> suggestProducts(@RequestParam("prefix") String prefix) {
+        return this.productsClient.suggestProducts(prefix);
+    }
+
+    @GetMapping(path = "events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @ResponseBody
+    public Flux<ServerSentEvent<ProductChange>> streamProductChanges(
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        return this.productsClient.streamProductChanges(lastEventId)
+                .map(change -> ServerSentEvent.builder(change)
+                        .id(String.valueOf(change.token()))
+                        .event(change.type())
+                        .build());
+    }
 }
@@ -0,0 +1,5 @@
+package org.example.entity;
+
+// type - CREATED, UPDATED або DELETED; для видаленого товару product == null
+public record ProductChange(long token, String type, int productId, Product product) {
+}
@@ -0,0 +1,4 @@
+package org.example.entity;
+
+public record ProductSuggestion(int id, String title) {
+}
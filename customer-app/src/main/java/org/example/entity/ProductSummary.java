@@ -0,0 +1,5 @@
+package org.example.entity;
+
+// товар без опису, для списків (fields=id,title)
+public record ProductSummary(int id, String title) {
+}
@@ -0,0 +1,6 @@
+package org.example.entity;
+
+import java.util.List;
+
+public record ProductsPage(List<Product> products, String next) {
+}
@@ -5,6 +5,7 @@ import org.example.client.ProductsClient;
 import org.example.client.favourite.FavouriteProductsClient;
 import org.example.entity.FavouriteProduct;
 import org.example.entity.Product;
+import org.example.entity.ProductChange;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -69,9 +70,8 @@ public class ProductsControllerTest {
 
         doReturn(Flux.fromIterable(List.of(
                 new Product(1, "Filtered product №1", "Filtered product description №1"),
-                new Product(2, "Filtered product №2", "Filtered product description №2"),
-                new Product(3, "Filtered product №3", "Filtered product description №3")
-        ))).when(this.productsClient).findAllProducts("filter");
+                new Product(3, "Product №3", "Product description №3")
+        ))).when(this.productsClient).findProductsByIds(List.of(1, 3));
 
         doReturn(Flux.fromIterable(List.of(
                 new FavouriteProduct(UUID.fromString("a16f0218-cbaf-11ee-9e6c-6b0fa3631587"), 1),
@@ -86,12 +86,30 @@ public class ProductsControllerTest {
 
         assertEquals("filter", model.getAttribute("filter"));
         assertEquals(List.of(
-                        new Product(1, "Filtered product №1", "Filtered product description №1"),
-                        new Product(3, "Filtered product №3", "Filtered product description №3")),
+                        new Product(1, "Filtered product №1", "Filtered product description №1")),
                 model.getAttribute("products"));
 
-        verify(this.productsClient).findAllProducts("filter");
+        verify(this.productsClient).findProductsByIds(List.of(1, 3));
         verify(this.favouriteProductsClient).findFavouriteProducts();
         verifyNoInteractions(this.productsClient, this.favouriteProductsClient);
     }
+
+    @Test
+    void streamProductChanges_RelaysChangesAsEvents() {
+        //given
+        doReturn(Flux.just(new ProductChange(7, "UPDATED", 1, new Product(1, "Товар №1", "Опис товару №1")),
+                new ProductChange(8, "DELETED", 2, null)))
+                .when(this.productsClient).streamProductChanges(6L);
+
+        //when
+        StepVerifier.create(this.controller.streamProductChanges(6L))
+                //then
+                .expectNextMatches(event -> "7".equals(event.id()) && "UPDATED".equals(event.event()))
+                .expectNextMatches(event -> "8".equals(event.id()) && "DELETED".equals(event.event()))
+                .verifyComplete();
+
+        verify(this.productsClient).streamProductChanges(6L);
+        verifyNoMoreInteractions(this.productsClient);
+        verifyNoInteractions(this.favouriteProductsClient);
+    }
 }
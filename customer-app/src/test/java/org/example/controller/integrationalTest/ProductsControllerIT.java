@@ -96,6 +96,22 @@ public class ProductsControllerIT {
                         }
                     ]
                 """).withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)));
+        stubFor(post(urlPathMatching("/catalogue-api/products/by-ids"))
+                .withRequestBody(equalToJson("[1, 3]"))
+                .willReturn(okJson("""
+                    [
+                        {
+                            "id" : 1,
+                            "title" : "Filtered product №1",
+                            "details" : "Filtered product description №1"
+                        },
+                        {
+                            "id" : 3,
+                            "title" : "Filtered product №3",
+                            "details" : "Filtered product description №3"
+                        }
+                    ]
+                """)));
 
         //when
         this.webTestClient.mutateWith(mockUser())
@@ -105,8 +121,8 @@ public class ProductsControllerIT {
                 //then
                 .expectStatus().isOk();
 
-        verify(getRequestedFor(urlPathMatching("/catalogue-api/products"))
-                .withQueryParam("filter", equalTo("filter")));
+        verify(postRequestedFor(urlPathMatching("/catalogue-api/products/by-ids"))
+                .withRequestBody(equalToJson("[1, 3]")));
         verify(getRequestedFor(urlPathMatching("/feedback-api/favourite-products")));
     }
 
@@ -0,0 +1,41 @@
+package org.example.client;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+ Обмежений LRU кеш відповідей разом з їх ETag: запит повторно перевіряється через If-None-Match,
+ і на 304 Not Modified береться збережене тіло
+*/
+class ETagCache<K, V> {
+
+    record Entry<V>(String eTag, V body) {
+    }
+
+    private final Map<K, Entry<V>> entries;
+
+    ETagCache(int maximumSize) {
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                return this.size() > maximumSize;
+            }
+        };
+    }
+
+    synchronized Entry<V> get(K key) {
+        return this.entries.get(key);
+    }
+
+    synchronized void put(K key, String eTag, V body) {
+        if (eTag == null) {
+            this.entries.remove(key);
+        } else {
+            this.entries.put(key, new Entry<>(eTag, body));
+        }
+    }
+
+    synchronized void remove(K key) {
+        this.entries.remove(key);
+    }
+}
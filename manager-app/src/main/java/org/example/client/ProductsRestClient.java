@@ -1,7 +1,11 @@
 package org.example.client;
 
 import org.example.entity.Product;
+import org.example.entity.ProductChangesPage;
+import org.example.entity.ProductSummary;
+import org.example.entity.ProductsPage;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -9,11 +13,21 @@ public interface ProductsRestClient {
 
     List<Product> findAllProducts(String filter);
 
+    List<ProductSummary> findAllProductSummaries(String filter);
+
+    ProductsPage findProductsPage(String filter, String sort, String after, int limit);
+
     Product createProduct(String title, String details);
 
     Optional<Product> findProduct(int productId);
 
+    List<Product> findProductsByIds(Collection<Integer> ids);
+
+    List<ProductSummary> findProductSummariesByIds(Collection<Integer> ids);
+
     void updateProduct(int productId, String title, String details);
 
     void deleteProduct(int productId);
+
+    ProductChangesPage findProductChanges(long since);
 }
@@ -5,12 +5,18 @@ import org.example.client.exceptions.BadRequestException;
 import org.example.contoller.payload.NewProductPayload;
 import org.example.contoller.payload.UpdateProductPayload;
 import org.example.entity.Product;
+import org.example.entity.ProductChangesPage;
+import org.example.entity.ProductSummary;
+import org.example.entity.ProductsPage;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestClient;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Optional;
@@ -23,15 +29,58 @@ public class RestClientProductRestClient implements ProductsRestClient{
             new ParameterizedTypeReference<>() {
             };
 
+    private static final ParameterizedTypeReference<List<ProductSummary>> PRODUCT_SUMMARIES_TYPE_REFERENCE =
+            new ParameterizedTypeReference<>() {
+            };
+
+    private static final int MAX_CACHED_PRODUCTS = 10_000;
+
+    private static final int MAX_CACHED_LISTS = 100;
+
     private final RestClient restClient;
 
+    private final ETagCache<Integer, Product> productsCache = new ETagCache<>(MAX_CACHED_PRODUCTS);
+
+    private final ETagCache<String, List<Product>> productListsCache = new ETagCache<>(MAX_CACHED_LISTS);
+
     @Override
     public List<Product> findAllProducts(String filter) {
-        return this.restClient
+        String key = filter == null ? "" : filter;
+        ETagCache.Entry<List<Product>> cached = this.productListsCache.get(key);
+        ResponseEntity<List<Product>> response = this.restClient
                 .get()
                 .uri("/catalogue-api/products?filter={filter}", filter)
+                .headers(headers -> {
+                    if (cached != null) {
+                        headers.setIfNoneMatch(cached.eTag());
+                    }
+                })
                 .retrieve()
-                .body(PRODUCTS_TYPE_REFERENCE);
+                .toEntity(PRODUCTS_TYPE_REFERENCE);
+        if (response.getStatusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED) && cached != null) {
+            return cached.body();
+        }
+        this.productListsCache.put(key, response.getHeaders().getETag(), response.getBody());
+        return response.getBody();
+    }
+
+    @Override
+    public List<ProductSummary> findAllProductSummaries(String filter) {
+        return this.restClient
+                .get()
+                .uri("/catalogue-api/products?filter={filter}&fields=id,title", filter)
+                .retrieve()
+                .body(PRODUCT_SUMMARIES_TYPE_REFERENCE);
+    }
+
+    @Override
+    public ProductsPage findProductsPage(String filter, String sort, String after, int limit) {
+        return this.restClient
+                .get()
+                .uri("/catalogue-api/products?filter={filter}&sort={sort}&after={after}&limit={limit}",
+                        filter, sort, after, limit)
+                .retrieve()
+                .body(ProductsPage.class);
     }
 
     @Override
@@ -52,22 +101,69 @@ public class RestClientProductRestClient implements ProductsRestClient{
 
     @Override
     public Optional<Product> findProduct(int productId) {
+        ETagCache.Entry<Product> cached = this.productsCache.get(productId);
         try {
-            return Optional.ofNullable(this.restClient.get()
+            ResponseEntity<Product> response = this.restClient.get()
                     .uri("/catalogue-api/products/{productId}", productId)
+                    .headers(headers -> {
+                        if (cached != null) {
+                            headers.setIfNoneMatch(cached.eTag());
+                        }
+                    })
                     .retrieve()
-                    .body(Product.class));
+                    .toEntity(Product.class);
+            if (response.getStatusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED) && cached != null) {
+                return Optional.of(cached.body());
+            }
+            this.productsCache.put(productId, response.getHeaders().getETag(), response.getBody());
+            return Optional.ofNullable(response.getBody());
         } catch (HttpClientErrorException.NotFound exception) {
+            this.productsCache.remove(productId);
             return Optional.empty();
         }
     }
 
+    @Override
+    public List<Product> findProductsByIds(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return this.restClient
+                .post()
+                .uri("/catalogue-api/products/by-ids")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(ids)
+                .retrieve()
+                .body(PRODUCTS_TYPE_REFERENCE);
+    }
+
+    @Override
+    public List<ProductSummary> findProductSummariesByIds(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return this.restClient
+                .post()
+                .uri("/catalogue-api/products/by-ids?fields=id,title")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(ids)
+                .retrieve()
+                .body(PRODUCT_SUMMARIES_TYPE_REFERENCE);
+    }
+
     @Override
     public void updateProduct(int productId, String title, String details) {
+        // If-Match з останньої відомої версії: зміну, зроблену кимось іншим, не буде затерто
+        ETagCache.Entry<Product> cached = this.productsCache.get(productId);
         try {
             this.restClient
                     .patch()
                     .uri("/catalogue-api/products/{productId}", productId)
+                    .headers(headers -> {
+                        if (cached != null) {
+                            headers.setIfMatch(cached.eTag());
+                        }
+                    })
                     .contentType(MediaType.APPLICATION_JSON)
                     .body(new UpdateProductPayload(title, details))
                     .retrieve()
@@ -75,6 +171,14 @@ public class RestClientProductRestClient implements ProductsRestClient{
         } catch (HttpClientErrorException.BadRequest exception) {
             ProblemDetail problemDetail = exception.getResponseBodyAs(ProblemDetail.class);
             throw new BadRequestException((List<String>) problemDetail.getProperties().get("errors"));
+        } catch (HttpClientErrorException exception) {
+            if (exception.getStatusCode().isSameCodeAs(HttpStatus.PRECONDITION_FAILED)) {
+                ProblemDetail problemDetail = exception.getResponseBodyAs(ProblemDetail.class);
+                throw new BadRequestException(List.of(problemDetail.getDetail()));
+            }
+            throw exception;
+        } finally {
+            this.productsCache.remove(productId);
         }
     }
 
@@ -88,6 +192,17 @@ public class RestClientProductRestClient implements ProductsRestClient{
                     .toBodilessEntity();
         } catch (HttpClientErrorException.NotFound exception) {
             throw new NoSuchElementException(exception);
+        } finally {
+            this.productsCache.remove(productId);
         }
     }
+
+    @Override
+    public ProductChangesPage findProductChanges(long since) {
+        return this.restClient
+                .get()
+                .uri("/catalogue-api/products/changes?since={since}", since)
+                .retrieve()
+                .body(ProductChangesPage.class);
+    }
 }
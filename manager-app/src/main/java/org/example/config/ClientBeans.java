@@ -6,6 +6,8 @@ import org.example.security.OAuthClientHttpRequestInterceptor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.security.oauth2.client.registration.ClientRegistrationRepository;
 import org.springframework.security.oauth2.client.web.DefaultOAuth2AuthorizedClientManager;
 import org.springframework.security.oauth2.client.web.OAuth2AuthorizedClientRepository;
@@ -21,8 +23,11 @@ public class ClientBeans {
             OAuth2AuthorizedClientRepository authorizedClientRepository,
             @Value("${services.catalogue.registration-id:keycloak}") String registrationId
     ){
+        // каталог віддає Smile замість JSON; Apache HttpClient сам розпаковує gzip
         return new RestClientProductRestClient(RestClient.builder()
                 .baseUrl(catalogueBaseUrl)
+                .requestFactory(new HttpComponentsClientHttpRequestFactory())
+                .defaultHeader(HttpHeaders.ACCEPT, "application/x-jackson-smile, application/json;q=0.9")
                 .requestInterceptor(
                         new OAuthClientHttpRequestInterceptor(
                                 new DefaultOAuth2AuthorizedClientManager(clientRegistrationRepository,
@@ -19,7 +19,8 @@ public class ProductsController {
 
     @GetMapping("list")
     public String getProductsList(Model model, @RequestParam(name = "filter", required = false) String filter) {
-        model.addAttribute("products", this.productsRestClient.findAllProducts(filter));
+        // сторінка показує лише id та назву, опис не запитується
+        model.addAttribute("products", this.productsRestClient.findAllProductSummaries(filter));
         model.addAttribute("filter", filter);
         return "catalogue/products/list";
     }
@@ -0,0 +1,6 @@
+package org.example.entity;
+
+import java.util.List;
+
+public record ProductChangesPage(List<ProductChange> changes, long next) {
+}
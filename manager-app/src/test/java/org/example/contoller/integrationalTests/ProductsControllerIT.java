@@ -3,7 +3,7 @@ package org.example.contoller.integrationalTests;
 
 import com.github.tomakehurst.wiremock.client.WireMock;
 import com.github.tomakehurst.wiremock.junit5.WireMockTest;
-import org.example.entity.Product;
+import org.example.entity.ProductSummary;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -39,10 +39,11 @@ public class ProductsControllerIT {
 
         WireMock.stubFor(WireMock.get(WireMock.urlPathMatching("/catalogue-api/products"))
                 .withQueryParam("filter", WireMock.equalTo("product"))
+                .withQueryParam("fields", WireMock.equalTo("id,title"))
                 .willReturn(WireMock.ok("""
                         [
-                            {"id": 1, "title": "Product №1", "details": "Description of product №1"},
-                            {"id": 2, "title": "Product №2", "details": "Description of product №2"}
+                            {"id": 1, "title": "Product №1"},
+                            {"id": 2, "title": "Product №2"}
                         ]""").withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)));
 
         // when
@@ -53,13 +54,14 @@ public class ProductsControllerIT {
                         view().name("catalogue/products/list"),
                         model().attribute("filter", "product"),
                         model().attribute("products", List.of(
-                                new Product(1, "Product №1", "Description of product №1"),
-                                new Product(2, "Product №2", "Description of product №2")
+                                new ProductSummary(1, "Product №1"),
+                                new ProductSummary(2, "Product №2")
                         ))
                 );
 
         WireMock.verify(WireMock.getRequestedFor(WireMock.urlPathMatching("/catalogue-api/products"))
-                .withQueryParam("filter", WireMock.equalTo("product")));
+                .withQueryParam("filter", WireMock.equalTo("product"))
+                .withQueryParam("fields", WireMock.equalTo("id,title")));
     }
     @Test
     void getProductsList_ReturnsProductsListPage() throws Exception {
@@ -72,10 +74,11 @@ public class ProductsControllerIT {
 
         WireMock.stubFor(WireMock.get(WireMock.urlPathMatching("/catalogue-api/products"))
                 .withQueryParam("filter", WireMock.equalTo("product"))
+                .withQueryParam("fields", WireMock.equalTo("id,title"))
                 .willReturn(WireMock.ok("""
                         [
-                        {"id": 1, "title": "Product №1", "details": "Description of product №1"},
-                        {"id": 2, "title": "Product №2", "details": "Description of product №2"}
+                        {"id": 1, "title": "Product №1"},
+                        {"id": 2, "title": "Product №2"}
                         ]
                         """).withHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)));
 
@@ -94,15 +97,14 @@ public class ProductsControllerIT {
                         view().name("catalogue/products/list"),
                         model().attribute("filter", "product"),
                         model().attribute("products",
-                                List.of(new Product(
-                                        1, "Product №1", "Description of product №1"),
-                                        new Product(
-                                                2, "Product №2", "Description of product №2")))
+                                List.of(new ProductSummary(1, "Product №1"),
+                                        new ProductSummary(2, "Product №2")))
                         );
 
         WireMock.verify(WireMock.getRequestedFor(
                         WireMock.urlPathMatching("/catalogue-api/products"))
-                .withQueryParam("filter", WireMock.equalTo("product")));
+                .withQueryParam("filter", WireMock.equalTo("product"))
+                .withQueryParam("fields", WireMock.equalTo("id,title")));
     }
 
 }